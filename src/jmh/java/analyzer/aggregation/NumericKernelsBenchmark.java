@@ -0,0 +1,99 @@
+package analyzer.aggregation;
+
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Compares aggregating the numbers of DataSets one object at a time, like evaluators taking a List, with the scalar and
+ * the vectorized {@link NumericKernels} over the same numbers held in a primitive array.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+@State(Scope.Benchmark)
+public class NumericKernelsBenchmark {
+
+    // values of the small domain grouped by in the count benchmarks
+    private static final int DOMAIN = 8;
+
+    @Param({"1000000"})
+    public int size;
+
+    private List<SomeDataSet> data;
+    private int[] numbers;
+    private int[] codes;
+    private double[] doubles;
+
+    @Setup
+    public void setup() {
+        MetadataExample metadata = new MetadataExample();
+        SplittableRandom random = new SplittableRandom(1);
+        data = random.ints(size, 0, 1000).mapToObj(n -> new SomeDataSet(metadata, "Name " + n % DOMAIN, n, null)).toList();
+        numbers = data.stream().mapToInt(SomeDataSet::getNumber).toArray();
+        codes = data.stream().mapToInt(t -> t.getNumber() % DOMAIN).toArray();
+        doubles = data.stream().mapToDouble(SomeDataSet::getNumber).toArray();
+    }
+
+    @Benchmark
+    public double summaryPerObject() {
+        NumericSummary summary = new NumericSummary();
+        data.stream().map(SomeDataSet::getNumber).forEach(summary::add);
+        return summary.variance();
+    }
+
+    @Benchmark
+    public double summaryScalar() {
+        double mean = (double) ScalarKernels.sum(numbers) / numbers.length;
+        return ScalarKernels.squaredDeviations(numbers, mean) + ScalarKernels.min(numbers) + ScalarKernels.max(numbers);
+    }
+
+    @Benchmark
+    public double summaryKernels() {
+        NumericSummary summary = new NumericSummary();
+        summary.addAll(numbers);
+        return summary.variance();
+    }
+
+    @Benchmark
+    public Map<Integer, Long> countPerObject() {
+        return data.stream().collect(Collectors.groupingBy(t -> t.getNumber() % DOMAIN, Collectors.counting()));
+    }
+
+    @Benchmark
+    public long[] countScalar() {
+        long[] counts = new long[DOMAIN];
+        ScalarKernels.count(codes, 0, codes.length, 0, counts);
+        return counts;
+    }
+
+    @Benchmark
+    public long[] countKernels() {
+        long[] counts = new long[DOMAIN];
+        NumericKernels.count(codes, 0, counts);
+        return counts;
+    }
+
+    @Benchmark
+    public long[] histogramPerObject() {
+        Histogram histogram = new Histogram(0, 1000, 20);
+        data.stream().mapToDouble(SomeDataSet::getNumber).forEach(histogram::add);
+        return histogram.bins();
+    }
+
+    @Benchmark
+    public long[] histogramKernels() {
+        Histogram histogram = new Histogram(0, 1000, 20);
+        histogram.addAll(doubles);
+        return histogram.bins();
+    }
+
+}
@@ -25,11 +25,23 @@ import java.util.stream.Collectors;
  * This class is an implementation of {@link Consumer} and by calling {@link #accept(String)} the runnable that
  * String is mapped to can be executed. The {@link #keyReps(String)} or {@link #keyReps(String, String)} method
  * can be used to generate a String representing the options which keys can be accepted.
+ * Looking up keys doesn't allocate, keys are hashed and compared case-insensitively. {@link #accept(String)} and
+ * {@link #acceptOrFallback(String, Runnable)} also accept unambiguous prefixes of keys, see {@link #resolve(String)}.
+ * The result of {@link #keyReps(String, String)} is cached until the keys change.
  */
 public class ActionMap implements Map<String, Runnable>, Consumer<String> {
 
-    private final Map<String, Box> map = new HashMap<>();
+    // Box marking a trie node whose prefix belongs to keys of several values
+    private static final Box AMBIGUOUS = new Box(null, "");
+
+    private final Index index = new Index();
     private final Set<String> keySet = new LinkedHashSet<>();
+    // built on the first prefix lookup after a change
+    private Node trie;
+    // the last rendering of keyReps and its separators, null after a change
+    private String reps;
+    private String repsMain;
+    private String repsSmall;
 
     @Override
     public int size() {
@@ -38,12 +50,12 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
 
     @Override
     public boolean isEmpty() {
-        return map.isEmpty();
+        return index.size == 0;
     }
 
     @Override
     public boolean containsKey(Object key) {
-        if (key instanceof String s) return map.containsKey(s.toLowerCase());
+        if (key instanceof String s) return index.get(s) != null;
         return false;
     }
 
@@ -54,7 +66,10 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
 
     @Override
     public Runnable get(Object key) {
-        if (key instanceof String s) return map.get(s.toLowerCase()).value;
+        if (key instanceof String s) {
+            Box box = index.get(s);
+            return box == null ? null : box.value;
+        }
         return null;
     }
 
@@ -71,11 +86,12 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
     public Runnable put(String key, Runnable value) {
         if (key == null || value == null)
             throw new NullPointerException("Keys or values in ActionMaps may never be null!");
-        if (map.containsKey(key.toLowerCase())) throw new DuplicateKeyException("Key " + key + " already exists!");
+        if (containsKey(key)) throw new DuplicateKeyException("Key " + key + " already exists!");
 
         Box box = new Box(value, key);
-        map.put(key.toLowerCase(), box);
+        index.put(key, box);
         keySet.add(key.toLowerCase());
+        changed();
         return value;
     }
 
@@ -95,17 +111,18 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
             throw new NullPointerException("Keys or values in ActionMaps may never be null!");
         if (extraKeys == null || extraKeys.isEmpty())
             throw new NullPointerException("A List of extra keys needs to be provided and not be empty!");
-        if (map.containsKey(key.toLowerCase())) throw new DuplicateKeyException("Key " + key + " already exists!");
+        if (containsKey(key)) throw new DuplicateKeyException("Key " + key + " already exists!");
         for (String extraKey : extraKeys) {
             if (extraKey == null) throw new NullPointerException("Keys in ActionMaps may never be null!");
-            if (map.containsKey(extraKey.toLowerCase()))
+            if (containsKey(extraKey))
                 throw new DuplicateKeyException("Key " + extraKey + " already exists!");
         }
 
         Box box = new Box(value, key, extraKeys);
-        map.put(key.toLowerCase(), box);
+        index.put(key, box);
         keySet.add(key.toLowerCase());
-        extraKeys.forEach(extraKey -> map.put(extraKey.toLowerCase(), box));
+        extraKeys.forEach(extraKey -> index.put(extraKey, box));
+        changed();
         return value;
     }
 
@@ -127,9 +144,10 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
             if (containsKey(newKey)) throw new DuplicateKeyException("Key " + newKey + " already exists!");
         }
 
-        Box box = map.get(key.toLowerCase());
+        Box box = index.get(key);
         box.keys.addAll(new LinkedList<>(Arrays.asList(newKeys)));
-        Arrays.stream(newKeys).forEach(newKey -> map.put(newKey.toLowerCase(), box));
+        Arrays.stream(newKeys).forEach(newKey -> index.put(newKey, box));
+        changed();
         return box.value;
     }
 
@@ -144,12 +162,13 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
         int removed = 0;
         for (String key : keys) {
             if (key == null) continue;
-            Box box = map.get(key.toLowerCase());
+            Box box = index.get(key);
             if (box == null || box.mainKey.equalsIgnoreCase(key)) continue;
             box.keys.removeIf(key::equalsIgnoreCase);
-            map.remove(key.toLowerCase());
+            index.remove(key);
             removed++;
         }
+        if (removed > 0) changed();
         return removed;
     }
 
@@ -169,13 +188,13 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
      */
     public String renameKey(String key, String newKey) {
         if (key == null || newKey == null) throw new NullPointerException("Keys in ActionMaps may never be null!");
-        Box box = map.get(key.toLowerCase());
+        Box box = index.get(key);
         if (box == null) return null;
         String oldKey = box.mainKey;
         if (oldKey.equalsIgnoreCase(newKey)) return null;
         Optional<String> newRep = box.keys.stream().filter(newKey::equalsIgnoreCase).findFirst();
         if (newRep.isPresent()) {
-            map.remove(oldKey.toLowerCase());
+            index.remove(oldKey);
             box.mainKey = newKey;
             box.keys.remove(newRep.get());
             keySet.remove(oldKey.toLowerCase());
@@ -184,11 +203,12 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
             throw new DuplicateKeyException("Key " + newKey + " already exists!");
         } else {
             box.mainKey = newKey;
-            map.put(newKey.toLowerCase(), box);
-            map.remove(oldKey.toLowerCase());
+            index.put(newKey, box);
+            index.remove(oldKey);
             keySet.remove(oldKey.toLowerCase());
             keySet.add(newKey.toLowerCase());
         }
+        changed();
         return oldKey;
     }
 
@@ -202,10 +222,11 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
     @Override
     public Runnable remove(Object key) {
         if (key instanceof String s) {
-            Box box = map.get(s.toLowerCase());
+            Box box = index.get(s);
             if (box == null) return null;
-            box.forEachKey(ks -> map.remove(ks.toLowerCase()));
+            box.forEachKey(index::remove);
             keySet.remove(box.mainKey.toLowerCase());
+            changed();
             return box.value;
         }
         return null;
@@ -218,8 +239,9 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
 
     @Override
     public void clear() {
-        map.clear();
+        index.clear();
         keySet.clear();
+        changed();
     }
 
     @Override
@@ -230,7 +252,7 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
     @Override
     public Collection<Runnable> values() {
         List<Runnable> values = new ArrayList<>();
-        keySet.forEach(k -> values.add(map.get(k).value));
+        keySet.forEach(k -> values.add(index.get(k).value));
         return values;
     }
 
@@ -282,7 +304,7 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
     @Override
     public Runnable replace(String key, Runnable value) {
         if (key == null) throw new NullPointerException("Keys in ActionMaps can never be null!");
-        Box box = map.get(key.toLowerCase());
+        Box box = index.get(key);
         if (box == null) return null;
         Runnable oldValue = box.value;
         box.value = value;
@@ -310,8 +332,8 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
     }
 
     /**
-     * Executes the {@link Runnable} the given key is currently linked to. Does nothing when the key is not
-     * linked to a value.
+     * Executes the {@link Runnable} the given key or unambiguous prefix (see {@link #resolve(String)}) is currently
+     * linked to. Does nothing when the key is not linked to a value.
      *
      * @param s         The key.
      * @throws NullPointerException If the specified key is null.
@@ -319,13 +341,13 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
     @Override
     public void accept(String s) {
         if (s == null) throw new NullPointerException("Keys in ActionMaps can never be null!");
-        Box box = map.get(s.toLowerCase());
-        if (box.value != null) box.value.run();
+        Box box = find(s);
+        if (box != null) box.value.run();
     }
 
     /**
-     * Executes the {@link Runnable} the given key is currently linked to. If the given key is not linked
-     * to a value will instead run the fallback function.
+     * Executes the {@link Runnable} the given key or unambiguous prefix (see {@link #resolve(String)}) is currently
+     * linked to. If the given key is not linked to a value will instead run the fallback function.
      *
      * @param s        The key.
      * @param fallback The fallback function called when the key is not linked to a value.
@@ -333,11 +355,24 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
      */
     public void acceptOrFallback(String s, Runnable fallback) {
         if (s == null) throw new NullPointerException("Keys in ActionMaps can never be null!");
-        Box box = map.get(s.toLowerCase());
+        Box box = find(s);
         if (box != null) box.value.run();
         else fallback.run();
     }
 
+    /**
+     * Returns the main key of the value the given String is linked to, either as a key or as a prefix of keys that
+     * are all linked to the same value. For example "sa" resolves to "Save" unless another action has a key starting
+     * with "sa". Keys take precedence over prefixes, so "s" resolves to the value of the key "s" if there is one.
+     *
+     * @return The main key or null if the String is empty, not linked to a value or an ambiguous prefix.
+     * @throws NullPointerException If the given String is null.
+     */
+    public String resolve(String s) {
+        Box box = find(s);
+        return box == null ? null : box.mainKey;
+    }
+
     /**
      * Works like calling {@link #keyReps(String, String)} with both separators being '; '
      */
@@ -363,9 +398,160 @@ public class ActionMap implements Map<String, Runnable>, Consumer<String> {
      * @return A string representation of the keys in this map
      */
     public String keyReps(String sep_main, String sep_small) {
-        return keySet.stream()
-                .map(key -> map.get(key).keyReps(sep_small))
+        if (reps != null && repsMain.equals(sep_main) && repsSmall.equals(sep_small)) return reps;
+        reps = keySet.stream()
+                .map(key -> index.get(key).keyReps(sep_small))
                 .collect(Collectors.joining(sep_main));
+        repsMain = sep_main;
+        repsSmall = sep_small;
+        return reps;
+    }
+
+    /**
+     * Finds the Box of a key or an unambiguous prefix of keys, without allocating.
+     */
+    private Box find(String s) {
+        Box box = index.get(s);
+        if (box != null || s.isEmpty()) return box;
+        if (trie == null) trie = buildTrie();
+        Node node = trie;
+        for (int i = 0; i < s.length() && node != null; i++) {
+            node = node.child(fold(s.charAt(i)));
+        }
+        return node == null || node.box == AMBIGUOUS ? null : node.box;
+    }
+
+    private Node buildTrie() {
+        Node root = new Node();
+        index.forEach((key, box) -> {
+            Node node = root;
+            for (int i = 0; i < key.length(); i++) {
+                node = node.childOrNew(fold(key.charAt(i)));
+                if (node.box == null) node.box = box;
+                else if (node.box != box) node.box = AMBIGUOUS;
+            }
+        });
+        return root;
+    }
+
+    /**
+     * Invalidates the trie and the cached keyReps after keys were changed.
+     */
+    private void changed() {
+        trie = null;
+        reps = null;
+    }
+
+    /**
+     * Case folding consistent with {@link String#equalsIgnoreCase(String)}.
+     */
+    private static char fold(char c) {
+        return Character.toLowerCase(Character.toUpperCase(c));
+    }
+
+    /**
+     * Hash table of all keys, hashing and comparing them case-insensitively without creating lower case copies.
+     * Uses open addressing with linear probing.
+     */
+    private static final class Index {
+        String[] keys = new String[16];
+        Box[] boxes = new Box[16];
+        int size;
+
+        Box get(String key) {
+            int mask = keys.length - 1;
+            for (int i = hash(key) & mask; keys[i] != null; i = (i + 1) & mask) {
+                if (keys[i].equalsIgnoreCase(key)) return boxes[i];
+            }
+            return null;
+        }
+
+        void put(String key, Box box) {
+            if (2 * (size + 1) > keys.length) resize();
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != null && !keys[i].equalsIgnoreCase(key)) i = (i + 1) & mask;
+            if (keys[i] == null) size++;
+            keys[i] = key;
+            boxes[i] = box;
+        }
+
+        void remove(String key) {
+            int mask = keys.length - 1;
+            int i = hash(key) & mask;
+            while (keys[i] != null && !keys[i].equalsIgnoreCase(key)) i = (i + 1) & mask;
+            if (keys[i] == null) return;
+            // shift following keys back into the gap, unless it lies before their hash position
+            int gap = i;
+            for (int j = (i + 1) & mask; keys[j] != null; j = (j + 1) & mask) {
+                int home = hash(keys[j]) & mask;
+                if (((j - home) & mask) >= ((j - gap) & mask)) {
+                    keys[gap] = keys[j];
+                    boxes[gap] = boxes[j];
+                    gap = j;
+                }
+            }
+            keys[gap] = null;
+            boxes[gap] = null;
+            size--;
+        }
+
+        void clear() {
+            Arrays.fill(keys, null);
+            Arrays.fill(boxes, null);
+            size = 0;
+        }
+
+        void forEach(BiConsumer<String, Box> action) {
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null) action.accept(keys[i], boxes[i]);
+            }
+        }
+
+        private void resize() {
+            String[] oldKeys = keys;
+            Box[] oldBoxes = boxes;
+            keys = new String[2 * oldKeys.length];
+            boxes = new Box[2 * oldKeys.length];
+            size = 0;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] != null) put(oldKeys[i], oldBoxes[i]);
+            }
+        }
+
+        private static int hash(String key) {
+            int h = 0;
+            for (int i = 0; i < key.length(); i++) h = 31 * h + fold(key.charAt(i));
+            return h ^ h >>> 16;
+        }
+    }
+
+    /**
+     * Node of the trie of all case folded keys.
+     */
+    private static final class Node {
+        char[] chars = new char[0];
+        Node[] children = new Node[0];
+        // the value all keys with this prefix are linked to, AMBIGUOUS if there are several
+        Box box;
+
+        Node child(char c) {
+            for (int i = 0; i < chars.length; i++) {
+                if (chars[i] == c) return children[i];
+            }
+            return null;
+        }
+
+        Node childOrNew(char c) {
+            Node child = child(c);
+            if (child != null) return child;
+            child = new Node();
+            chars = Arrays.copyOf(chars, chars.length + 1);
+            children = Arrays.copyOf(children, children.length + 1);
+            chars[chars.length - 1] = c;
+            children[children.length - 1] = child;
+            return child;
+        }
     }
 
     private static class Box {
@@ -0,0 +1,97 @@
+package Utils;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Thread-safe variant of {@link Counter} that can be shared between threads counting in parallel.
+ * Each element has its own {@link LongAdder}, so threads incrementing the same element hardly contend and threads
+ * incrementing different elements don't contend at all. Null elements are allowed.
+ * <br>
+ * For rendering the counts are copied into a regular Counter with {@link #snapshot()}. A snapshot taken while other
+ * threads are still counting contains a part of their increments.
+ *
+ * @param <T> Type of Objects to count
+ */
+public class ConcurrentCounter<T> {
+
+    // ConcurrentHashMap doesn't allow null keys
+    private static final Object NULL = new Object();
+
+    private final ConcurrentHashMap<Object, LongAdder> counts = new ConcurrentHashMap<>();
+
+    /**
+     * Adds the element to this Counter by incrementing its value.
+     */
+    public void add(T t) {
+        adder(t).increment();
+    }
+
+    /**
+     * Adds the element the given amount of times to this Counter.
+     */
+    public void add(T t, long amount) {
+        adder(t).add(amount);
+    }
+
+    /**
+     * Adds all elements to this Counter.
+     */
+    public void add(Iterable<T> iterable) {
+        iterable.forEach(this::add);
+    }
+
+    /**
+     * Adds the values of the Counter to this Counter, for example a Counter filled by a single thread.
+     */
+    public void addAll(Counter<? extends T> counter) {
+        counter.forEach(this::add);
+    }
+
+    /**
+     * Removes the element from this Counter once by decrementing its value.
+     */
+    public void substract(T t) {
+        adder(t).decrement();
+    }
+
+    /**
+     * The current value of the element, 0 if it wasn't added.
+     */
+    public long get(Object t) {
+        LongAdder adder = counts.get(t == null ? NULL : t);
+        return adder == null ? 0 : adder.sum();
+    }
+
+    /**
+     * Sums up all values in this Counter.
+     */
+    public long sum() {
+        long sum = 0;
+        for (LongAdder adder : counts.values()) sum += adder.sum();
+        return sum;
+    }
+
+    /**
+     * Copies the current values into a new Counter, leaving out values of 0.
+     *
+     * @throws ArithmeticException If a value doesn't fit into an int.
+     */
+    @SuppressWarnings("unchecked")
+    public Counter<T> snapshot() {
+        Counter<T> counter = new Counter<>();
+        counts.forEach((key, adder) -> {
+            long value = adder.sum();
+            if (value != 0) counter.put(key == NULL ? null : (T) key, Math.toIntExact(value));
+        });
+        return counter;
+    }
+
+    private LongAdder adder(T t) {
+        Object key = t == null ? NULL : t;
+        // get first, since computeIfAbsent may lock the bin even if the element exists
+        LongAdder adder = counts.get(key);
+        return adder != null ? adder : counts.computeIfAbsent(key, _ -> new LongAdder());
+    }
+
+}
@@ -50,6 +50,13 @@ public class Counter<T> extends HashMap<T, Integer> {
         this.put(t, this.getOrDefault(t, 0) + 1);
     }
 
+    /**
+     * Adds the element the given amount of times to this Counter.
+     */
+    public void add(T t, int amount) {
+        this.put(t, this.getOrDefault(t, 0) + amount);
+    }
+
     /**
      * Adds all elements to this Counter.
      */
@@ -66,6 +73,14 @@ public class Counter<T> extends HashMap<T, Integer> {
         iterable.forEach(this::add);
     }
 
+    /**
+     * Adds the values of the other Counter to this Counter, for example to merge Counters of several threads.
+     * The other Counter stays unchanged.
+     */
+    public void addAll(Counter<? extends T> other) {
+        other.forEach(this::add);
+    }
+
     /**
      * Removes the element from this Counter once by decrementing its value.
      */
@@ -0,0 +1,64 @@
+package Utils;
+
+/**
+ * 64-bit hash functions used by probabilistic data structures like sketches.
+ */
+public class HashUtils {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Creates a well distributed 64-bit hash for any Object (including null).
+     * Equal Objects always have the same hash. For Strings and Numbers the hash is independent of
+     * {@link Object#hashCode()}, for any other Objects it is derived from {@link Object#hashCode()}.
+     */
+    public static long hash64(Object o) {
+        return switch (o) {
+            case null -> mix(FNV_OFFSET);
+            case CharSequence cs -> hash64(cs);
+            case Double d -> hash64(Double.doubleToLongBits(d));
+            case Float f -> hash64(Double.doubleToLongBits(f));
+            case Long l -> hash64(l.longValue());
+            case Integer i -> hash64(i.longValue());
+            case Short s -> hash64(s.longValue());
+            case Byte b -> hash64(b.longValue());
+            default -> mix(o.hashCode());
+        };
+    }
+
+    /**
+     * Creates a well distributed 64-bit hash for the characters of the given CharSequence.
+     */
+    public static long hash64(CharSequence cs) {
+        long h = FNV_OFFSET;
+        for (int i = 0; i < cs.length(); i++) {
+            h ^= cs.charAt(i);
+            h *= FNV_PRIME;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Creates a well distributed 64-bit hash for a primitive value.
+     */
+    public static long hash64(long value) {
+        return mix(value ^ FNV_PRIME);
+    }
+
+    /**
+     * The finalization step of MurmurHash3, spreading every input bit over the whole result.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private HashUtils() {
+    }
+
+}
@@ -1,8 +1,13 @@
 package Utils;
 
+import report.Report;
+
 import java.io.*;
 import java.nio.charset.Charset;
 import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.regex.Pattern;
 
 import static java.lang.IO.println;
@@ -13,11 +18,21 @@ public class InputUtils {
     public static final String LINEBREAK = System.lineSeparator();
 
     private static BufferedReader br;
+    // remaining lines of the running script, null if input is read from the console
+    private static Iterator<String> script;
 
     /**
-     * Reads one line of console input.
+     * Reads one line of console input, or the next line of the running script, see {@link #withScript(List, Runnable)}.
+     * Like all input methods, this flushes the current {@link Report} first, so it is printed before any prompt.
+     *
+     * @throws NoSuchElementException If the running script has no more lines.
      */
     public static String input() {
+        Report.flush();
+        if (script != null) {
+            if (!script.hasNext()) throw new NoSuchElementException("The script ended while waiting for input");
+            return script.next();
+        }
         try {
             return reader().readLine();
         } catch (IOException ioe) {
@@ -29,7 +44,8 @@ public class InputUtils {
      * Prints the message then reads the next line of console input.
      */
     public static String input(String message) {
-        println(message);
+        Report.flush();
+        if (script == null) println(message);
         return input();
     }
 
@@ -37,11 +53,12 @@ public class InputUtils {
      * Reads lines of console input until an empty line is entered.
      */
     public static String multilineInput() {
-        String line = readln();
+        Report.flush();
+        String line = script == null ? readln() : input();
         if (line.isEmpty()) return "";
         StringBuilder sb = new StringBuilder(line);
         while (true) {
-            line = readln();
+            line = script == null ? readln() : input();
             if (line.isEmpty()) {
                 break;
             }
@@ -54,7 +71,8 @@ public class InputUtils {
      * Prints the message then reads following lines of console input until an empty line is entered.
      */
     public static String multilineInput(String message) {
-        println(message);
+        Report.flush();
+        if (script == null) println(message);
         return multilineInput();
     }
 
@@ -82,6 +100,27 @@ public class InputUtils {
         }
     }
 
+    /**
+     * Runs the action reading all input from the lines of the script instead of the console, without printing the
+     * prompts of the input methods. Messages about invalid input are still printed.
+     */
+    public static void withScript(List<String> lines, Runnable action) {
+        Iterator<String> previous = script;
+        script = lines.iterator();
+        try {
+            action.run();
+        } finally {
+            script = previous;
+        }
+    }
+
+    /**
+     * Whether a script is running and has more lines.
+     */
+    public static boolean hasScriptInput() {
+        return script != null && script.hasNext();
+    }
+
     private static synchronized BufferedReader reader() {
         if (br == null) {
             String enc = System.getProperty("stdin.encoding", "");
@@ -0,0 +1,85 @@
+package Utils;
+
+import report.Report;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Consumer;
+
+import static report.Report.println;
+
+/**
+ * Runs the actions of an {@link ActionMap} from a script instead of the console, so repeatable jobs can run
+ * unattended. A script contains the same lines that would be typed into the console: an action key followed by the
+ * answers the action asks for, then the next action key. While a script runs, {@link InputUtils} reads from the script
+ * and doesn't print any prompts, and the menu of actions isn't rendered.
+ * <br>
+ * The script ends after the last line or when an action stops the loop, like Exit. Afterwards the time each action
+ * took is printed.
+ */
+public final class Script {
+
+    /**
+     * The time an action of a script took.
+     *
+     * @param action The key of the action as written in the script.
+     */
+    public record Timing(String action, Duration duration) {
+    }
+
+    /**
+     * Reads the lines of a script file.
+     *
+     * @throws UncheckedIOException If reading fails.
+     */
+    public static List<String> read(Path file) {
+        try {
+            return Files.readAllLines(file, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Runs the script, executing each action key while running is true.
+     *
+     * @param setup       Called before the first action, may read answers from the script.
+     * @param execute     Executes an action key, handling invalid keys.
+     * @param running     Whether the loop is still running, becomes false after Exit.
+     * @param afterAction Called after each action, for example to check the memory.
+     * @return The time each action took, in the order of the script.
+     * @throws java.util.NoSuchElementException If the script ends while an action expects an answer.
+     */
+    public static List<Timing> run(
+            List<String> lines, Runnable setup, Consumer<String> execute, BooleanSupplier running, Runnable afterAction
+    ) {
+        List<Timing> timings = new ArrayList<>();
+        InputUtils.withScript(lines, () -> {
+            setup.run();
+            while (running.getAsBoolean() && InputUtils.hasScriptInput()) {
+                String action = InputUtils.input();
+                long start = System.nanoTime();
+                execute.accept(action);
+                timings.add(new Timing(action, Duration.ofNanos(System.nanoTime() - start)));
+                afterAction.run();
+            }
+        });
+        println("Script timings:");
+        for (Timing timing : timings) {
+            println(timing.action() + ": " + timing.duration().toMillis() + " ms");
+        }
+        Report.flush();
+        return timings;
+    }
+
+    private Script() {
+    }
+
+}
@@ -45,6 +45,34 @@ public class Utils {
         return before + "." + after;
     }
 
+    /**
+     * Formats the share of amount in total as percentage with up to 2 digits, for example "33.33%" for 1 of 3.
+     */
+    public static String toPercentage(long amount, long total) {
+        return numbertoStringWithComma(Math.round((float) (10_000 * amount) / total), 2) + "%";
+    }
+
+    /**
+     * Formats a fraction as percentage with up to 2 digits, for example "1.6%" for 0.016.
+     */
+    public static String toPercentage(double fraction) {
+        return numbertoStringWithComma(Math.round(10_000 * fraction), 2) + "%";
+    }
+
+    /**
+     * Rounds a Floating-Point Number and formats it without trailing zeros.
+     * @param digits Number of digits to round to. Defaults to rounding to whole number if digits is non-positive.
+     * @return The rounded number as String, for example "-1.5" for -1.4999 rounded to 2 digits.
+     */
+    public static String roundToString(double number, int digits) {
+        if (Double.isNaN(number) || Double.isInfinite(number)) return String.valueOf(number);
+        long tens = (long) Math.pow(10, Math.max(0, digits));
+        long rounded = Math.round(number * tens);
+        if (rounded == 0) return "0";
+        String rep = numbertoStringWithComma(Math.abs(rounded), digits);
+        return rounded < 0 ? "-" + rep : rep;
+    }
+
     private Utils() {
     }
 
@@ -0,0 +1,211 @@
+package analyzer;
+
+import dataset.BaseDataSet;
+import storage.DataSetCodec;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.List;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Snapshot of the {@link GroupingCube}s of all Questions with an Aggregate, saved to a file so that the next start
+ * doesn't need to read and aggregate all data again. The data is read from a file with one DataSet per line, encoded
+ * by a {@link DataSetCodec}, to which new DataSets are only appended.
+ * <br>
+ * A snapshot is tagged with the length of the data file at the time it was taken and a checksum of all data up to
+ * that length. When opening, a valid snapshot is restored and only the lines appended since are decoded and folded in,
+ * so the time needed for decoding and aggregating is proportional to the new data. If the data file was replaced or
+ * changed anywhere, the Questions or the type or parameters of their Aggregates changed or the snapshot can't be read,
+ * all data is aggregated again.
+ * <br>
+ * Verifying the checksum reads the tagged data once, which is much faster than decoding it. The appended data is
+ * checksummed while folding it in, so the data file is read only once when opening and not at all when saving.
+ * The data file may not be written while a snapshot is opened. Snapshots are Java serialized and should only be
+ * read from trusted locations.
+ *
+ * @param <T> Type of {@link BaseDataSet} in the data file.
+ */
+public class AggregateSnapshot<T extends BaseDataSet> {
+
+    private final Path file;
+    private final Path dataFile;
+    private final PartialAggregates<T> aggregates;
+    private boolean restored;
+    private int appended;
+    // the length of the data file the cubes contain
+    private long length;
+    // checksum of the data file up to the length
+    private CRC32C checksum = new CRC32C();
+
+    private AggregateSnapshot(Path file, Path dataFile, List<Question<T>> questions) {
+        this.file = requireNonNull(file);
+        this.dataFile = requireNonNull(dataFile);
+        aggregates = new PartialAggregates<>(questions);
+    }
+
+    /**
+     * Opens the snapshot in the file, restoring it if it is valid and folding in the DataSets appended to the data
+     * file since, or aggregating the whole data file otherwise. Doesn't save the snapshot, see {@link #save()}.
+     * Questions without Aggregate or with more than {@link GroupingCube#DEFAULT_MAX_COMBINATIONS} combinations of
+     * groupings are not part of the snapshot.
+     *
+     * @param file      The snapshot file, which doesn't need to exist.
+     * @param dataFile  The data file, a missing file is treated as empty.
+     * @param codec     Codec decoding the lines of the data file.
+     * @param questions The Questions whose cubes are part of the snapshot.
+     * @throws UncheckedIOException If reading the data file fails.
+     */
+    public static <T extends BaseDataSet> AggregateSnapshot<T> open(
+            Path file, Path dataFile, DataSetCodec<T> codec, List<Question<T>> questions
+    ) {
+        AggregateSnapshot<T> snapshot = new AggregateSnapshot<>(file, dataFile, questions);
+        try {
+            long dataLength = Files.exists(dataFile) ? Files.size(dataFile) : 0;
+            snapshot.restore(dataLength);
+            snapshot.foldIn(codec, dataLength);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return snapshot;
+    }
+
+    /**
+     * Returns the cube of the Question, or null if the Question isn't part of the snapshot.
+     */
+    public GroupingCube<T> cube(Question<T> question) {
+        return aggregates.cube(question);
+    }
+
+    /**
+     * The aggregates of all data in the data file.
+     */
+    public PartialAggregates<T> aggregates() {
+        return aggregates;
+    }
+
+    /**
+     * Whether a valid snapshot was restored, otherwise the whole data file was aggregated.
+     */
+    public boolean restored() {
+        return restored;
+    }
+
+    /**
+     * The number of DataSets decoded from the data file when opening, which are only the appended ones if the
+     * snapshot was restored.
+     */
+    public int appended() {
+        return appended;
+    }
+
+    /**
+     * Saves the snapshot, tagged with the length of the data it contains. The file is replaced atomically if the file
+     * system supports it, so an interrupted save leaves the previous snapshot intact.
+     *
+     * @throws UncheckedIOException If writing fails.
+     */
+    public void save() {
+        try {
+            Path parent = file.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, file.getFileName().toString(), ".tmp");
+            try {
+                try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+                    out.writeObject(new Contents(length, checksum.getValue(), aggregates.states()));
+                }
+                try {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } catch (AtomicMoveNotSupportedException _) {
+                    Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING);
+                }
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Merges the saved states into the aggregates if the snapshot is valid for the data file.
+     */
+    private void restore(long dataLength) throws IOException {
+        Contents contents = read();
+        if (contents == null || contents.length() > dataLength) return;
+        CRC32C crc = checksum(dataFile, contents.length());
+        if (contents.checksum() != crc.getValue()) return;
+        try {
+            aggregates.merge(contents.states());
+        } catch (IllegalArgumentException _) {
+            // the Questions or their Aggregates changed or can't be merged, nothing was merged
+            return;
+        }
+        restored = true;
+        length = contents.length();
+        checksum = crc;
+    }
+
+    /**
+     * Reads the snapshot file, returns null if it doesn't exist or can't be deserialized.
+     */
+    private Contents read() {
+        if (!Files.exists(file)) return null;
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            return (Contents) in.readObject();
+        } catch (IOException | ClassNotFoundException | ClassCastException _) {
+            // written by an incompatible version or damaged
+            return null;
+        }
+    }
+
+    /**
+     * Adds the DataSets after the length contained in the cubes up to the given length to all cubes, updating the
+     * checksum with the bytes read.
+     */
+    private void foldIn(DataSetCodec<T> codec, long dataLength) throws IOException {
+        if (dataLength == length) return;
+        try (SeekableByteChannel channel = Files.newByteChannel(dataFile)) {
+            channel.position(length);
+            InputStream in = new CheckedInputStream(Channels.newInputStream(channel), checksum);
+            BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) continue;
+                T t = codec.decode(line);
+                aggregates.add(t);
+                appended++;
+            }
+        }
+        length = dataLength;
+    }
+
+    /**
+     * Checksum of the data up to the length.
+     */
+    private static CRC32C checksum(Path dataFile, long length) throws IOException {
+        CRC32C crc = new CRC32C();
+        if (length == 0) return crc;
+        try (InputStream in = Files.newInputStream(dataFile)) {
+            byte[] buffer = new byte[1 << 16];
+            long remaining = length;
+            while (remaining > 0) {
+                int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                if (read < 0) throw new EOFException(dataFile + " is shorter than " + length + " bytes");
+                crc.update(buffer, 0, read);
+                remaining -= read;
+            }
+        }
+        return crc;
+    }
+
+    private record Contents(long length, long checksum, List<GroupingCube.State> states) implements Serializable {
+    }
+
+}
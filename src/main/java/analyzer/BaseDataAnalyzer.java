@@ -2,17 +2,38 @@ package analyzer;
 
 import Utils.ActionMap;
 import Utils.Counter;
+import Utils.Script;
 import Utils.Utils;
+import analyzer.aggregation.Aggregate;
+import analyzer.aggregation.CountMinSketch;
+import analyzer.aggregation.Histogram;
+import analyzer.aggregation.HyperLogLog;
+import analyzer.aggregation.NumericAggregate;
+import analyzer.aggregation.NumericKernels;
+import analyzer.aggregation.NumericSummary;
+import analyzer.aggregation.TDigest;
+import analyzer.aggregation.TopK;
 import dataset.BaseDataSet;
+import exceptions.QuerySyntaxException;
+import memory.MemoryAccounting;
+import report.Report;
+import storage.DataSetCodec;
 
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static Utils.InputUtils.input;
-import static java.lang.IO.print;
-import static java.lang.IO.println;
+import static report.Report.println;
 
 /**
  * Class for Analyzing existing Data. Subclasses can override any relevant methods.
@@ -38,6 +59,38 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
      * @see <a href="https://en.wikipedia.org/wiki/Binomial_proportion_confidence_interval">https://en.wikipedia.org/wiki/Binomial_proportion_confidence_interval</a>
      */
     protected static final Consumer<Counter<Object>> WILSON_CONFIDENCE_COUNTER = BaseDataAnalyzer::percentageBasedConfidence_counter;
+    /**
+     * Takes a List of Objects and prints an estimate of the number of distinct Objects using a {@link HyperLogLog}
+     * with a standard error of about 1.6%. Uses a fixed amount of memory independent of the number of distinct Objects.
+     */
+    protected static final Consumer<List<Object>> DISTINCT_COUNT = Aggregate.evaluator(HyperLogLog::new);
+    /**
+     * Takes a List of Objects and prints the String representation of the most frequent Objects (at least 1% of the
+     * List) together with their estimated percentage using a {@link CountMinSketch}. Uses a fixed amount of memory
+     * independent of the number of distinct Objects.
+     */
+    protected static final Consumer<List<Object>> FREQUENCY_ESTIMATES = Aggregate.evaluator(CountMinSketch::new);
+    /**
+     * Takes a List of Objects and prints the String representation of the 20 most frequent Objects sorted by
+     * frequency, together with their percentage and the Wilson Score confidence interval with a confidence of 0.95.
+     * Uses memory for only 20 Objects, see {@link TopK}.
+     */
+    protected static final Consumer<List<Object>> TOP_K = Aggregate.evaluator(TopK::new);
+    /**
+     * Takes a List of Numbers and prints their count, mean, standard deviation, min and max, see {@link NumericSummary}.
+     * Null values are ignored.
+     */
+    protected static final Consumer<List<Number>> NUMERIC_SUMMARY = Aggregate.evaluator(NumericSummary::new);
+    /**
+     * Takes a List of Numbers and prints estimates of the quantiles p50, p90 and p99, see {@link TDigest}.
+     * Null values are ignored.
+     */
+    protected static final Consumer<List<Number>> QUANTILES = Aggregate.evaluator(TDigest::new);
+    /**
+     * Takes an array of the results of a Predicate and prints the percentage of true values together with the Wilson
+     * Score confidence interval with a confidence of 0.95.
+     */
+    protected static final Consumer<boolean[]> PROPORTION = BaseDataAnalyzer::proportion;
 
     protected List<T> data;
 
@@ -48,6 +101,31 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
 
     protected boolean running;
 
+    // null if ad-hoc queries are disabled
+    private final QueryCompiler<T> queryCompiler;
+
+    /**
+     * Accounts for the memory of the data, the cached cubes, index, sample and aggregates and the group maps of analyzed Questions,
+     * see {@link #printMemory()}.
+     */
+    protected final MemoryAccounting memory = new MemoryAccounting();
+
+    // 0 if cubes are disabled
+    private int maxCubeCombinations = 0;
+    private final Map<Question<T>, GroupingCube<T>> cubes = new IdentityHashMap<>();
+    private boolean indexing = false;
+    // null if groups are evaluated sequentially
+    private ForkJoinPool executor;
+    private DataIndex<T> index;
+    // 0 if sampling is disabled
+    private int sampleSize = 0;
+    private GroupingDefinition<T> sampleStrata;
+    private ReservoirSample<T> sample;
+    // null if neither snapshots nor partial aggregates are enabled
+    private PartialAggregates<T> aggregates;
+    // the data the cubes, the index and the sample were computed for
+    private List<T> indexedData;
+
     public BaseDataAnalyzer(List<T> data) {
         this.data = data;
         questions = getQuestions();
@@ -57,22 +135,68 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
         }
         actions = new ActionMap();
         actions.put("Analyze", this::analyzation, List.of("a"));
+        queryCompiler = queryCompiler();
+        if (queryCompiler != null) actions.put("Query", this::query, List.of("q"));
         actions.put("PrintData", this::printData, List.of("p"));
+        actions.put("Memory", this::printMemory, List.of("mem"));
         actions.put("Exit", this::exit, List.of("e"));
         running = false;
+        memory.track("data", () -> this.data);
+        // the DataSets and Questions are retained anyway
+        Predicate<Object> shared = o -> o instanceof BaseDataSet || o instanceof Question<?> || o instanceof GroupingDefinition<?>
+                || o == this.data;
+        memory.track("cubes", () -> cubes, shared);
+        memory.track("index", () -> index, shared);
+        memory.track("sample", () -> sample, shared);
+        memory.track("aggregates", () -> aggregates, shared);
     }
 
     /**
      * Starts up the Analyzer and presents the user with the choice of these actions:
-     * analyze; printData; exit.
-     * Performs the chosen action and loops back to the choice.
+     * analyze; printData; memory; exit.
+     * Performs the chosen action and loops back to the choice, warning if the memory crosses any thresholds.
+     * While analyzing, the {@link #memory} can be queried via JMX.
      */
     public void analyze() {
         running = true;
-        while (running) {
-            String action = inputAction();
-            actions.acceptOrFallback(action, () -> print(action + " is not a valid option."));
+        memory.registerMBean(getClass().getSimpleName());
+        try {
+            while (running) {
+                String action = inputAction();
+                executeAction(action);
+                memory.checkAfterAction();
+            }
+        } finally {
+            memory.unregisterMBean();
         }
+        Report.flush();
+    }
+
+    /**
+     * Like {@link #analyze()}, reading the actions and all answers from the lines of the script instead of the console,
+     * see {@link Script}. Stops after the last line or Exit.
+     *
+     * @return The time each action took.
+     * @throws java.util.NoSuchElementException If the script ends while an action expects an answer.
+     */
+    public List<Script.Timing> analyze(List<String> script) {
+        memory.registerMBean(getClass().getSimpleName());
+        try {
+            return Script.run(script, () -> running = true, this::executeAction, () -> running, memory::checkAfterAction);
+        } finally {
+            running = false;
+            memory.unregisterMBean();
+        }
+    }
+
+    /**
+     * Executes the action and flushes the {@link Report#sink()} afterwards, so the output of the action, including
+     * custom {@link analyzer.aggregation.Aggregate#print()} implementations, is complete before the next one is
+     * chosen.
+     */
+    protected void executeAction(String action) {
+        actions.acceptOrFallback(action, () -> println(action + " is not a valid option."));
+        Report.flush();
     }
 
     /**
@@ -82,7 +206,7 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
     protected abstract List<Question<T>> getQuestions();
 
     /**
-     * The actual analysis.
+     * The actual analysis. The report is written to the {@link Report#sink()} and flushed afterwards.
      */
     protected void analyzation() {
         String o = "Choose what to analyze. Options:" + System.lineSeparator();
@@ -90,12 +214,19 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
         while (true) {
             final String picked = input(o);
             if (questionNames.stream().anyMatch(n -> n.equalsIgnoreCase(picked))) {
-                Survey.run(
-                        questions.stream()
-                                .filter(q -> q.toString().equalsIgnoreCase(picked))
-                                .findAny().orElseThrow(() -> new IllegalStateException("Should not be able to pick a non-existent question")),
-                        data
-                );
+                Question<T> question = questions.stream()
+                        .filter(q -> q.toString().equalsIgnoreCase(picked))
+                        .findAny().orElseThrow(() -> new IllegalStateException("Should not be able to pick a non-existent question"));
+                memory.watch(() -> {
+                    if (aggregates != null && aggregates.cube(question) != null) Survey.run(aggregates.cube(question), executor);
+                    else if (sample() != null) {
+                        sample().printSummary();
+                        Survey.run(stratified(question), sample().sample(), executor);
+                    } else if (cube(question) != null) Survey.run(cube(question), executor);
+                    else if (index() != null) Survey.run(question, index(), executor);
+                    else Survey.run(question, data, executor);
+                });
+                Report.flush();
                 break;
             }
             println("Invalid question.");
@@ -103,6 +234,207 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
 
     }
 
+    /**
+     * Provides the compiler of ad-hoc queries for the Query action, see {@link QueryCompiler}. Defaults to null, which
+     * disables the Query action.
+     */
+    protected QueryCompiler<T> queryCompiler() {
+        return null;
+    }
+
+    /**
+     * Asks for an ad-hoc query, compiles it and runs it on the sample if sampling is enabled, otherwise on all data.
+     * Cubes, the index and aggregates aren't used, since they are computed per Question. Prints the error if the
+     * query isn't valid.
+     */
+    protected void query() {
+        Question<T> question;
+        try {
+            question = queryCompiler.compile(input("Enter the query:"));
+        } catch (QuerySyntaxException e) {
+            println("Invalid query: " + e.getMessage());
+            return;
+        }
+        memory.watch(() -> {
+            if (sample() != null) {
+                sample().printSummary();
+                Question<T> stratified = stratified(question);
+                Survey.run(stratified, stratified.groupings(), sample().sample(), executor);
+            } else Survey.run(question, question.groupings(), data, executor);
+        });
+        Report.flush();
+    }
+
+    /**
+     * Enables answering Questions from a {@link GroupingCube}, which is computed when a Question is first analyzed and
+     * reused afterwards, so that analyzing it again with other groupings doesn't need to group the data again.
+     * Questions with more combinations of groupings than allowed are analyzed without cube.
+     * The cubes are computed again when {@link #data} is replaced, but not when the List is modified.
+     *
+     * @param maxCombinations The maximal number of combinations of groupings per Question, 0 to disable cubes.
+     */
+    protected void enableCubes(int maxCombinations) {
+        if (maxCombinations < 0) throw new IllegalArgumentException("maxCombinations may not be negative");
+        maxCubeCombinations = maxCombinations;
+        cubes.clear();
+    }
+
+    /**
+     * Returns the cached cube for the Question, or null if cubes are disabled or the Question has too many
+     * combinations of groupings.
+     */
+    private GroupingCube<T> cube(Question<T> question) {
+        if (maxCubeCombinations == 0) return null;
+        checkIndexedData();
+        if (GroupingCube.countCombinations(question) > maxCubeCombinations) return null;
+        return cubes.computeIfAbsent(question, q -> new GroupingCube<>(q, data, maxCubeCombinations));
+    }
+
+    /**
+     * Enables answering Questions with an Aggregate from an {@link AggregateSnapshot} of the data file, which only
+     * folds in the DataSets appended since the snapshot was saved and saves it again if anything changed. Such
+     * Questions don't use {@link #data}, cubes, the index or the sample, so the data only needs to contain the
+     * DataSets needed for the other Questions. Replaces enabled partial aggregates.
+     *
+     * @param snapshotFile The snapshot file, which doesn't need to exist.
+     * @param dataFile     The data file with one DataSet per line.
+     * @param codec        Codec decoding the lines of the data file.
+     * @throws java.io.UncheckedIOException If reading the data file or saving the snapshot fails.
+     */
+    protected void enableSnapshot(Path snapshotFile, Path dataFile, DataSetCodec<T> codec) {
+        AggregateSnapshot<T> snapshot = AggregateSnapshot.open(snapshotFile, dataFile, codec, questions);
+        if (!snapshot.restored() || snapshot.appended() > 0) snapshot.save();
+        aggregates = snapshot.aggregates();
+    }
+
+    /**
+     * Enables answering Questions with an Aggregate from the merged {@link PartialAggregates} of several shards, each
+     * written by {@link #writePartialAggregates(Path)} in a separate process. Such Questions don't use {@link #data},
+     * so a coordinator only needs the DataSets for the other Questions. Replaces an enabled snapshot.
+     *
+     * @param files The files containing the partial aggregates of the shards.
+     * @throws IllegalArgumentException If a file doesn't contain partial aggregates of the Questions of this Analyzer.
+     * @throws java.io.UncheckedIOException If reading a file fails.
+     */
+    protected void enablePartialAggregates(Collection<Path> files) {
+        PartialAggregates<T> merged = new PartialAggregates<>(questions);
+        files.forEach(merged::merge);
+        aggregates = merged;
+    }
+
+    /**
+     * Aggregates {@link #data} as one shard for all Questions with an Aggregate and writes the partial aggregates to
+     * the file, see {@link #enablePartialAggregates(Collection)}.
+     *
+     * @throws java.io.UncheckedIOException If writing fails.
+     */
+    public void writePartialAggregates(Path file) {
+        PartialAggregates.of(questions, data).write(file);
+    }
+
+    /**
+     * Enables answering Questions with a {@link DataIndex}, which keeps bitmaps of the DataSets fulfilling the
+     * conditions and the DataSets for each value of the groupings of analyzed Questions, so analyzing them again only
+     * intersects bitmaps. Questions answered from a cube (see {@link #enableCubes(int)}) don't use the index.
+     * The index is computed again when {@link #data} is replaced, but not when the List is modified.
+     */
+    protected void enableIndex() {
+        indexing = true;
+        index = null;
+    }
+
+    /**
+     * Enables evaluating the groups of a Question concurrently, each group printing into its own buffer. The buffers
+     * are printed in the same order as evaluating the groups sequentially, so the output doesn't change.
+     * Only use this if the evaluators of all Questions are thread-safe.
+     *
+     * @param parallelism The number of threads evaluating groups, 1 to evaluate them sequentially.
+     */
+    protected void enableParallelEvaluation(int parallelism) {
+        if (parallelism < 1) throw new IllegalArgumentException("parallelism needs to be positive");
+        if (executor != null) executor.shutdown();
+        executor = parallelism == 1 ? null : new ForkJoinPool(parallelism);
+    }
+
+    /**
+     * Returns the index of the data, or null if the index is disabled.
+     */
+    private DataIndex<T> index() {
+        if (!indexing) return null;
+        checkIndexedData();
+        if (index == null) index = new DataIndex<>(data);
+        return index;
+    }
+
+    /**
+     * Enables analyzing a uniform random sample of the data instead of all data, which is much faster for large
+     * amounts of data but only gives approximate results. Each analysis starts with the size of the sample and the
+     * resulting margin of error of percentages, see {@link ReservoirSample}. Cubes and the index aren't used for the
+     * sample. The sample is taken again when {@link #data} is replaced, but not when the List is modified.
+     *
+     * @param size   The number of sampled DataSets (per stratum), 0 to disable sampling.
+     * @param strata Grouping to stratify the sample by, null for no stratification. Since the strata are sampled with
+     *               different rates, it is added as forced grouping to every Question analyzed on the sample.
+     */
+    protected void enableSampling(int size, GroupingDefinition<T> strata) {
+        if (size < 0) throw new IllegalArgumentException("size may not be negative");
+        sampleSize = size;
+        sampleStrata = strata;
+        sample = null;
+    }
+
+    /**
+     * Returns the Question with the strata of the sample as last forced grouping, replacing a grouping of the Question
+     * with the same name, so the strata are never mixed.
+     */
+    private Question<T> stratified(Question<T> question) {
+        if (sampleStrata == null) return question;
+        List<GroupingDefinition<T>> groupings = new ArrayList<>(question.groupings());
+        groupings.removeIf(gd -> gd.name().equals(sampleStrata.name()));
+        groupings.add(sampleStrata.asForced());
+        return new Question<>(question.name(), groupings, question.evaluator(), question.conditionAll(),
+                question.aggregate(), question.projection());
+    }
+
+    /**
+     * Returns the sample of the data, or null if sampling is disabled.
+     */
+    private ReservoirSample<T> sample() {
+        if (sampleSize == 0) return null;
+        checkIndexedData();
+        if (sample == null) {
+            sample = new ReservoirSample<>(sampleSize, sampleStrata, 0);
+            sample.addAll(data);
+        }
+        return sample;
+    }
+
+    private void checkIndexedData() {
+        if (indexedData == data) return;
+        cubes.clear();
+        index = null;
+        sample = null;
+        indexedData = data;
+    }
+
+    /**
+     * Runs all Questions without asking for groupings and writes one consolidated report into the file,
+     * configured by {@link #batchReport()}.
+     *
+     * @return The time each run took, see {@link BatchReport#write(Path)}.
+     */
+    public List<BatchReport.Timing> writeBatchReport(Path file) {
+        return batchReport().build().write(file);
+    }
+
+    /**
+     * Configures the report of {@link #writeBatchReport(Path)}, defaults to running each Question with its forced
+     * groupings alone and together with each other grouping on all available processors.
+     */
+    protected BatchReport.Builder<T> batchReport() {
+        return BatchReport.of(questions, data);
+    }
+
     /**
      * Method of inputting the action to choose in {@link BaseDataAnalyzer#analyze()}.
      */
@@ -117,6 +449,16 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
         for (T data : data) {
             println(data);
         }
+        Report.flush();
+    }
+
+    /**
+     * Prints the estimated memory of the data, the cached cubes, index and sample and the last group maps of each
+     * analyzed Question.
+     */
+    protected void printMemory() {
+        memory.print();
+        Report.flush();
     }
 
     /**
@@ -126,13 +468,110 @@ public abstract class BaseDataAnalyzer<T extends BaseDataSet> {
         running = false;
     }
 
+    /**
+     * Like {@link #DISTINCT_COUNT} but with a configurable error.
+     *
+     * @param relativeError The maximal relative standard error, for example 0.01 for 1%.
+     */
+    protected static Consumer<List<Object>> distinctCount(double relativeError) {
+        return Aggregate.evaluator(() -> HyperLogLog.withError(relativeError));
+    }
+
+    /**
+     * Like {@link #FREQUENCY_ESTIMATES} but with a configurable error.
+     *
+     * @param epsilon   Maximal error of the estimates relative to the size of the List.
+     * @param delta     Probability that an estimate exceeds the maximal error.
+     * @param threshold Minimal estimated share of the List an Object needs to be printed.
+     */
+    protected static Consumer<List<Object>> frequencyEstimates(double epsilon, double delta, double threshold) {
+        return Aggregate.evaluator(() -> new CountMinSketch(epsilon, delta, threshold));
+    }
+
+    /**
+     * Like {@link #TOP_K} but with a configurable number of Objects.
+     *
+     * @param k Number of most frequent Objects to print.
+     */
+    protected static Consumer<List<Object>> topK(int k) {
+        return Aggregate.evaluator(() -> new TopK(k));
+    }
+
+    /**
+     * Like {@link #QUANTILES} but with configurable quantiles.
+     *
+     * @param quantiles The quantiles to print, each between 0 and 1.
+     */
+    protected static Consumer<List<Number>> quantiles(double... quantiles) {
+        return Aggregate.evaluator(() -> new TDigest(TDigest.DEFAULT_COMPRESSION, quantiles));
+    }
+
+    /**
+     * Takes a List of Numbers and prints how many of them are in each of the bins of equal width between min and max,
+     * see {@link Histogram}. Null values are ignored.
+     */
+    protected static Consumer<List<Number>> histogram(double min, double max, int bins) {
+        return Aggregate.evaluator(() -> new Histogram(min, max, bins));
+    }
+
+    /**
+     * Creates an evaluator taking an array of primitive values, for example NUMERIC_SUMMARY without boxing:
+     * {@code numeric(NumericSummary::new)}.
+     *
+     * @param aggregate Supplier creating a new, empty NumericAggregate for each evaluation.
+     */
+    protected static Consumer<double[]> numeric(Supplier<? extends NumericAggregate> aggregate) {
+        return NumericAggregate.arrayEvaluator(aggregate);
+    }
+
+    /**
+     * Like {@link #numeric(Supplier)} for an array of ints, for example {@code numericInts(NumericSummary::new)} with
+     * the mapper SomeDataSet::getNumber.
+     */
+    protected static Consumer<int[]> numericInts(Supplier<? extends NumericAggregate> aggregate) {
+        return NumericAggregate.intArrayEvaluator(aggregate);
+    }
+
+    /**
+     * Takes an array of ints between min and max (both inclusive) and prints each value that appears together with its
+     * percentage like {@link #SIMPLE_PERCENTAGES}, counting them with {@link NumericKernels#count}. The range should be
+     * small.
+     *
+     * @throws IllegalArgumentException When evaluating a value outside the range.
+     */
+    protected static Consumer<int[]> intPercentages(int min, int max) {
+        if (max < min) throw new IllegalArgumentException("max needs to be at least min");
+        return values -> {
+            long[] counts = new long[max - min + 1];
+            NumericKernels.count(values, min, counts);
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) continue;
+                println((min + i) + ": "
+                        + counts[i] + "/" + values.length + " "
+                        + Utils.toPercentage(counts[i], values.length));
+            }
+        };
+    }
+
+    private static void proportion(boolean[] values) {
+        // like the evaluators taking a List, print nothing for no values instead of an interval of 0 trials
+        if (values.length == 0) return;
+        int amount = 0;
+        for (boolean value : values) {
+            if (value) amount++;
+        }
+        println("true: "
+                + Utils.toBinomialConfidenceRange(amount, values.length, 0.95, 2)
+                + " (" + amount + "/" + values.length + ")");
+    }
+
     private static <R> void simplePercentages(List<R> values) {
         Counter<R> counter = new Counter<>(values);
         int total = counter.sum();
         counter.forEach((value, amount) -> println(
                 value + ": "
                         + amount + "/" + total + " "
-                        + Utils.numbertoStringWithComma(Math.round((float) (10_000 * amount) / total), 2) + "%"
+                        + Utils.toPercentage(amount, total)
         ));
     }
 
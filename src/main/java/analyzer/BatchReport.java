@@ -0,0 +1,259 @@
+package analyzer;
+
+import dataset.BaseDataSet;
+import report.FileSink;
+import report.MemorySink;
+import report.Report;
+import report.ReportSink;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Non-interactive analysis running every {@link Question} with a configurable set of grouping combinations, without
+ * asking for groupings. The runs are scheduled across a thread pool sharing the data, which may not be modified
+ * while the report runs. Every run renders into its own buffer, and all runs are written into one consolidated report
+ * in the order of the Questions and combinations, followed by a summary of the time each Question took.
+ *
+ * @param <T> Type of DataSets to analyze.
+ */
+public class BatchReport<T extends BaseDataSet> {
+
+    /**
+     * Predefined sets of grouping combinations for each Question. Forced groupings are part of every combination.
+     */
+    public enum Combinations {
+        /**
+         * Only the forced groupings, like answering no to every grouping.
+         */
+        FORCED,
+        /**
+         * The forced groupings alone and together with each other grouping, the default.
+         */
+        EACH,
+        /**
+         * Every combination of groupings, which doubles with every grouping that is not forced. Limited to
+         * {@link GroupingCube#DEFAULT_MAX_COMBINATIONS} combinations per Question.
+         */
+        ALL
+    }
+
+    /**
+     * The time it took to run a Question with a combination of groupings.
+     */
+    public record Timing(String question, List<String> groupings, Duration duration) {
+    }
+
+    private final List<Question<T>> questions;
+    private final List<T> data;
+    private final int threads;
+    private final Function<Question<T>, List<List<GroupingDefinition<T>>>> combinations;
+
+    private BatchReport(Builder<T> builder) {
+        questions = List.copyOf(builder.questions);
+        data = builder.data;
+        threads = builder.threads;
+        combinations = builder.combinations;
+    }
+
+    /**
+     * Starts building a report of the given Questions over the given data.
+     */
+    public static <T extends BaseDataSet> Builder<T> of(List<Question<T>> questions, List<T> data) {
+        return new Builder<>(questions, data);
+    }
+
+    /**
+     * Runs all Questions and writes the report into the file, replacing it if it already exists.
+     *
+     * @return The time each run took, in the order of the report.
+     */
+    public List<Timing> write(Path file) {
+        try (FileSink sink = new FileSink(file)) {
+            return write(sink);
+        }
+    }
+
+    /**
+     * Runs all Questions and writes the report to the sink, flushing it afterwards.
+     *
+     * @return The time each run took, in the order of the report.
+     */
+    public List<Timing> write(ReportSink sink) {
+        long start = System.nanoTime();
+        List<Run> runs = new ArrayList<>();
+        for (Question<T> question : questions) {
+            for (List<GroupingDefinition<T>> groupings : combinations.apply(question)) {
+                if (!question.groupings().containsAll(groupings)
+                        || question.groupings().stream().anyMatch(gd -> gd.forced() && !groupings.contains(gd))) {
+                    throw new IllegalArgumentException("Invalid groupings " + groupings + " for Question " + question);
+                }
+                runs.add(new Run(question, List.copyOf(groupings)));
+            }
+        }
+
+        List<Timing> timings = new ArrayList<>(runs.size());
+        try (ExecutorService executor = Executors.newFixedThreadPool(threads)) {
+            List<Future<String>> results = runs.stream().map(run -> executor.submit(run::render)).toList();
+            for (int i = 0; i < runs.size(); i++) {
+                Run run = runs.get(i);
+                sink.println("===== " + run.question + " =====");
+                sink.println("Grouped by: " + (run.groupings.isEmpty() ? "-" : String.join(", ", run.groupNames())));
+                sink.print(results.get(i).get());
+                sink.println();
+                timings.add(new Timing(run.question.toString(), run.groupNames(), run.duration));
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while running the report", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            if (e.getCause() instanceof Error error) throw error;
+            throw new IllegalStateException(e.getCause());
+        }
+
+        sink.println("===== Timing =====");
+        Map<String, Duration> perQuestion = new LinkedHashMap<>();
+        timings.forEach(t -> perQuestion.merge(t.question(), t.duration(), Duration::plus));
+        perQuestion.forEach((question, duration) -> sink.println(question + ": " + millis(duration)));
+        sink.println("Total: " + millis(Duration.ofNanos(System.nanoTime() - start)) + " on " + threads + " threads");
+        sink.flush();
+        return timings;
+    }
+
+    private static String millis(Duration duration) {
+        return String.format(Locale.ROOT, "%.1f ms", duration.toNanos() / 1e6);
+    }
+
+    /**
+     * All combinations of groupings of the Question for the predefined set.
+     *
+     * @throws IllegalArgumentException If the set is {@link Combinations#ALL} and the Question has more than
+     *                                  {@link GroupingCube#DEFAULT_MAX_COMBINATIONS} combinations.
+     */
+    static <T extends BaseDataSet> List<List<GroupingDefinition<T>>> combinations(
+            Question<T> question, Combinations combinations
+    ) {
+        List<GroupingDefinition<T>> groupings = question.groupings();
+        List<Integer> optional = new ArrayList<>();
+        for (int i = 0; i < groupings.size(); i++) {
+            if (!groupings.get(i).forced()) optional.add(i);
+        }
+        // each combination selects some of the optional groupings by their index in optional
+        List<IntPredicate> selections = new ArrayList<>();
+        selections.add(_ -> false);
+        switch (combinations) {
+            case FORCED -> {
+            }
+            case EACH -> {
+                for (int j = 0; j < optional.size(); j++) {
+                    int each = j;
+                    selections.add(k -> k == each);
+                }
+            }
+            case ALL -> {
+                if (GroupingCube.countCombinations(question) > GroupingCube.DEFAULT_MAX_COMBINATIONS) {
+                    throw new IllegalArgumentException("Question " + question + " has more than "
+                            + GroupingCube.DEFAULT_MAX_COMBINATIONS + " combinations of groupings");
+                }
+                for (int mask = 1; mask < 1 << optional.size(); mask++) {
+                    int all = mask;
+                    selections.add(k -> (all & 1 << k) != 0);
+                }
+            }
+        }
+
+        List<List<GroupingDefinition<T>>> result = new ArrayList<>(selections.size());
+        for (IntPredicate selection : selections) {
+            List<GroupingDefinition<T>> selected = new ArrayList<>();
+            for (int i = 0; i < groupings.size(); i++) {
+                GroupingDefinition<T> gd = groupings.get(i);
+                if (gd.forced() || selection.test(optional.indexOf(i))) selected.add(gd);
+            }
+            result.add(selected);
+        }
+        return result;
+    }
+
+    private final class Run {
+        private final Question<T> question;
+        private final List<GroupingDefinition<T>> groupings;
+        private Duration duration;
+
+        private Run(Question<T> question, List<GroupingDefinition<T>> groupings) {
+            this.question = question;
+            this.groupings = groupings;
+        }
+
+        private List<String> groupNames() {
+            return groupings.stream().map(GroupingDefinition::toString).toList();
+        }
+
+        private String render() {
+            MemorySink buffer = new MemorySink();
+            long start = System.nanoTime();
+            Report.writeTo(buffer, () -> Survey.run(question, groupings, data, null));
+            duration = Duration.ofNanos(System.nanoTime() - start);
+            return buffer.getOutput();
+        }
+    }
+
+    /**
+     * Builder for creating {@link BatchReport} instances.
+     *
+     * @param <T> Type of DataSets to analyze.
+     */
+    public static class Builder<T extends BaseDataSet> {
+        private final List<Question<T>> questions;
+        private final List<T> data;
+        private int threads = Runtime.getRuntime().availableProcessors();
+        private Function<Question<T>, List<List<GroupingDefinition<T>>>> combinations =
+                q -> BatchReport.combinations(q, Combinations.EACH);
+
+        protected Builder(List<Question<T>> questions, List<T> data) {
+            this.questions = requireNonNull(questions);
+            this.data = requireNonNull(data);
+        }
+
+        /**
+         * Sets the number of threads running Questions. Defaults to the number of available processors.
+         */
+        public Builder<T> threads(int threads) {
+            if (threads < 1) throw new IllegalArgumentException("threads needs to be positive");
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Runs every Question with the predefined set of grouping combinations. Defaults to {@link Combinations#EACH}.
+         */
+        public Builder<T> combinations(Combinations combinations) {
+            requireNonNull(combinations);
+            this.combinations = q -> BatchReport.combinations(q, combinations);
+            return this;
+        }
+
+        /**
+         * Runs every Question with the grouping combinations returned by the function. Each combination needs to
+         * contain all forced groupings of the Question.
+         */
+        public Builder<T> combinations(Function<Question<T>, List<List<GroupingDefinition<T>>>> combinations) {
+            this.combinations = requireNonNull(combinations);
+            return this;
+        }
+
+        public BatchReport<T> build() {
+            return new BatchReport<>(this);
+        }
+    }
+
+}
@@ -0,0 +1,102 @@
+package analyzer;
+
+import Utils.RoaringBitmap;
+import dataset.BaseDataSet;
+
+import java.util.*;
+import java.util.function.Predicate;
+
+/**
+ * Index over a List of DataSets with one {@link RoaringBitmap} of positions in the List per distinct value of each
+ * grouping and per condition of a Question. Bitmaps are computed when they are first needed and reused afterwards,
+ * so repeatedly analyzing the same data only intersects bitmaps instead of applying all functions to all DataSets.
+ * <br>
+ * Groupings and conditions are identified by identity, so they need to be the same instances for their bitmaps to be
+ * reused. The index doesn't notice changes of the data, a new index needs to be created instead.
+ *
+ * @param <T> Type of DataSets in the List.
+ */
+public class DataIndex<T extends BaseDataSet> {
+
+    private final List<T> data;
+    private final Map<Predicate<T>, RoaringBitmap> conditions = new IdentityHashMap<>();
+    private final Map<GroupingDefinition<T>, Map<Object, RoaringBitmap>> groupings = new IdentityHashMap<>();
+
+    public DataIndex(List<T> data) {
+        this.data = data;
+    }
+
+    /**
+     * The indexed DataSet at the given position.
+     */
+    public T get(int position) {
+        return data.get(position);
+    }
+
+    /**
+     * Returns the positions of all DataSets fulfilling the condition.
+     */
+    public RoaringBitmap condition(Predicate<T> condition) {
+        return conditions.computeIfAbsent(condition, c -> {
+            RoaringBitmap bitmap = new RoaringBitmap();
+            for (int i = 0; i < data.size(); i++) {
+                if (c.test(data.get(i))) bitmap.add(i);
+            }
+            return bitmap;
+        });
+    }
+
+    /**
+     * Returns the positions of the DataSets for each distinct result of the grouping function (including null).
+     */
+    public Map<Object, RoaringBitmap> grouping(GroupingDefinition<T> grouping) {
+        return groupings.computeIfAbsent(grouping, gd -> {
+            Map<Object, RoaringBitmap> bitmaps = new HashMap<>();
+            for (int i = 0; i < data.size(); i++) {
+                bitmaps.computeIfAbsent(gd.function().apply(data.get(i)), _ -> new RoaringBitmap()).add(i);
+            }
+            return bitmaps;
+        });
+    }
+
+    /**
+     * Groups all DataSets fulfilling the condition of the Question like {@link Survey} does, by intersecting the
+     * bitmap of the condition with the bitmaps of the values of each grouping. Empty groups are left out.
+     *
+     * @param selected Groupings to group by, an empty List results in a single group (if it isn't empty).
+     * @return Map of the combined results of the grouping functions to the positions of the DataSets in the group.
+     */
+    public Map<List<?>, RoaringBitmap> groups(Question<T> question, List<GroupingDefinition<T>> selected) {
+        Map<List<?>, RoaringBitmap> groups = new HashMap<>();
+        group(selected, 0, new ArrayList<>(), condition(question.conditionAll()), groups);
+        if (selected.isEmpty() || selected.stream().anyMatch(gd -> gd.domain() == null)) return groups;
+
+        // order by the indices of the domains, like Survey does
+        Comparator<RoaringBitmap> byIndex = (a, b) -> 0;
+        for (GroupingDefinition<T> gd : selected) {
+            byIndex = byIndex.thenComparingInt(bitmap -> gd.domain().index().applyAsInt(data.get(bitmap.first())));
+        }
+        Map<List<?>, RoaringBitmap> ordered = new LinkedHashMap<>();
+        groups.entrySet().stream()
+                .sorted(Map.Entry.comparingByValue(byIndex))
+                .forEach(e -> ordered.put(e.getKey(), e.getValue()));
+        return ordered;
+    }
+
+    private void group(
+            List<GroupingDefinition<T>> selected, int depth, List<Object> keys, RoaringBitmap positions,
+            Map<List<?>, RoaringBitmap> groups
+    ) {
+        if (positions.isEmpty()) return;
+        if (depth == selected.size()) {
+            groups.put(new ArrayList<>(keys), positions);
+            return;
+        }
+        grouping(selected.get(depth)).forEach((key, bitmap) -> {
+            keys.add(key);
+            group(selected, depth + 1, keys, positions.and(bitmap), groups);
+            keys.removeLast();
+        });
+    }
+
+}
@@ -0,0 +1,326 @@
+package analyzer;
+
+import analyzer.aggregation.Aggregate;
+import dataset.BaseDataSet;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.CRC32C;
+
+/**
+ * Precomputed groups of a {@link Question} for every combination of its groupings, so that any choice of groupings
+ * can be evaluated without grouping the data again. Forced groupings are part of every combination.
+ * <br>
+ * All DataSets are grouped by all groupings in a single pass. The groups of every other combination are rolled up
+ * from these. For Questions with an {@link Question#aggregate()} the Aggregates of every combination are merged in
+ * advance, otherwise each group only references the DataSets of the groups it was rolled up from.
+ * <br>
+ * The cube doesn't notice changes of the data. New DataSets can be added with {@link #add(BaseDataSet)}, the other
+ * combinations are rolled up again the next time they are needed. For Questions with an Aggregate the state of the cube
+ * can be saved with {@link #state()} and restored or merged into another cube, see {@link State}.
+ *
+ * @param <T> Type of {@link BaseDataSet} that can be analyzed with the Question.
+ */
+public final class GroupingCube<T extends BaseDataSet> {
+
+    /**
+     * The default maximal number of combinations, allowing up to 6 groupings that are not forced.
+     */
+    public static final int DEFAULT_MAX_COMBINATIONS = 64;
+
+    private final Question<T> question;
+    private final List<GroupingDefinition<T>> groupings;
+    private final int forced;
+    // identifies the type and parameters of the Aggregate, 0 for Questions without Aggregate
+    private final long configuration;
+    // groups by all groupings
+    private final Map<List<?>, Cell<T>> finest = new HashMap<>();
+    // the number of DataSets added so far, the position of the next one in the data
+    private int added;
+    // combinations are represented as bit masks over the indices of the groupings, null if they need to be rolled up
+    private Map<Integer, Map<List<?>, Cell<T>>> combinations;
+
+    /**
+     * Groups the data by every combination of groupings of the Question.
+     *
+     * @param maxCombinations The maximal number of combinations that may be computed.
+     * @throws IllegalArgumentException If the Question has too many groupings that are not forced.
+     */
+    public GroupingCube(Question<T> question, List<T> data, int maxCombinations) {
+        this.question = question;
+        groupings = List.copyOf(question.groupings());
+        if (groupings.size() >= Integer.SIZE - 1 || countCombinations(question) > maxCombinations) {
+            throw new IllegalArgumentException("Question " + question + " has more than " + maxCombinations + " combinations of groupings");
+        }
+
+        int forced = 0;
+        for (int i = 0; i < groupings.size(); i++) {
+            if (groupings.get(i).forced()) forced |= 1 << i;
+        }
+        this.forced = forced;
+        configuration = question.aggregate() == null ? 0 : configuration(question.aggregate().get());
+        data.forEach(this::add);
+    }
+
+    /**
+     * Creates a cube allowing up to {@link #DEFAULT_MAX_COMBINATIONS} combinations.
+     */
+    public GroupingCube(Question<T> question, List<T> data) {
+        this(question, data, DEFAULT_MAX_COMBINATIONS);
+    }
+
+    /**
+     * The number of combinations of groupings a cube for the Question would have, which doubles with every grouping
+     * that is not forced.
+     */
+    public static long countCombinations(Question<?> question) {
+        long optional = question.groupings().stream().filter(gd -> !gd.forced()).count();
+        return optional >= Long.SIZE - 1 ? Long.MAX_VALUE : 1L << optional;
+    }
+
+    public Question<T> question() {
+        return question;
+    }
+
+    /**
+     * The number of precomputed combinations of groupings.
+     */
+    public int combinations() {
+        return (int) countCombinations(question);
+    }
+
+    /**
+     * Adds the DataSet to its group if it fulfills the condition of the Question.
+     */
+    public void add(T t) {
+        if (!question.conditionAll().test(t)) return;
+        List<Object> keys = new ArrayList<>(groupings.size());
+        groupings.forEach(g -> keys.add(g.function().apply(t)));
+        finest.computeIfAbsent(keys, _ -> newCell(keys, indices(t))).add(t, added++);
+        combinations = null;
+    }
+
+    /**
+     * Returns the state of the cube, which can be serialized to restore the cube later or in another process.
+     *
+     * @throws IllegalStateException If the Question has no Aggregate.
+     */
+    public State state() {
+        if (question.aggregate() == null) throw new IllegalStateException("Question " + question + " has no Aggregate");
+        List<State.Group> groups = new ArrayList<>(finest.size());
+        finest.values().forEach(cell -> groups.add(new State.Group(cell.keys, cell.indices, cell.size, cell.aggregate)));
+        return new State(question.toString(), groupings.stream().map(GroupingDefinition::toString).toList(),
+                configuration, groups);
+    }
+
+    /**
+     * Adds all groups of the state to this cube, as if the DataSets of the state were added.
+     *
+     * @throws IllegalArgumentException If the state belongs to another Question, other groupings or an Aggregate with
+     *                                  another type or parameters.
+     * @throws IllegalStateException    If the Question has no Aggregate.
+     */
+    public void merge(State state) {
+        if (question.aggregate() == null) throw new IllegalStateException("Question " + question + " has no Aggregate");
+        if (!state.question().equals(question.toString())
+                || !state.groupings().equals(groupings.stream().map(GroupingDefinition::toString).toList())) {
+            throw new IllegalArgumentException("State of " + state.question() + " " + state.groupings()
+                    + " doesn't belong to Question " + question + " " + groupings);
+        }
+        if (state.configuration() != configuration) {
+            throw new IllegalArgumentException("State of " + state.question() + " has another Aggregate");
+        }
+        for (State.Group group : state.groups()) {
+            Cell<T> cell = finest.computeIfAbsent(group.keys(), keys -> newCell(keys, group.indices().clone()));
+            @SuppressWarnings("unchecked")
+            Aggregate<T> aggregate = (Aggregate<T>) group.aggregate();
+            cell.aggregate.merge(aggregate);
+            cell.size += group.size();
+        }
+        combinations = null;
+    }
+
+    /**
+     * Returns the precomputed groups for the given groupings, in the same order as grouping the data directly.
+     * Without groupings there is a single group with an empty List as key, unless no DataSet fulfills the condition.
+     *
+     * @param selected Groupings of the Question, including all forced groupings, in the order of the Question.
+     * @throws IllegalArgumentException If the groupings are not a valid combination of groupings of the Question.
+     */
+    Map<List<?>, Cell<T>> cells(List<GroupingDefinition<T>> selected) {
+        if (combinations == null) rollUp();
+        int mask = 0;
+        for (GroupingDefinition<T> gd : selected) {
+            int index = groupings.indexOf(gd);
+            if (index < 0) throw new IllegalArgumentException("Grouping " + gd + " is not part of Question " + question);
+            mask |= 1 << index;
+        }
+        Map<List<?>, Cell<T>> cells = combinations.get(mask);
+        if (cells == null) throw new IllegalArgumentException("Forced groupings of Question " + question + " are missing");
+        return cells;
+    }
+
+    private void rollUp() {
+        int all = (1 << groupings.size()) - 1;
+        combinations = new HashMap<>();
+        combinations.put(all, order(finest, all));
+        for (int mask = 0; mask < all; mask++) {
+            if ((mask & forced) == forced) combinations.put(mask, rollUp(mask));
+        }
+    }
+
+    private Map<List<?>, Cell<T>> rollUp(int mask) {
+        Map<List<?>, Cell<T>> rolledUp = new HashMap<>();
+        for (Cell<T> cell : finest.values()) {
+            List<Object> keys = new ArrayList<>();
+            int[] indices = new int[Integer.bitCount(mask)];
+            int pos = 0;
+            for (int i = 0; i < groupings.size(); i++) {
+                if ((mask & 1 << i) == 0) continue;
+                keys.add(cell.keys.get(i));
+                indices[pos++] = cell.indices[i];
+            }
+            rolledUp.computeIfAbsent(keys, _ -> newCell(keys, indices)).addAll(cell);
+        }
+        return order(rolledUp, mask);
+    }
+
+    /**
+     * Orders groups by the indices of their domains if all groupings in the combination have a
+     * {@link GroupingDefinition.Domain}, like {@link Survey} does.
+     */
+    private Map<List<?>, Cell<T>> order(Map<List<?>, Cell<T>> cells, int mask) {
+        for (int i = 0; i < groupings.size(); i++) {
+            if ((mask & 1 << i) != 0 && groupings.get(i).domain() == null) return cells;
+        }
+        Map<List<?>, Cell<T>> ordered = new LinkedHashMap<>();
+        cells.values().stream()
+                .sorted((a, b) -> Arrays.compare(a.indices, b.indices))
+                .forEach(cell -> ordered.put(cell.keys, cell));
+        return ordered;
+    }
+
+    private int[] indices(T t) {
+        int[] indices = new int[groupings.size()];
+        for (int i = 0; i < groupings.size(); i++) {
+            GroupingDefinition.Domain<T> domain = groupings.get(i).domain();
+            indices[i] = domain == null ? -1 : domain.index().applyAsInt(t);
+        }
+        return indices;
+    }
+
+    /**
+     * The configuration of the Aggregate, see {@link State#configuration()}.
+     */
+    long configuration() {
+        return configuration;
+    }
+
+    /**
+     * Checksum of the serialized empty Aggregate, which contains its type and parameters. Aggregates that can't be
+     * serialized are only identified by their type.
+     */
+    private static long configuration(Aggregate<?> aggregate) {
+        CRC32C crc = new CRC32C();
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(aggregate);
+            crc.update(bytes.toByteArray());
+        } catch (IOException _) {
+            crc.update(aggregate.getClass().getName().getBytes(StandardCharsets.UTF_8));
+        }
+        return crc.getValue();
+    }
+
+    private Cell<T> newCell(List<?> keys, int[] indices) {
+        return new Cell<>(keys, indices, question.aggregate() == null ? null : question.aggregate().get());
+    }
+
+    /**
+     * Serializable state of a cube of a Question with an Aggregate, consisting of the groups by all groupings of the
+     * Question. The keys of the groups and the Aggregates need to be serializable.
+     *
+     * @param question      Name of the Question.
+     * @param groupings     Names of the groupings of the Question.
+     * @param configuration Checksum of the type and parameters of the Aggregate of the Question, so a state is only
+     *                      merged into an Aggregate that is configured the same way.
+     * @param groups        The groups by all groupings.
+     */
+    public record State(String question, List<String> groupings, long configuration, List<Group> groups)
+            implements Serializable {
+
+        /**
+         * @param keys      Results of the grouping functions.
+         * @param indices   Indices in the domains of the groupings, -1 for groupings without domain.
+         * @param size      The number of DataSets in the group.
+         * @param aggregate The Aggregate of the DataSets in the group.
+         */
+        public record Group(List<?> keys, int[] indices, int size, Aggregate<?> aggregate) implements Serializable {
+        }
+    }
+
+    /**
+     * A precomputed group of DataSets.
+     */
+    static final class Cell<T> {
+        final List<?> keys;
+        // indices in the domains of the groupings, -1 for groupings without domain
+        final int[] indices;
+        // null for Questions without Aggregate
+        final Aggregate<T> aggregate;
+        private final List<T> values = new ArrayList<>();
+        // positions of the values in the data, to keep the order of the data when rolling up
+        private int[] positions = new int[4];
+        private final List<Cell<T>> parts = new ArrayList<>();
+        int size;
+
+        private Cell(List<?> keys, int[] indices, Aggregate<T> aggregate) {
+            this.keys = keys;
+            this.indices = indices;
+            this.aggregate = aggregate;
+        }
+
+        private void add(T t, int position) {
+            size++;
+            if (aggregate != null) {
+                aggregate.add(t);
+                return;
+            }
+            if (values.size() == positions.length) positions = Arrays.copyOf(positions, 2 * positions.length);
+            positions[values.size()] = position;
+            values.add(t);
+        }
+
+        private void addAll(Cell<T> cell) {
+            size += cell.size;
+            if (aggregate != null) aggregate.merge(cell.aggregate);
+            else parts.add(cell);
+        }
+
+        /**
+         * All DataSets in this group in the order of the data, only available for Questions without Aggregate.
+         */
+        List<T> values() {
+            if (parts.isEmpty()) return values;
+            // merge the parts by the positions of their DataSets, each part is already in the order of the data
+            List<T> all = new ArrayList<>(size);
+            PriorityQueue<int[]> next = new PriorityQueue<>(
+                    Comparator.comparingInt(entry -> parts.get(entry[0]).positions[entry[1]]));
+            for (int part = 0; part < parts.size(); part++) {
+                if (!parts.get(part).values.isEmpty()) next.add(new int[]{part, 0});
+            }
+            while (!next.isEmpty()) {
+                int[] entry = next.poll();
+                List<T> partValues = parts.get(entry[0]).values;
+                all.add(partValues.get(entry[1]));
+                if (++entry[1] < partValues.size()) next.add(entry);
+            }
+            return all;
+        }
+    }
+
+}
@@ -1,8 +1,13 @@
 package analyzer;
 
 import dataset.BaseDataSet;
+import dataset.MapDataSet;
+import dataset.StringDictionary;
 
 import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Predicate;
+import java.util.function.ToIntFunction;
 
 import static java.util.Objects.requireNonNull;
 
@@ -11,24 +16,161 @@ import static java.util.Objects.requireNonNull;
  * @param name String representation of the function.
  * @param function The function wrapped by this.
  * @param forced Wether this grouper should always be applied. If true the grouping Function will be applied silently.
+ * @param domain Optional small domain of int values the DataSets are mapped to, see {@link Domain}.
  * @param <T> Type of {@link BaseDataSet} that can be grouped with this.
  */
 public record GroupingDefinition<T extends BaseDataSet>(
         String name,
         Function<T, ?> function,
-        boolean forced
+        boolean forced,
+        Domain<T> domain
 ) {
 
     public GroupingDefinition {
         requireNonNull(function);
     }
 
+    public GroupingDefinition(String name, Function<T, ?> function, boolean forced) {
+        this(name, function, forced, null);
+    }
+
     public GroupingDefinition(String name, Function<T, ?> function) {
         this(name, function, false);
     }
 
+    /**
+     * Creates a GroupingDefinition grouping by the result of a Predicate (forced = false).
+     * Groups are created by indexing into an array instead of hashing the result.
+     */
+    public static <T extends BaseDataSet> GroupingDefinition<T> ofPredicate(String name, Predicate<T> predicate) {
+        return new GroupingDefinition<>(
+                name,
+                predicate::test,
+                false,
+                new Domain<>(t -> predicate.test(t) ? 1 : 0, 2, i -> i == 1)
+        );
+    }
+
+    /**
+     * Creates a GroupingDefinition grouping by an int value between min and max (both inclusive) (forced = false).
+     * Groups are created by indexing into an array instead of hashing the boxed value, so the range should be small.
+     *
+     * @throws IllegalArgumentException When grouping a DataSet with a value outside the range.
+     */
+    public static <T extends BaseDataSet> GroupingDefinition<T> ofInt(String name, ToIntFunction<T> function, int min, int max) {
+        if (max < min) throw new IllegalArgumentException("max needs to be at least min");
+        // checked on both paths, so the result doesn't depend on whether the groups are indexed or hashed
+        ToIntFunction<T> checked = t -> {
+            int value = function.applyAsInt(t);
+            if (value < min || value > max) {
+                throw new IllegalArgumentException("Value " + value + " of " + name + " is outside of [" + min + ", " + max + "]");
+            }
+            return value;
+        };
+        return new GroupingDefinition<>(
+                name,
+                checked::applyAsInt,
+                false,
+                new Domain<>(t -> checked.applyAsInt(t) - min, max - min + 1, i -> min + i)
+        );
+    }
+
+    /**
+     * Creates a GroupingDefinition grouping by a String field with the values of the dictionary (forced = false).
+     * Groups are created by indexing into an array with the code of the value, ordered like the dictionary with null
+     * first. Values added to the dictionary after creating this can't be grouped.
+     *
+     * @param function Returns the value of the DataSet, which is looked up in the dictionary.
+     * @throws IllegalArgumentException When grouping a DataSet with a value that isn't in the dictionary.
+     */
+    public static <T extends BaseDataSet> GroupingDefinition<T> ofDictionary(
+            String name, Function<T, String> function, StringDictionary dictionary
+    ) {
+        return ofDictionaryCode(name, t -> {
+            String value = function.apply(t);
+            if (value == null) return -1;
+            int code = dictionary.codeOf(value);
+            if (code == -1) throw new IllegalArgumentException("Value " + value + " of " + name + " isn't in the dictionary");
+            return code;
+        }, dictionary);
+    }
+
+    /**
+     * Creates a GroupingDefinition grouping {@link MapDataSet}s by the value under the key with the values of the
+     * dictionary (forced = false), like {@link #ofDictionaryCode(String, ToIntFunction, StringDictionary)} with the
+     * codes stored when the DataSets were collected, see {@link MapDataSet#code(String, StringDictionary)}.
+     *
+     * @throws IllegalArgumentException When grouping a DataSet with a value that isn't in the dictionary.
+     */
+    public static GroupingDefinition<MapDataSet> ofDictionary(String key, StringDictionary dictionary) {
+        return ofDictionaryCode(key, d -> {
+            int code = d.code(key, dictionary);
+            if (code == -1 && d.getMap().get(key) != null) {
+                throw new IllegalArgumentException("Value " + d.getMap().get(key) + " of " + key + " isn't in the dictionary");
+            }
+            return code;
+        }, dictionary);
+    }
+
+    /**
+     * Creates a GroupingDefinition grouping by the code of a String field in the dictionary (forced = false), for
+     * DataSets storing the codes instead of the values, with -1 for null. Groups are created by indexing into an array
+     * with the code, ordered like the dictionary with null first. Values added to the dictionary after creating this
+     * can't be grouped.
+     *
+     * @throws IllegalArgumentException When grouping a DataSet with a code that isn't in the dictionary.
+     */
+    public static <T extends BaseDataSet> GroupingDefinition<T> ofDictionaryCode(
+            String name, ToIntFunction<T> code, StringDictionary dictionary
+    ) {
+        int size = dictionary.size();
+        ToIntFunction<T> index = t -> {
+            int value = code.applyAsInt(t);
+            if (value < -1 || value >= size) {
+                throw new IllegalArgumentException("Code " + value + " of " + name + " isn't in the dictionary");
+            }
+            return value + 1;
+        };
+        return new GroupingDefinition<>(
+                name,
+                t -> {
+                    int value = index.applyAsInt(t) - 1;
+                    return value == -1 ? null : dictionary.value(value);
+                },
+                false,
+                new Domain<>(index, size + 1, i -> i == 0 ? null : dictionary.value(i - 1))
+        );
+    }
+
+    /**
+     * Creates a copy of this with forced = true.
+     */
+    public GroupingDefinition<T> asForced() {
+        return new GroupingDefinition<>(name, function, true, domain);
+    }
+
     @Override
     public String toString() {
         return name;
     }
-}
\ No newline at end of file
+
+    /**
+     * A small domain of int values from 0 to size - 1 that DataSets can be mapped to without boxing.
+     * @param index Maps each DataSet to its index in the domain, must be consistent with the function of the
+     *              {@link GroupingDefinition}.
+     * @param size  Number of values in the domain.
+     * @param label Maps each index back to the value the function of the {@link GroupingDefinition} would return.
+     * @param <T>   Type of {@link BaseDataSet} that can be grouped with this.
+     */
+    public record Domain<T extends BaseDataSet>(
+            ToIntFunction<T> index,
+            int size,
+            IntFunction<?> label
+    ) {
+        public Domain {
+            requireNonNull(index);
+            requireNonNull(label);
+            if (size < 1) throw new IllegalArgumentException("The size of a domain needs to be positive");
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package analyzer;
+
+import report.MemorySink;
+import report.Report;
+import report.ReportSink;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+/**
+ * Renders groups concurrently, each into its own {@link MemorySink}, and writes the buffers to the sink of the calling
+ * thread in the iteration order of the groups, so the output is the same as rendering the groups one after another.
+ */
+final class ParallelGroups {
+
+    /**
+     * Renders each group with the given Executor and writes the output of each group as soon as it and all groups
+     * before it are rendered.
+     *
+     * @param render Prints a group with its keys.
+     */
+    static <G> void forEach(Map<List<?>, G> groups, BiConsumer<List<?>, G> render, Executor executor) {
+        ReportSink out = Report.sink();
+        List<CompletableFuture<String>> results = new ArrayList<>(groups.size());
+        groups.forEach((keys, group) -> results.add(CompletableFuture.supplyAsync(() -> {
+            MemorySink buffer = new MemorySink();
+            Report.writeTo(buffer, () -> render.accept(keys, group));
+            return buffer.getOutput();
+        }, executor)));
+        try {
+            for (CompletableFuture<String> result : results) {
+                out.print(result.join());
+            }
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException r) throw r;
+            if (e.getCause() instanceof Error error) throw error;
+            throw e;
+        }
+    }
+
+    private ParallelGroups() {
+    }
+
+}
@@ -0,0 +1,163 @@
+package analyzer;
+
+import dataset.BaseDataSet;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Partial results of all Questions with an Aggregate for a shard of the data, for example the output file of one
+ * collector. Each shard can be aggregated by a separate process which writes its partial results to a file with
+ * {@link #write(Path)}. A coordinator merges all files with {@link #merge(Path)} and answers the Questions from the
+ * merged {@link GroupingCube}s, which are exactly the same as aggregating all data in one process for Aggregates that
+ * merge exactly, like {@link analyzer.aggregation.Frequencies} with its percentages and Wilson Score intervals.
+ * <br>
+ * Questions without Aggregate or with more than {@link GroupingCube#DEFAULT_MAX_COMBINATIONS} combinations of
+ * groupings are not part of the partial results, since they need all DataSets. All processes need to use the same
+ * Questions with the same Aggregates and parameters. The files are Java serialized and should only be read from trusted locations.
+ *
+ * @param <T> Type of {@link BaseDataSet} that is aggregated.
+ */
+public class PartialAggregates<T extends BaseDataSet> {
+
+    private final Map<Question<T>, GroupingCube<T>> cubes = new LinkedHashMap<>();
+    private int shards;
+
+    /**
+     * Creates empty partial results for the Questions.
+     */
+    public PartialAggregates(List<Question<T>> questions) {
+        for (Question<T> question : questions) {
+            if (question.aggregate() == null || GroupingCube.countCombinations(question) > GroupingCube.DEFAULT_MAX_COMBINATIONS) continue;
+            cubes.put(question, new GroupingCube<>(question, List.of()));
+        }
+    }
+
+    /**
+     * Creates the partial results of the Questions for a shard.
+     */
+    public static <T extends BaseDataSet> PartialAggregates<T> of(List<Question<T>> questions, List<T> shard) {
+        PartialAggregates<T> partial = new PartialAggregates<>(questions);
+        shard.forEach(partial::add);
+        partial.shards = 1;
+        return partial;
+    }
+
+    /**
+     * Returns the cube of the Question, or null if the Question isn't part of the partial results. Merging replaces the
+     * cubes, so a cube returned before doesn't contain the merged results.
+     */
+    public GroupingCube<T> cube(Question<T> question) {
+        return cubes.get(question);
+    }
+
+    /**
+     * The number of shards merged into these partial results.
+     */
+    public int shards() {
+        return shards;
+    }
+
+    /**
+     * Adds the DataSet to the cubes of all Questions.
+     */
+    public void add(T t) {
+        cubes.values().forEach(cube -> cube.add(t));
+    }
+
+    /**
+     * Merges the other partial results into these.
+     *
+     * @throws IllegalArgumentException If the other partial results belong to other Questions or Aggregates.
+     */
+    public void merge(PartialAggregates<T> other) {
+        merge(other.states());
+        shards += other.shards;
+    }
+
+    /**
+     * Merges the partial results written to the file by {@link #write(Path)} into these.
+     *
+     * @throws IllegalArgumentException If the file doesn't contain partial results or they belong to other Questions or
+     *                                  Aggregates.
+     * @throws UncheckedIOException     If reading fails.
+     */
+    public void merge(Path file) {
+        try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+            Contents contents = (Contents) in.readObject();
+            merge(contents.states());
+            shards += contents.shards();
+        } catch (ClassNotFoundException | ClassCastException | InvalidClassException | StreamCorruptedException e) {
+            throw new IllegalArgumentException(file + " doesn't contain partial aggregates", e);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Writes these partial results to the file, replacing it if it exists.
+     *
+     * @throws UncheckedIOException If writing fails.
+     */
+    public void write(Path file) {
+        try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeObject(new Contents(shards, states()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The states of the cubes of all Questions, in the order of the Questions.
+     */
+    List<GroupingCube.State> states() {
+        List<GroupingCube.State> states = new ArrayList<>(cubes.size());
+        cubes.values().forEach(cube -> states.add(cube.state()));
+        return states;
+    }
+
+    /**
+     * Merges the states into the cubes of the Questions. Nothing is merged if the states don't belong to the Questions
+     * or their Aggregates, or if merging any Aggregate fails.
+     *
+     * @throws IllegalArgumentException If the states belong to other Questions or Aggregates.
+     * @throws RuntimeException         If merging an Aggregate fails.
+     */
+    void merge(List<GroupingCube.State> states) {
+        requireNonNull(states);
+        List<String> questions = cubes.keySet().stream().map(Question::toString).toList();
+        List<String> stateQuestions = states.stream().map(GroupingCube.State::question).toList();
+        if (!questions.equals(stateQuestions)) {
+            throw new IllegalArgumentException("Partial aggregates of " + stateQuestions + " don't belong to " + questions);
+        }
+        Iterator<GroupingCube.State> iterator = states.iterator();
+        for (GroupingCube<T> cube : cubes.values()) {
+            GroupingCube.State state = iterator.next();
+            if (!state.groupings().equals(cube.question().groupings().stream().map(GroupingDefinition::toString).toList())) {
+                throw new IllegalArgumentException("Partial aggregates of " + state.question() + " have other groupings");
+            }
+            if (state.configuration() != cube.configuration()) {
+                throw new IllegalArgumentException("Partial aggregates of " + state.question() + " have another Aggregate");
+            }
+        }
+        // merge into copies and only replace the cubes when all merges succeeded, so a failing Aggregate can't leave
+        // some cubes merged and others not
+        Map<Question<T>, GroupingCube<T>> merged = new LinkedHashMap<>();
+        iterator = states.iterator();
+        for (Map.Entry<Question<T>, GroupingCube<T>> entry : cubes.entrySet()) {
+            GroupingCube<T> cube = new GroupingCube<>(entry.getKey(), List.of());
+            cube.merge(entry.getValue().state());
+            cube.merge(iterator.next());
+            merged.put(entry.getKey(), cube);
+        }
+        cubes.putAll(merged);
+    }
+
+    private record Contents(int shards, List<GroupingCube.State> states) implements Serializable {
+    }
+
+}
@@ -0,0 +1,314 @@
+package analyzer;
+
+import analyzer.aggregation.Aggregate;
+import analyzer.aggregation.CountMinSketch;
+import analyzer.aggregation.Frequencies;
+import analyzer.aggregation.HyperLogLog;
+import analyzer.aggregation.NumericSummary;
+import analyzer.aggregation.TDigest;
+import analyzer.aggregation.TopK;
+import dataset.BaseDataSet;
+import dataset.MapDataSet;
+import exceptions.QuerySyntaxException;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compiles ad-hoc queries into {@link Question}s, so new analyses don't need a new Question in the code. A query has
+ * the form
+ * <pre>
+ * [where &lt;condition&gt;] [group by &lt;field&gt;, ...] evaluate &lt;function&gt;(&lt;field&gt;[, &lt;k&gt;])
+ * </pre>
+ * for example {@code where number > 0 and name is not null group by name evaluate wilson(someValue)}.
+ * <br>
+ * Conditions compare a field with a literal ({@code = != < <= > >=}, numbers, 'strings', true and false) or check
+ * {@code is [not] null}, combined with {@code and}, {@code or}, {@code not} and parentheses. Comparisons are false for
+ * null values and values of another type than the literal, numbers are compared as doubles. There is no third truth
+ * value like in SQL, so {@code not name = 'a'} is true for a null name. The functions are
+ * {@code wilson}, {@code percentages}, {@code top} (with an optional k), {@code distinct}, {@code estimates},
+ * {@code summary} and {@code quantiles}, the numeric ones ignore values that aren't Numbers. Keywords are
+ * case-insensitive, fields aren't.
+ * <br>
+ * The query is compiled once: the condition into a Predicate composed of lambdas specialized for the operator and the
+ * type of the literal, the groupings into forced {@link GroupingDefinition}s and the function into an
+ * {@link Aggregate}. So the data is filtered, grouped and aggregated in a single pass like a hand-written Question,
+ * without interpreting the query for each DataSet.
+ *
+ * @param <T> Type of DataSets the queries are run on.
+ */
+public class QueryCompiler<T extends BaseDataSet> {
+
+    private final Map<String, Function<T, ?>> fields;
+
+    /**
+     * @param fields Getters of the fields that can be used in queries by name.
+     */
+    public QueryCompiler(Map<String, Function<T, ?>> fields) {
+        this.fields = Map.copyOf(fields);
+    }
+
+    /**
+     * Creates a compiler for queries on {@link MapDataSet}s where the given keys of the Maps can be used as fields.
+     * Other keys are rejected like unknown fields, so a misspelled key doesn't silently compare with null.
+     *
+     * @param keys The keys of the Maps that can be used in queries.
+     */
+    public static QueryCompiler<MapDataSet> forMapDataSets(String... keys) {
+        Map<String, Function<MapDataSet, ?>> fields = new HashMap<>();
+        for (String key : keys) fields.put(requireNonNull(key), d -> d.getMap().get(key));
+        return new QueryCompiler<>(fields);
+    }
+
+    /**
+     * Compiles the query into a Question named after the query with only forced groupings, so running it doesn't ask
+     * for groupings.
+     *
+     * @throws QuerySyntaxException If the query isn't valid or uses an unknown field or function.
+     */
+    public Question<T> compile(String query) {
+        return new Parser(query).query();
+    }
+
+    private enum Kind {WORD, NUMBER, STRING, SYMBOL, END}
+
+    private record Token(Kind kind, String text, int position) {
+        boolean is(String keyword) {
+            return kind == Kind.WORD && text.equalsIgnoreCase(keyword) || kind == Kind.SYMBOL && text.equals(keyword);
+        }
+    }
+
+    private static List<Token> tokenize(String query) {
+        List<Token> tokens = new ArrayList<>();
+        int i = 0;
+        while (i < query.length()) {
+            char c = query.charAt(i);
+            int start = i;
+            if (Character.isWhitespace(c)) {
+                i++;
+            } else if (Character.isLetter(c) || c == '_') {
+                while (i < query.length() && (Character.isLetterOrDigit(query.charAt(i)) || query.charAt(i) == '_'
+                        || query.charAt(i) == '.')) i++;
+                tokens.add(new Token(Kind.WORD, query.substring(start, i), start));
+            } else if (Character.isDigit(c) || c == '-' && i + 1 < query.length() && Character.isDigit(query.charAt(i + 1))) {
+                i++;
+                while (i < query.length() && (Character.isDigit(query.charAt(i)) || query.charAt(i) == '.')) i++;
+                tokens.add(new Token(Kind.NUMBER, query.substring(start, i), start));
+            } else if (c == '\'' || c == '"') {
+                StringBuilder text = new StringBuilder();
+                i++;
+                while (true) {
+                    if (i >= query.length()) throw new QuerySyntaxException("Unterminated string", start);
+                    if (query.charAt(i) == c) {
+                        // a doubled quote stands for the quote itself
+                        if (i + 1 < query.length() && query.charAt(i + 1) == c) i++;
+                        else break;
+                    }
+                    text.append(query.charAt(i++));
+                }
+                i++;
+                tokens.add(new Token(Kind.STRING, text.toString(), start));
+            } else if (query.startsWith("<=", i) || query.startsWith(">=", i) || query.startsWith("!=", i)
+                    || query.startsWith("<>", i)) {
+                i += 2;
+                tokens.add(new Token(Kind.SYMBOL, query.startsWith("<>", start) ? "!=" : query.substring(start, i), start));
+            } else if ("=<>(),".indexOf(c) >= 0) {
+                i++;
+                tokens.add(new Token(Kind.SYMBOL, String.valueOf(c), start));
+            } else {
+                throw new QuerySyntaxException("Unexpected character '" + c + "'", i);
+            }
+        }
+        tokens.add(new Token(Kind.END, "end of query", query.length()));
+        return tokens;
+    }
+
+    /**
+     * Recursive descent parser compiling while parsing, without building a syntax tree first.
+     */
+    private class Parser {
+        private final String query;
+        private final List<Token> tokens;
+        private int next = 0;
+
+        Parser(String query) {
+            this.query = query.strip();
+            tokens = tokenize(this.query);
+        }
+
+        Question<T> query() {
+            Question.Builder<T> builder = new Question.Builder<>(query);
+            if (accept("where")) builder.conditionAll(or());
+            if (accept("group")) {
+                expect("by");
+                List<GroupingDefinition<T>> groupings = new ArrayList<>();
+                do {
+                    Token field = expectKind(Kind.WORD, "field");
+                    groupings.add(new GroupingDefinition<>(field.text(), field(field), true));
+                } while (accept(","));
+                builder.groupings(groupings);
+            }
+            expect("evaluate");
+            evaluate(builder);
+            if (peek().kind() != Kind.END) throw error("Expected end of query");
+            return builder.build();
+        }
+
+        private void evaluate(Question.Builder<T> builder) {
+            Token function = expectKind(Kind.WORD, "function");
+            expect("(");
+            Function<T, ?> field = field(expectKind(Kind.WORD, "field"));
+            int k = TopK.DEFAULT_K;
+            if (function.text().equalsIgnoreCase("top") && accept(",")) {
+                Token number = expectKind(Kind.NUMBER, "k");
+                try {
+                    k = Integer.parseInt(number.text());
+                } catch (NumberFormatException _) {
+                    throw new QuerySyntaxException("Expected an integer for k", number.position());
+                }
+                if (k < 1) throw new QuerySyntaxException("k needs to be positive", number.position());
+            }
+            expect(")");
+            int topK = k;
+            Supplier<Aggregate<Object>> aggregate = switch (function.text().toLowerCase(Locale.ROOT)) {
+                case "wilson" -> Frequencies::wilsonConfidence;
+                case "percentages" -> Frequencies::percentages;
+                case "top" -> () -> new TopK(topK);
+                case "distinct" -> HyperLogLog::new;
+                case "estimates" -> CountMinSketch::new;
+                default -> null;
+            };
+            if (aggregate != null) {
+                builder.aggregate(field, aggregate);
+                return;
+            }
+            Function<T, Number> numbers = t -> field.apply(t) instanceof Number n ? n : null;
+            switch (function.text().toLowerCase(Locale.ROOT)) {
+                case "summary" -> builder.aggregate(numbers, NumericSummary::new);
+                case "quantiles" -> builder.aggregate(numbers, TDigest::new);
+                default -> throw new QuerySyntaxException("Unknown function " + function.text(), function.position());
+            }
+        }
+
+        private Predicate<T> or() {
+            Predicate<T> condition = and();
+            while (accept("or")) {
+                Predicate<T> left = condition, right = and();
+                condition = t -> left.test(t) || right.test(t);
+            }
+            return condition;
+        }
+
+        private Predicate<T> and() {
+            Predicate<T> condition = not();
+            while (accept("and")) {
+                Predicate<T> left = condition, right = not();
+                condition = t -> left.test(t) && right.test(t);
+            }
+            return condition;
+        }
+
+        private Predicate<T> not() {
+            if (accept("not")) {
+                Predicate<T> condition = not();
+                return t -> !condition.test(t);
+            }
+            if (accept("(")) {
+                Predicate<T> condition = or();
+                expect(")");
+                return condition;
+            }
+            return comparison();
+        }
+
+        private Predicate<T> comparison() {
+            Function<T, ?> field = field(expectKind(Kind.WORD, "field"));
+            if (accept("is")) {
+                boolean negated = accept("not");
+                expect("null");
+                return negated ? t -> field.apply(t) != null : t -> field.apply(t) == null;
+            }
+            Token operator = next();
+            IntPredicate test = switch (operator.kind() == Kind.SYMBOL ? operator.text() : "") {
+                case "=" -> c -> c == 0;
+                case "!=" -> c -> c != 0;
+                case "<" -> c -> c < 0;
+                case "<=" -> c -> c <= 0;
+                case ">" -> c -> c > 0;
+                case ">=" -> c -> c >= 0;
+                default -> throw new QuerySyntaxException("Expected a comparison operator", operator.position());
+            };
+            Token literal = next();
+            switch (literal.kind()) {
+                case NUMBER -> {
+                    double number;
+                    try {
+                        number = Double.parseDouble(literal.text());
+                    } catch (NumberFormatException _) {
+                        throw new QuerySyntaxException("Invalid number " + literal.text(), literal.position());
+                    }
+                    return t -> field.apply(t) instanceof Number n && test.test(Double.compare(n.doubleValue(), number));
+                }
+                case STRING -> {
+                    String string = literal.text();
+                    return t -> field.apply(t) instanceof String s && test.test(s.compareTo(string));
+                }
+                case WORD -> {
+                    if (literal.is("true") || literal.is("false")) {
+                        boolean bool = literal.is("true");
+                        return t -> field.apply(t) instanceof Boolean b && test.test(Boolean.compare(b, bool));
+                    }
+                    if (literal.is("null")) {
+                        throw new QuerySyntaxException("Use 'is null' or 'is not null' to compare with null", literal.position());
+                    }
+                }
+            }
+            throw new QuerySyntaxException("Expected a literal", literal.position());
+        }
+
+        private Function<T, ?> field(Token token) {
+            Function<T, ?> field = fields.get(token.text());
+            if (field == null) throw new QuerySyntaxException("Unknown field " + token.text(), token.position());
+            return field;
+        }
+
+        private Token peek() {
+            return tokens.get(next);
+        }
+
+        private Token next() {
+            Token token = tokens.get(next);
+            if (token.kind() != Kind.END) next++;
+            return token;
+        }
+
+        private boolean accept(String keyword) {
+            if (!peek().is(keyword)) return false;
+            next++;
+            return true;
+        }
+
+        private void expect(String keyword) {
+            if (!accept(keyword)) throw error("Expected '" + keyword + "'");
+        }
+
+        private Token expectKind(Kind kind, String description) {
+            if (peek().kind() != kind) throw error("Expected " + description);
+            return next();
+        }
+
+        private QuerySyntaxException error(String message) {
+            return new QuerySyntaxException(message + " but found " + peek().text(), peek().position());
+        }
+    }
+
+}
@@ -1,13 +1,14 @@
 package analyzer;
 
+import analyzer.aggregation.Aggregate;
+import analyzer.aggregation.NumericAggregate;
 import dataset.BaseDataSet;
+import storage.Projection;
 
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
-import java.util.function.Consumer;
-import java.util.function.Function;
-import java.util.function.Predicate;
+import java.util.function.*;
 
 import static java.util.Objects.requireNonNull;
 
@@ -19,13 +20,21 @@ import static java.util.Objects.requireNonNull;
  * @param groupings    Functions allowing to group the DataSets before evaluating, see {@link GroupingDefinition}.
  * @param evaluator    Consumer that takes a List of DataSets, does logical analyzation and outputs it in some way.
  * @param conditionAll Filter condition, any DataSet that doesn't fill the condition is ignored
+ * @param aggregate    Optional Supplier of an {@link Aggregate} doing the same analyzation as the evaluator one DataSet
+ *                     at a time. If given, DataSets are aggregated while grouping them instead of collecting each
+ *                     group into a List first.
+ * @param projection   Optional {@link Projection} of the fields the Question reads and a filter on them, allowing a
+ *                     reader of stored DataSets to decode only these fields and skip DataSets the filter rejects,
+ *                     see {@link Survey#run(Question, storage.PartitionedStore, java.util.concurrent.Executor)}.
  * @param <T>          Type of {@link BaseDataSet} that can be analyzed with this Question.
  */
 public record Question<T extends BaseDataSet>(
         String name,
         List<GroupingDefinition<T>> groupings,
         Consumer<List<T>> evaluator,
-        Predicate<T> conditionAll
+        Predicate<T> conditionAll,
+        Supplier<Aggregate<T>> aggregate,
+        Projection projection
 ) {
     public Question {
         requireNonNull(name);
@@ -34,6 +43,25 @@ public record Question<T extends BaseDataSet>(
         conditionAll = conditionAll != null ? conditionAll : _ -> true;
     }
 
+    public Question(
+            String name,
+            List<GroupingDefinition<T>> groupings,
+            Consumer<List<T>> evaluator,
+            Predicate<T> conditionAll
+    ) {
+        this(name, groupings, evaluator, conditionAll, null);
+    }
+
+    public Question(
+            String name,
+            List<GroupingDefinition<T>> groupings,
+            Consumer<List<T>> evaluator,
+            Predicate<T> conditionAll,
+            Supplier<Aggregate<T>> aggregate
+    ) {
+        this(name, groupings, evaluator, conditionAll, aggregate, null);
+    }
+
     @Override
     public String toString() {
         return name;
@@ -53,6 +81,8 @@ public record Question<T extends BaseDataSet>(
         protected Consumer<List<T>> evaluator;
         protected List<GroupingDefinition<T>> groupings;
         protected Predicate<T> conditionAll;
+        protected Supplier<Aggregate<T>> aggregate;
+        protected Projection projection;
         private int count;
 
         protected Builder(String name) {
@@ -63,6 +93,7 @@ public record Question<T extends BaseDataSet>(
 
         public Builder<T> evaluator(Consumer<List<T>> evaluator) {
             this.evaluator = evaluator;
+            this.aggregate = null;
             return this;
         }
 
@@ -74,9 +105,111 @@ public record Question<T extends BaseDataSet>(
          */
         public <R> Builder<T> evaluator(Function<T, R> mapper, Consumer<List<R>> evaluator) {
             this.evaluator = l -> evaluator.accept(l.stream().map(mapper).toList());
+            this.aggregate = null;
             return this;
         }
 
+        /**
+         * Allows easy creation of an evaluator out of two parts without boxing the mapped values.
+         *
+         * @param mapper    Function that maps each DataSet to an int.
+         * @param evaluator Function that takes the array of ints each DataSet has been mapped to.
+         */
+        public Builder<T> intEvaluator(ToIntFunction<T> mapper, Consumer<int[]> evaluator) {
+            this.evaluator = l -> {
+                int[] values = new int[l.size()];
+                int i = 0;
+                for (T t : l) values[i++] = mapper.applyAsInt(t);
+                evaluator.accept(values);
+            };
+            this.aggregate = null;
+            return this;
+        }
+
+        /**
+         * Allows easy creation of an evaluator out of two parts without boxing the mapped values.
+         *
+         * @param mapper    Function that maps each DataSet to a long.
+         * @param evaluator Function that takes the array of longs each DataSet has been mapped to.
+         */
+        public Builder<T> longEvaluator(ToLongFunction<T> mapper, Consumer<long[]> evaluator) {
+            this.evaluator = l -> {
+                long[] values = new long[l.size()];
+                int i = 0;
+                for (T t : l) values[i++] = mapper.applyAsLong(t);
+                evaluator.accept(values);
+            };
+            this.aggregate = null;
+            return this;
+        }
+
+        /**
+         * Allows easy creation of an evaluator out of two parts without boxing the mapped values.
+         *
+         * @param mapper    Function that maps each DataSet to a double.
+         * @param evaluator Function that takes the array of doubles each DataSet has been mapped to.
+         */
+        public Builder<T> doubleEvaluator(ToDoubleFunction<T> mapper, Consumer<double[]> evaluator) {
+            this.evaluator = l -> {
+                double[] values = new double[l.size()];
+                int i = 0;
+                for (T t : l) values[i++] = mapper.applyAsDouble(t);
+                evaluator.accept(values);
+            };
+            this.aggregate = null;
+            return this;
+        }
+
+        /**
+         * Allows easy creation of an evaluator out of two parts without boxing the tested values.
+         *
+         * @param predicate Predicate that is tested on each DataSet.
+         * @param evaluator Function that takes the array of results of the predicate for each DataSet.
+         */
+        public Builder<T> predicateEvaluator(Predicate<T> predicate, Consumer<boolean[]> evaluator) {
+            this.evaluator = l -> {
+                boolean[] values = new boolean[l.size()];
+                int i = 0;
+                for (T t : l) values[i++] = predicate.test(t);
+                evaluator.accept(values);
+            };
+            this.aggregate = null;
+            return this;
+        }
+
+        /**
+         * Uses an {@link Aggregate} over the DataSets for evaluation, allowing to evaluate each group in a single pass
+         * without collecting it into a List.
+         *
+         * @param aggregate Supplier creating a new, empty Aggregate for each evaluation.
+         */
+        public Builder<T> aggregate(Supplier<? extends Aggregate<T>> aggregate) {
+            this.aggregate = aggregate::get;
+            this.evaluator = Aggregate.evaluator(aggregate);
+            return this;
+        }
+
+        /**
+         * Uses an {@link Aggregate} for evaluation, allowing to evaluate each group in a single pass without
+         * collecting it into a List.
+         *
+         * @param mapper    Function that maps each DataSet to the value added to the Aggregate.
+         * @param aggregate Supplier creating a new, empty Aggregate for each evaluation.
+         */
+        public <R> Builder<T> aggregate(Function<T, R> mapper, Supplier<? extends Aggregate<? super R>> aggregate) {
+            return aggregate(() -> Aggregate.mapping(mapper, aggregate.get()));
+        }
+
+        /**
+         * Uses a {@link NumericAggregate} for evaluation, adding the mapped values without boxing them.
+         *
+         * @param mapper    Function that maps each DataSet to the value added to the Aggregate.
+         * @param aggregate Supplier creating a new, empty Aggregate for each evaluation.
+         */
+        public Builder<T> numericAggregate(ToDoubleFunction<T> mapper, Supplier<? extends NumericAggregate> aggregate) {
+            return aggregate(() -> NumericAggregate.mapping(mapper, aggregate.get()));
+        }
+
         public Builder<T> groupings(List<GroupingDefinition<T>> groupings) {
             this.groupings.addAll(groupings);
             return this;
@@ -136,12 +269,23 @@ public record Question<T extends BaseDataSet>(
             return this;
         }
 
+        /**
+         * Declares the fields the Question reads and a filter on them, which should check the same as the
+         * conditionAll. See {@link Projection}.
+         */
+        public Builder<T> projection(Projection projection) {
+            this.projection = projection;
+            return this;
+        }
+
         public Question<T> build() {
             return new Question<>(
                     name,
                     groupings,
                     evaluator,
-                    conditionAll
+                    conditionAll,
+                    aggregate,
+                    projection
             );
         }
     }
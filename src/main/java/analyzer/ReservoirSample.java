@@ -0,0 +1,148 @@
+package analyzer;
+
+import dataset.BaseDataSet;
+import org.apache.commons.math3.distribution.NormalDistribution;
+
+import java.util.*;
+
+import static Utils.Utils.roundToString;
+import static report.Report.println;
+
+/**
+ * Uniform random sample of a fixed size out of any number of DataSets, maintained while adding DataSets one at a time
+ * with reservoir sampling (Algorithm L), so adding a DataSet that isn't sampled only counts it.
+ * <br>
+ * Optionally the sample is stratified by a grouping, keeping a separate sample of the given size for each result of the
+ * grouping function, so small groups are completely contained in the sample. The groups are sampled with different
+ * rates in that case, so Questions analyzing the sample should always group by the stratifying grouping.
+ *
+ * @param <T> Type of sampled DataSets.
+ */
+public class ReservoirSample<T extends BaseDataSet> {
+
+    private static final double Z = new NormalDistribution().inverseCumulativeProbability(0.975);
+
+    private final int size;
+    private final GroupingDefinition<T> strata;
+    private final SplittableRandom random;
+    private final Map<Object, Stratum<T>> samples = new LinkedHashMap<>();
+
+    /**
+     * @param size   The maximal number of sampled DataSets (per stratum).
+     * @param strata Grouping to stratify the sample by, null for a single sample.
+     * @param seed   Seed for the random choices, samples of the same DataSets with the same seed are equal.
+     */
+    public ReservoirSample(int size, GroupingDefinition<T> strata, long seed) {
+        if (size < 1) throw new IllegalArgumentException("size needs to be positive");
+        this.size = size;
+        this.strata = strata;
+        random = new SplittableRandom(seed);
+    }
+
+    /**
+     * Creates a sample that isn't stratified.
+     */
+    public ReservoirSample(int size, long seed) {
+        this(size, null, seed);
+    }
+
+    /**
+     * Adds the DataSet, which replaces a random sampled DataSet if it is sampled and the sample is full.
+     */
+    public void add(T t) {
+        Object key = strata == null ? null : strata.function().apply(t);
+        samples.computeIfAbsent(key, _ -> new Stratum<>(size)).add(t, random);
+    }
+
+    public void addAll(Iterable<T> data) {
+        data.forEach(this::add);
+    }
+
+    /**
+     * All sampled DataSets of all strata.
+     */
+    public List<T> sample() {
+        List<T> sample = new ArrayList<>();
+        samples.values().forEach(s -> sample.addAll(s.sample));
+        return sample;
+    }
+
+    /**
+     * The number of added DataSets.
+     */
+    public long population() {
+        return samples.values().stream().mapToLong(s -> s.population).sum();
+    }
+
+    /**
+     * Maximal half width of the 95% confidence interval of percentages calculated from a uniform random sample of n
+     * out of a population of N, including the finite population correction. Percentages other than 50% have smaller
+     * intervals.
+     *
+     * @return The margin of error as ratio, for example 0.01 for ±1%.
+     */
+    public static double marginOfError(long n, long N) {
+        if (n >= N) return 0;
+        return Z * Math.sqrt(0.25 / n) * Math.sqrt((double) (N - n) / (N - 1));
+    }
+
+    /**
+     * Prints the size of the sample compared to the number of added DataSets together with the margin of error of
+     * percentages, for each stratum if the sample is stratified.
+     */
+    public void printSummary() {
+        println("Approximate results from a sample of " + sample().size() + " out of " + population() + " DataSets");
+        if (strata == null) {
+            samples.values().forEach(s -> println("Percentages within ±" + margin(s.sample.size(), s.population)));
+            return;
+        }
+        samples.forEach((key, s) -> println(
+                strata + " " + key + ": " + s.sample.size() + " out of " + s.population
+                        + ", percentages within ±" + margin(s.sample.size(), s.population)
+        ));
+    }
+
+    private static String margin(long n, long N) {
+        return roundToString(100 * marginOfError(n, N), 2) + "% (95% confidence)";
+    }
+
+    private static final class Stratum<T> {
+        private final int size;
+        private final List<T> sample;
+        private long population = 0;
+        // Algorithm L: the 1-based position of the next sampled DataSet and the current weight
+        private long next;
+        private double w;
+
+        private Stratum(int size) {
+            this.size = size;
+            sample = new ArrayList<>(Math.min(size, 1024));
+        }
+
+        private void add(T t, SplittableRandom random) {
+            population++;
+            if (population <= size) {
+                sample.add(t);
+                if (population == size) {
+                    w = Math.exp(Math.log(uniform(random)) / size);
+                    skip(random);
+                }
+                return;
+            }
+            if (population < next) return;
+            sample.set(random.nextInt(size), t);
+            w *= Math.exp(Math.log(uniform(random)) / size);
+            skip(random);
+        }
+
+        // in (0, 1] to avoid log(0)
+        private static double uniform(SplittableRandom random) {
+            return 1 - random.nextDouble();
+        }
+
+        private void skip(SplittableRandom random) {
+            next = population + (long) Math.floor(Math.log(uniform(random)) / Math.log1p(-w)) + 1;
+        }
+    }
+
+}
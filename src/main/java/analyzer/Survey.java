@@ -1,51 +1,291 @@
 package analyzer;
 
+import Utils.RoaringBitmap;
+import analyzer.aggregation.Aggregate;
 import dataset.BaseDataSet;
+import memory.MemoryAccounting;
+import storage.PartitionedStore;
 
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map;
-import java.util.function.Function;
+import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static Utils.InputUtils.input;
-import static java.lang.IO.println;
+import static report.Report.println;
 
 public class Survey {
 
+    /**
+     * Maximal number of combined values of groupings with a {@link GroupingDefinition.Domain} for which groups are
+     * created by indexing into an array.
+     */
+    private static final int MAX_INDEXED_GROUPS = 1 << 16;
+
     /**
      * Runs the given questions against the given data
      */
     public static <T extends BaseDataSet> void run(Question<T> questions, List<T> data) {
-        List<String> groupReps = new ArrayList<>();
-        List<Function<T, ?>> groupings = new ArrayList<>();
-        for (GroupingDefinition<T> gd : questions.groupings()) {
+        run(questions, data, null);
+    }
+
+    /**
+     * Runs the given questions against the given data, evaluating the groups concurrently with the given Executor.
+     * The output is the same as evaluating the groups one after another.
+     *
+     * @param executor Executor for evaluating the groups, null to evaluate them in the current thread.
+     */
+    public static <T extends BaseDataSet> void run(Question<T> questions, List<T> data, Executor executor) {
+        run(questions, selectGroupings(questions), data, executor);
+    }
+
+    /**
+     * Runs the given questions against the given data with the given groupings, without asking for groupings.
+     *
+     * @param groupings Groupings of the Question to group by, including all forced groupings.
+     * @param executor  Executor for evaluating the groups, null to evaluate them in the current thread.
+     */
+    public static <T extends BaseDataSet> void run(
+            Question<T> questions, List<GroupingDefinition<T>> groupings, List<T> data, Executor executor
+    ) {
+        if (questions.aggregate() != null) {
+            aggregate(questions, groupings, data, executor);
+            return;
+        }
+        if (groupings.isEmpty()) {
+            questions.evaluator().accept(data.stream().filter(questions.conditionAll()).toList());
+            return;
+        }
+        Map<List<?>, List<T>> groupedData = group(questions, groupings, data, ArrayList::new, List::add);
+
+        List<String> groupReps = groupings.stream().map(GroupingDefinition::toString).toList();
+        forEachGroup(groupedData, (keys, values) -> {
+            printGroup(values.size(), groupReps, keys);
+            questions.evaluator().accept(values);
+        }, executor);
+    }
+
+    /**
+     * Runs the given question against the DataSets of the store, asking for groupings. Only the DataSets fulfilling the
+     * condition are loaded, and only their fields of the {@link Question#projection()} if the store has a
+     * {@link storage.ProjectingCodec}.
+     *
+     * @param executor Executor for evaluating the groups, null to evaluate them in the current thread.
+     * @throws java.io.UncheckedIOException If reading the store fails.
+     */
+    public static <T extends BaseDataSet> void run(Question<T> question, PartitionedStore<T> store, Executor executor) {
+        List<GroupingDefinition<T>> groupings = selectGroupings(question);
+        run(question, groupings, store.load(question.projection(), question.conditionAll()), executor);
+    }
+
+    /**
+     * Runs the Question of the given cube, answering with the precomputed groups of the chosen groupings instead of
+     * grouping the data again.
+     */
+    public static <T extends BaseDataSet> void run(GroupingCube<T> cube) {
+        run(cube, null);
+    }
+
+    /**
+     * Like {@link #run(GroupingCube)}, evaluating the groups concurrently with the given Executor.
+     *
+     * @param executor Executor for evaluating the groups, null to evaluate them in the current thread.
+     */
+    public static <T extends BaseDataSet> void run(GroupingCube<T> cube, Executor executor) {
+        Question<T> question = cube.question();
+        List<GroupingDefinition<T>> groupings = selectGroupings(question);
+        Map<List<?>, GroupingCube.Cell<T>> cells = cube.cells(groupings);
+
+        if (groupings.isEmpty()) {
+            GroupingCube.Cell<T> cell = cells.get(List.of());
+            if (cell != null) evaluate(question, cell);
+            else if (question.aggregate() != null) question.aggregate().get().print();
+            else question.evaluator().accept(List.of());
+            return;
+        }
+        List<String> groupReps = groupings.stream().map(GroupingDefinition::toString).toList();
+        forEachGroup(cells, (keys, cell) -> {
+            printGroup(cell.size, groupReps, keys);
+            evaluate(question, cell);
+        }, executor);
+    }
+
+    /**
+     * Runs the given question against the data of the given index, grouping the DataSets by intersecting the bitmaps
+     * of the index instead of applying the condition and grouping functions to each DataSet.
+     */
+    public static <T extends BaseDataSet> void run(Question<T> question, DataIndex<T> index) {
+        run(question, index, null);
+    }
+
+    /**
+     * Like {@link #run(Question, DataIndex)}, evaluating the groups concurrently with the given Executor.
+     *
+     * @param executor Executor for evaluating the groups, null to evaluate them in the current thread.
+     */
+    public static <T extends BaseDataSet> void run(Question<T> question, DataIndex<T> index, Executor executor) {
+        List<GroupingDefinition<T>> groupings = selectGroupings(question);
+        Map<List<?>, RoaringBitmap> groups = index.groups(question, groupings);
+
+        if (groupings.isEmpty()) {
+            evaluate(question, index, groups.getOrDefault(List.of(), new RoaringBitmap()));
+            return;
+        }
+        List<String> groupReps = groupings.stream().map(GroupingDefinition::toString).toList();
+        forEachGroup(groups, (keys, positions) -> {
+            printGroup(positions.cardinality(), groupReps, keys);
+            evaluate(question, index, positions);
+        }, executor);
+    }
+
+    private static <T extends BaseDataSet> List<GroupingDefinition<T>> selectGroupings(Question<T> question) {
+        List<GroupingDefinition<T>> groupings = new ArrayList<>();
+        for (GroupingDefinition<T> gd : question.groupings()) {
             if (!gd.forced()) {
                 String f = input("Do you want to group by " + gd.name() + "? (y|yes)").toLowerCase();
                 if (!(f.equals("yes") || f.equals("y"))) continue;
             }
-            groupReps.add(gd.toString());
-            groupings.add(gd.function());
+            groupings.add(gd);
+        }
+        return groupings;
+    }
+
+    private static <T extends BaseDataSet> void evaluate(Question<T> question, GroupingCube.Cell<T> cell) {
+        if (cell.aggregate != null) cell.aggregate.print();
+        else question.evaluator().accept(cell.values());
+    }
+
+    private static <T extends BaseDataSet> void evaluate(Question<T> question, DataIndex<T> index, RoaringBitmap positions) {
+        if (question.aggregate() != null) {
+            Aggregate<T> aggregate = question.aggregate().get();
+            positions.forEach(position -> aggregate.add(index.get(position)));
+            aggregate.print();
+            return;
         }
+        List<T> values = new ArrayList<>(positions.cardinality());
+        positions.forEach(position -> values.add(index.get(position)));
+        question.evaluator().accept(values);
+    }
 
+    /**
+     * Evaluates the Question with its {@link Question#aggregate()}, adding each DataSet to the Aggregate of its group
+     * without collecting the groups into Lists.
+     */
+    private static <T extends BaseDataSet> void aggregate(
+            Question<T> question, List<GroupingDefinition<T>> groupings, List<T> data, Executor executor
+    ) {
         if (groupings.isEmpty()) {
-            questions.evaluator().accept(data.stream().filter(questions.conditionAll()).toList());
+            Aggregate<T> aggregate = question.aggregate().get();
+            for (T t : data) {
+                if (question.conditionAll().test(t)) aggregate.add(t);
+            }
+            aggregate.print();
             return;
         }
-        Map<List<?>, List<T>> groupedData = data.stream()
-                .filter(questions.conditionAll())
-                .collect(Collectors.groupingBy(t -> {
-                    List<Object> list = new ArrayList<>();
-                    groupings.forEach(g -> list.add(g.apply(t)));
-                    return list;
-                }));
-
-        groupedData.forEach((keys, values) -> {
-            println(values.size() + " grouped Datasets with:");
-            println(String.join(", ", groupReps));
-            println(keys.stream().map(String::valueOf).collect(Collectors.joining(", ")));
-            questions.evaluator().accept(values);
-        });
+        Map<List<?>, Group<T>> groups = group(
+                question, groupings, data, () -> new Group<>(question.aggregate().get()), Group::add
+        );
+
+        List<String> groupReps = groupings.stream().map(GroupingDefinition::toString).toList();
+        forEachGroup(groups, (keys, group) -> {
+            printGroup(group.size, groupReps, keys);
+            group.aggregate.print();
+        }, executor);
+    }
+
+    /**
+     * Groups all DataSets fulfilling the condition of the Question by the results of the grouping functions.
+     * If all groupings have a {@link GroupingDefinition.Domain} the groups are found by indexing into an array and
+     * are ordered by their indices, otherwise by hashing the results.
+     *
+     * @param newGroup Creates an empty group.
+     * @param add      Adds a DataSet to a group.
+     * @return Map of the combined results of the grouping functions to their group.
+     */
+    private static <T extends BaseDataSet, G> Map<List<?>, G> group(
+            Question<T> question, List<GroupingDefinition<T>> groupings, List<T> data,
+            Supplier<G> newGroup, BiConsumer<G, T> add
+    ) {
+        long combinations = 1;
+        for (GroupingDefinition<T> gd : groupings) {
+            combinations = gd.domain() == null ? Long.MAX_VALUE : combinations * gd.domain().size();
+            if (combinations > MAX_INDEXED_GROUPS) break;
+        }
+        if (combinations > MAX_INDEXED_GROUPS) {
+            Map<List<?>, G> groups = new HashMap<>();
+            for (T t : data) {
+                if (!question.conditionAll().test(t)) continue;
+                List<Object> keys = new ArrayList<>(groupings.size());
+                groupings.forEach(g -> keys.add(g.function().apply(t)));
+                int size = groups.size();
+                add.accept(groups.computeIfAbsent(keys, _ -> newGroup.get()), t);
+                // check the memory while the number of groups grows, before it runs out
+                if (groups.size() != size && groups.size() >= 1024 && Integer.bitCount(groups.size()) == 1) {
+                    MemoryAccounting.recordGroups(question.toString(), groups, groupings.size());
+                }
+            }
+            MemoryAccounting.recordGroups(question.toString(), groups, groupings.size());
+            return groups;
+        }
+
+        List<GroupingDefinition.Domain<T>> domains = groupings.stream().map(GroupingDefinition::domain).toList();
+        Object[] groups = new Object[(int) combinations];
+        for (T t : data) {
+            if (!question.conditionAll().test(t)) continue;
+            int index = 0;
+            for (GroupingDefinition.Domain<T> domain : domains) {
+                index = index * domain.size() + domain.index().applyAsInt(t);
+            }
+            if (groups[index] == null) groups[index] = newGroup.get();
+            @SuppressWarnings("unchecked")
+            G group = (G) groups[index];
+            add.accept(group, t);
+        }
+
+        Map<List<?>, G> result = new LinkedHashMap<>();
+        for (int index = 0; index < groups.length; index++) {
+            if (groups[index] == null) continue;
+            Object[] keys = new Object[domains.size()];
+            int remaining = index;
+            for (int i = domains.size() - 1; i >= 0; i--) {
+                keys[i] = domains.get(i).label().apply(remaining % domains.get(i).size());
+                remaining /= domains.get(i).size();
+            }
+            @SuppressWarnings("unchecked")
+            G group = (G) groups[index];
+            result.put(Arrays.asList(keys), group);
+        }
+        MemoryAccounting.recordGroups(question.toString(), result, groupings.size());
+        return result;
+    }
+
+    /**
+     * Renders all groups in their iteration order, concurrently if an Executor is given, see {@link ParallelGroups}.
+     */
+    private static <G> void forEachGroup(Map<List<?>, G> groups, BiConsumer<List<?>, G> render, Executor executor) {
+        if (executor == null || groups.size() < 2) groups.forEach(render);
+        else ParallelGroups.forEach(groups, render, executor);
+    }
+
+    static void printGroup(long size, List<String> groupReps, List<?> keys) {
+        println(size + " grouped Datasets with:");
+        println(String.join(", ", groupReps));
+        println(keys.stream().map(String::valueOf).collect(Collectors.joining(", ")));
+    }
+
+    private static class Group<T> {
+        final Aggregate<T> aggregate;
+        int size;
+
+        Group(Aggregate<T> aggregate) {
+            this.aggregate = aggregate;
+        }
+
+        void add(T t) {
+            aggregate.add(t);
+            size++;
+        }
     }
 
     private Survey() {
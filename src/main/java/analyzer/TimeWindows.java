@@ -0,0 +1,264 @@
+package analyzer;
+
+import analyzer.aggregation.Aggregate;
+import dataset.BaseDataSet;
+import dataset.TimestampedMetadata;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.function.Function;
+
+import static report.Report.println;
+
+/**
+ * Incrementally maintained time windows of a {@link Question} with an {@link Question#aggregate()}, for analyses like
+ * "the last hour" without aggregating all DataSets again.
+ * <br>
+ * DataSets are aggregated into panes with the length of the slide of the window, grouped by the forced groupings of the
+ * Question. A window is merged out of the panes it covers, tumbling windows consist of a single pane. Once a pane is
+ * older than the current window it expires and is compacted into a history of tumbling windows with the length of the
+ * window, of which only the most recent are kept. So memory is bounded by the number of panes per window plus the
+ * length of the history, independent of the number of DataSets.
+ * <br>
+ * The current window ends with the pane of the latest timestamp added so far. DataSets older than the history are
+ * dropped, as are DataSets without timestamp.
+ *
+ * @param <T> Type of DataSets to aggregate.
+ */
+public class TimeWindows<T extends BaseDataSet> {
+
+    /**
+     * The default number of compacted windows kept in the history.
+     */
+    public static final int DEFAULT_HISTORY = 24;
+
+    /**
+     * A window of aggregated groups.
+     *
+     * @param start  Start of the window (inclusive).
+     * @param end    End of the window (exclusive).
+     * @param groups Aggregated group for each combined result of the forced groupings, a single group with an empty
+     *               List as key if the Question has no forced groupings.
+     */
+    public record Window<T>(Instant start, Instant end, Map<List<?>, Group<T>> groups) {
+    }
+
+    /**
+     * Aggregated DataSets of a group within a window.
+     */
+    public static final class Group<T> {
+        private final Aggregate<T> aggregate;
+        private long size = 0;
+
+        private Group(Aggregate<T> aggregate) {
+            this.aggregate = aggregate;
+        }
+
+        public Aggregate<T> aggregate() {
+            return aggregate;
+        }
+
+        /**
+         * The number of DataSets in the group.
+         */
+        public long size() {
+            return size;
+        }
+
+        private void merge(Group<T> other) {
+            aggregate.merge(other.aggregate);
+            size += other.size;
+        }
+    }
+
+    private final Question<T> question;
+    private final List<GroupingDefinition<T>> groupings;
+    private final Function<T, Instant> timestamp;
+    private final long slide;
+    private final int panesPerWindow;
+    private final int history;
+
+    // panes of the current window by their index, the start of a pane is index * slide
+    private final TreeMap<Long, Map<List<?>, Group<T>>> panes = new TreeMap<>();
+    // compacted windows by their index, the start of a window is index * panesPerWindow * slide
+    private final TreeMap<Long, Map<List<?>, Group<T>>> compacted = new TreeMap<>();
+    private long latestPane = Long.MIN_VALUE;
+    private long dropped = 0;
+
+    /**
+     * @param size      Length of each window, needs to be a multiple of the slide.
+     * @param slide     Time between the starts of consecutive windows, the same as size for tumbling windows.
+     *                  Needs to be a positive number of milliseconds.
+     * @param history   The number of compacted windows to keep.
+     * @param timestamp Function returning the timestamp of a DataSet, or null if it has none.
+     * @throws IllegalArgumentException If the Question has no Aggregate or the durations are invalid.
+     */
+    public TimeWindows(Question<T> question, Duration size, Duration slide, int history, Function<T, Instant> timestamp) {
+        if (question.aggregate() == null) throw new IllegalArgumentException("Question " + question + " has no Aggregate");
+        if (slide.toMillis() <= 0) throw new IllegalArgumentException("slide needs to be at least 1 ms");
+        if (size.toMillis() % slide.toMillis() != 0 || size.toMillis() < slide.toMillis()) {
+            throw new IllegalArgumentException("size needs to be a multiple of slide");
+        }
+        if (history < 0) throw new IllegalArgumentException("history may not be negative");
+        this.question = question;
+        groupings = question.groupings().stream().filter(GroupingDefinition::forced).toList();
+        this.timestamp = timestamp;
+        this.slide = slide.toMillis();
+        panesPerWindow = (int) (size.toMillis() / this.slide);
+        this.history = history;
+    }
+
+    /**
+     * Creates consecutive, non-overlapping windows of the given size for DataSets with {@link TimestampedMetadata}.
+     */
+    public static <T extends BaseDataSet> TimeWindows<T> tumbling(Question<T> question, Duration size) {
+        return new TimeWindows<>(question, size, size, DEFAULT_HISTORY, TimestampedMetadata::timestampOf);
+    }
+
+    /**
+     * Creates overlapping windows of the given size starting every slide for DataSets with
+     * {@link TimestampedMetadata}.
+     */
+    public static <T extends BaseDataSet> TimeWindows<T> sliding(Question<T> question, Duration size, Duration slide) {
+        return new TimeWindows<>(question, size, slide, DEFAULT_HISTORY, TimestampedMetadata::timestampOf);
+    }
+
+    /**
+     * Adds the DataSet to the pane of its timestamp if it fulfills the condition of the Question. Adding a DataSet
+     * later than all previous ones moves the current window forward, expiring panes that are too old.
+     */
+    public void add(T t) {
+        Instant time = timestamp.apply(t);
+        if (time == null) {
+            dropped++;
+            return;
+        }
+        if (!question.conditionAll().test(t)) return;
+        long pane = Math.floorDiv(time.toEpochMilli(), slide);
+        if (pane > latestPane) {
+            latestPane = pane;
+            expire();
+        }
+
+        Map<List<?>, Group<T>> groups;
+        if (pane > latestPane - panesPerWindow) {
+            groups = panes.computeIfAbsent(pane, _ -> new HashMap<>());
+        } else {
+            long window = Math.floorDiv(pane, panesPerWindow);
+            if (history == 0 || compacted.size() >= history && window < compacted.firstKey()) {
+                dropped++;
+                return;
+            }
+            groups = compacted.computeIfAbsent(window, _ -> new HashMap<>());
+            trimHistory();
+        }
+        Group<T> group = groups.computeIfAbsent(keys(t), _ -> new Group<>(question.aggregate().get()));
+        group.aggregate.add(t);
+        group.size++;
+    }
+
+    public void addAll(Iterable<T> data) {
+        data.forEach(this::add);
+    }
+
+    /**
+     * The current window, ending with the pane of the latest timestamp added so far.
+     *
+     * @throws NoSuchElementException If no DataSet was added yet.
+     */
+    public Window<T> current() {
+        if (latestPane == Long.MIN_VALUE) throw new NoSuchElementException("No DataSets added");
+        long first = latestPane - panesPerWindow + 1;
+        return new Window<>(
+                Instant.ofEpochMilli(first * slide),
+                Instant.ofEpochMilli((latestPane + 1) * slide),
+                merge(panes.tailMap(first).values())
+        );
+    }
+
+    /**
+     * The compacted windows that ended before the current window, oldest first.
+     */
+    public List<Window<T>> history() {
+        if (latestPane == Long.MIN_VALUE) return List.of();
+        long windowLength = panesPerWindow * slide;
+        // the latest compacted window may still be missing panes of the current window
+        long complete = Math.floorDiv(latestPane - panesPerWindow + 1, panesPerWindow);
+        List<Window<T>> windows = new ArrayList<>();
+        compacted.headMap(complete).forEach((index, groups) -> windows.add(new Window<>(
+                Instant.ofEpochMilli(index * windowLength), Instant.ofEpochMilli((index + 1) * windowLength), groups
+        )));
+        return windows;
+    }
+
+    /**
+     * The number of DataSets that were dropped, because they had no timestamp or were older than the history.
+     */
+    public long dropped() {
+        return dropped;
+    }
+
+    /**
+     * Prints the current window with each of its groups like {@link Survey} does.
+     */
+    public void printCurrent() {
+        print(current());
+    }
+
+    /**
+     * Prints the window with each of its groups like {@link Survey} does.
+     */
+    public void print(Window<T> window) {
+        println("Window from " + window.start() + " to " + window.end());
+        if (groupings.isEmpty()) {
+            Group<T> group = window.groups().get(List.of());
+            (group != null ? group.aggregate : question.aggregate().get()).print();
+            return;
+        }
+        List<String> groupReps = groupings.stream().map(GroupingDefinition::toString).toList();
+        window.groups().forEach((keys, group) -> {
+            Survey.printGroup(group.size, groupReps, keys);
+            group.aggregate.print();
+        });
+    }
+
+    private List<?> keys(T t) {
+        if (groupings.isEmpty()) return List.of();
+        List<Object> keys = new ArrayList<>(groupings.size());
+        groupings.forEach(g -> keys.add(g.function().apply(t)));
+        return keys;
+    }
+
+    /**
+     * Compacts all panes that aren't part of the current window anymore.
+     */
+    private void expire() {
+        while (!panes.isEmpty() && panes.firstKey() <= latestPane - panesPerWindow) {
+            Map.Entry<Long, Map<List<?>, Group<T>>> pane = panes.pollFirstEntry();
+            if (history == 0) continue;
+            Map<List<?>, Group<T>> window = compacted.computeIfAbsent(
+                    Math.floorDiv(pane.getKey(), panesPerWindow), _ -> new HashMap<>()
+            );
+            mergeInto(window, pane.getValue());
+        }
+        trimHistory();
+    }
+
+    private void trimHistory() {
+        while (compacted.size() > history) {
+            compacted.pollFirstEntry();
+        }
+    }
+
+    private Map<List<?>, Group<T>> merge(Collection<Map<List<?>, Group<T>>> panes) {
+        Map<List<?>, Group<T>> merged = new HashMap<>();
+        panes.forEach(pane -> mergeInto(merged, pane));
+        return merged;
+    }
+
+    private void mergeInto(Map<List<?>, Group<T>> target, Map<List<?>, Group<T>> source) {
+        source.forEach((keys, group) -> target.computeIfAbsent(keys, _ -> new Group<>(question.aggregate().get())).merge(group));
+    }
+
+}
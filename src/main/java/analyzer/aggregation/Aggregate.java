@@ -0,0 +1,63 @@
+package analyzer.aggregation;
+
+import java.io.Serializable;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Mutable state of an analysis that consumes values one at a time, as an alternative to evaluators taking the whole
+ * List of values at once. Values are added in a single pass, so implementations can keep their memory bounded
+ * independent of the number of values.
+ * <br>
+ * Aggregates of the same kind and configuration can be merged, allowing to aggregate partitions of the data
+ * separately (for example in parallel) and combine the results afterwards.
+ * <br>
+ * Aggregates are serializable, so their state can be saved or sent to another process and merged there, see
+ * {@link analyzer.GroupingCube.State}. Mapped Aggregates (see {@link #mapping}) lose their mapping function when
+ * serialized, so they can only be merged into other ones and printed afterwards.
+ *
+ * @param <V> Type of values that can be added.
+ */
+public interface Aggregate<V> extends Serializable {
+
+    /**
+     * Adds a single value to this Aggregate.
+     */
+    void add(V value);
+
+    /**
+     * Adds all values of the other Aggregate to this one. The other Aggregate stays unchanged.
+     *
+     * @throws IllegalArgumentException If the other Aggregate is not of the same kind or configuration.
+     */
+    void merge(Aggregate<V> other);
+
+    /**
+     * Prints the result of this Aggregate.
+     */
+    void print();
+
+    /**
+     * Creates an evaluator that adds all values of a List to a new Aggregate and prints the result.
+     *
+     * @param aggregate Supplier creating a new, empty Aggregate for each evaluation.
+     */
+    static <V> Consumer<List<V>> evaluator(Supplier<? extends Aggregate<? super V>> aggregate) {
+        return values -> {
+            Aggregate<? super V> result = aggregate.get();
+            values.forEach(result::add);
+            result.print();
+        };
+    }
+
+    /**
+     * Creates an Aggregate that maps each added Object before adding it to the given Aggregate.
+     * Aggregates created by this can be merged if the underlying Aggregates can be merged.
+     */
+    static <T, V> Aggregate<T> mapping(Function<T, V> mapper, Aggregate<? super V> aggregate) {
+        return new MappedAggregate<>(aggregate, t -> aggregate.add(mapper.apply(t)));
+    }
+
+}
@@ -0,0 +1,156 @@
+package analyzer.aggregation;
+
+import Utils.HashUtils;
+import Utils.Utils;
+
+import java.io.Serial;
+import java.util.*;
+
+import static report.Report.println;
+
+/**
+ * Aggregate estimating how many times values appear with a Count-Min sketch. Estimates are never lower than the
+ * actual amount and with a probability of 1 - delta exceed it by at most epsilon * total.
+ * <br>
+ * As the sketch itself doesn't know which values were added, this also keeps track of the values that are frequent
+ * enough to be printed (at least threshold * total). Memory is fixed by the configuration and independent of the
+ * number of (distinct) values: about e / epsilon * ln(1 / delta) counters plus in the order of 2 / threshold candidate
+ * values.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Count%E2%80%93min_sketch">https://en.wikipedia.org/wiki/Count%E2%80%93min_sketch</a>
+ */
+public class CountMinSketch implements Aggregate<Object> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final double DEFAULT_EPSILON = 0.005;
+    public static final double DEFAULT_DELTA = 0.01;
+    public static final double DEFAULT_THRESHOLD = 0.01;
+
+    private final double epsilon;
+    private final double delta;
+    private final double threshold;
+    private final int width;
+    private final int depth;
+    private final int[] counters;
+    private final HashSet<Object> candidates = new HashSet<>();
+    private int maxCandidates;
+    private int total;
+
+    /**
+     * Creates a CountMinSketch with the {@link #DEFAULT_EPSILON}, {@link #DEFAULT_DELTA} and
+     * {@link #DEFAULT_THRESHOLD}.
+     */
+    public CountMinSketch() {
+        this(DEFAULT_EPSILON, DEFAULT_DELTA, DEFAULT_THRESHOLD);
+    }
+
+    /**
+     * @param epsilon   Maximal error of the estimates relative to the total amount of values.
+     * @param delta     Probability that an estimate exceeds the maximal error.
+     * @param threshold Minimal estimated share of all values a value needs to be printed.
+     */
+    public CountMinSketch(double epsilon, double delta, double threshold) {
+        if (epsilon <= 0 || epsilon >= 1) throw new IllegalArgumentException("Epsilon needs to be between 0 and 1");
+        if (delta <= 0 || delta >= 1) throw new IllegalArgumentException("Delta needs to be between 0 and 1");
+        if (threshold <= 0 || threshold > 1) throw new IllegalArgumentException("Threshold needs to be between 0 and 1");
+        this.epsilon = epsilon;
+        this.delta = delta;
+        this.threshold = threshold;
+        width = (int) Math.ceil(Math.E / epsilon);
+        depth = (int) Math.ceil(Math.log(1 / delta));
+        counters = new int[width * depth];
+        maxCandidates = (int) Math.ceil(2 / threshold);
+    }
+
+    @Override
+    public void add(Object value) {
+        long hash = HashUtils.hash64(value);
+        total++;
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            int index = row * width + column(hash, row);
+            counters[index]++;
+            estimate = Math.min(estimate, counters[index]);
+        }
+        // any value that is frequent enough in the end has been frequent enough when it was added the last time
+        if (estimate >= threshold * total) {
+            candidates.add(value);
+            if (candidates.size() > maxCandidates) pruneCandidates();
+        }
+    }
+
+    /**
+     * Estimates how many times the given value has been added so far.
+     */
+    public int estimate(Object value) {
+        long hash = HashUtils.hash64(value);
+        int estimate = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters[row * width + column(hash, row)]);
+        }
+        return estimate;
+    }
+
+    /**
+     * The total amount of values added so far.
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * The values estimated to make up at least threshold of all values, mapped to their estimated amount and
+     * sorted by the estimated amount in descending order.
+     */
+    public Map<Object, Integer> frequentValues() {
+        Map<Object, Integer> result = new LinkedHashMap<>();
+        candidates.stream()
+                .map(value -> Map.entry(value, estimate(value)))
+                .filter(e -> e.getValue() >= threshold * total)
+                .sorted(Map.Entry.<Object, Integer>comparingByValue().reversed())
+                .forEach(e -> result.put(e.getKey(), e.getValue()));
+        return result;
+    }
+
+    /**
+     * Derives the hash for each row from a single hash (Kirsch-Mitzenmacher).
+     */
+    private int column(long hash, int row) {
+        int combined = (int) hash + row * (int) (hash >>> 32);
+        return Math.floorMod(combined, width);
+    }
+
+    private void pruneCandidates() {
+        candidates.removeIf(value -> estimate(value) < threshold * total);
+        // overestimated values may keep more candidates than expected, avoid pruning again after every value
+        maxCandidates = Math.max(maxCandidates, 2 * candidates.size());
+    }
+
+    @Override
+    public void merge(Aggregate<Object> other) {
+        if (!(other instanceof CountMinSketch sketch)
+                || sketch.width != width || sketch.depth != depth || sketch.threshold != threshold) {
+            throw new IllegalArgumentException("Can only merge with a CountMinSketch with the same configuration");
+        }
+        for (int i = 0; i < counters.length; i++) {
+            counters[i] += sketch.counters[i];
+        }
+        total += sketch.total;
+        candidates.addAll(sketch.candidates);
+        pruneCandidates();
+    }
+
+    @Override
+    public void print() {
+        frequentValues().forEach((value, amount) -> println(
+                value + ": ~"
+                        + amount + "/" + total + " "
+                        + Utils.toPercentage(amount, total)
+        ));
+        println("Estimates exceed the actual amounts by at most " + (int) Math.ceil(epsilon * total)
+                + " with a probability of " + Utils.toPercentage(1 - delta));
+    }
+
+}
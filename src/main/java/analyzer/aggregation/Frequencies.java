@@ -0,0 +1,86 @@
+package analyzer.aggregation;
+
+import Utils.Counter;
+import Utils.Utils;
+
+import java.io.Serial;
+
+import static report.Report.println;
+
+/**
+ * Exact Aggregate counting how many times each value appears, using a {@link Counter}.
+ * Prints each value like the SIMPLE_PERCENTAGES or WILSON_CONFIDENCE evaluators of
+ * {@link analyzer.BaseDataAnalyzer}.
+ * <br>
+ * Memory grows with the number of distinct values, for values with a very high cardinality consider
+ * {@link CountMinSketch} or {@link HyperLogLog} instead.
+ */
+public class Frequencies implements Aggregate<Object> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Counter<Object> counter = new Counter<>();
+    private final boolean confidence;
+
+    /**
+     * @param confidence Whether to print the Wilson Score confidence interval (confidence of 0.95) instead of the
+     *                   plain percentage.
+     */
+    public Frequencies(boolean confidence) {
+        this.confidence = confidence;
+    }
+
+    /**
+     * Creates an Aggregate printing each value with its percentage.
+     */
+    public static Frequencies percentages() {
+        return new Frequencies(false);
+    }
+
+    /**
+     * Creates an Aggregate printing each value with its Wilson Score confidence interval with a confidence of 0.95.
+     */
+    public static Frequencies wilsonConfidence() {
+        return new Frequencies(true);
+    }
+
+    @Override
+    public void add(Object value) {
+        counter.add(value);
+    }
+
+    @Override
+    public void merge(Aggregate<Object> other) {
+        if (!(other instanceof Frequencies frequencies)) {
+            throw new IllegalArgumentException("Can only merge with other Frequencies");
+        }
+        counter.addAll(frequencies.counter);
+    }
+
+    /**
+     * The exact counts of all values added so far.
+     */
+    public Counter<Object> getCounter() {
+        return counter;
+    }
+
+    @Override
+    public void print() {
+        int total = counter.sum();
+        if (confidence) {
+            counter.forEach((value, amount) -> println(
+                    value + ": "
+                            + Utils.toBinomialConfidenceRange(amount, total, 0.95, 2)
+                            + " (" + amount + "/" + total + ")"
+            ));
+        } else {
+            counter.forEach((value, amount) -> println(
+                    value + ": "
+                            + amount + "/" + total + " "
+                            + Utils.toPercentage(amount, total)
+            ));
+        }
+    }
+
+}
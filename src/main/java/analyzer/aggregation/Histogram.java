@@ -0,0 +1,102 @@
+package analyzer.aggregation;
+
+import Utils.Utils;
+
+import java.io.Serial;
+
+import static Utils.Utils.roundToString;
+import static report.Report.println;
+
+/**
+ * Aggregate counting numbers in bins of equal width between min and max, using constant memory.
+ * Each bin includes its lower boundary, the last bin also includes max. Numbers outside of the range are counted
+ * separately, NaN values are ignored.
+ */
+public class Histogram implements NumericAggregate {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final double min;
+    private final double max;
+    private final long[] bins;
+    private long below;
+    private long above;
+    private long total;
+
+    /**
+     * @param min  Lower boundary of the first bin.
+     * @param max  Upper boundary of the last bin.
+     * @param bins Number of bins.
+     */
+    public Histogram(double min, double max, int bins) {
+        if (!(max > min)) throw new IllegalArgumentException("max needs to be greater than min");
+        if (bins < 1) throw new IllegalArgumentException("Number of bins needs to be positive");
+        this.min = min;
+        this.max = max;
+        this.bins = new long[bins];
+    }
+
+    @Override
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        total++;
+        if (value < min) below++;
+        else if (value > max) above++;
+        else bins[Math.min((int) ((value - min) / (max - min) * bins.length), bins.length - 1)]++;
+    }
+
+    /**
+     * Counts all values at once with {@link NumericKernels#histogram}.
+     */
+    @Override
+    public void addAll(double[] values) {
+        long[] outside = new long[2];
+        total += NumericKernels.histogram(values, min, max, bins, outside);
+        below += outside[0];
+        above += outside[1];
+    }
+
+    @Override
+    public void merge(Aggregate<Number> other) {
+        if (!(other instanceof Histogram histogram)
+                || histogram.min != min || histogram.max != max || histogram.bins.length != bins.length) {
+            throw new IllegalArgumentException("Can only merge with a Histogram with the same bins");
+        }
+        for (int i = 0; i < bins.length; i++) {
+            bins[i] += histogram.bins[i];
+        }
+        below += histogram.below;
+        above += histogram.above;
+        total += histogram.total;
+    }
+
+    /**
+     * The amount of numbers in each bin.
+     */
+    public long[] bins() {
+        return bins.clone();
+    }
+
+    /**
+     * The lower boundary of the bin with the given index.
+     */
+    public double lowerBoundary(int bin) {
+        return min + (max - min) * bin / bins.length;
+    }
+
+    @Override
+    public void print() {
+        if (below > 0) println("< " + roundToString(min, 2) + ": " + share(below));
+        for (int i = 0; i < bins.length; i++) {
+            String upper = i == bins.length - 1 ? roundToString(max, 2) + "]" : roundToString(lowerBoundary(i + 1), 2) + ")";
+            println("[" + roundToString(lowerBoundary(i), 2) + ", " + upper + ": " + share(bins[i]));
+        }
+        if (above > 0) println("> " + roundToString(max, 2) + ": " + share(above));
+    }
+
+    private String share(long amount) {
+        return amount + "/" + total + " " + Utils.toPercentage(amount, total);
+    }
+
+}
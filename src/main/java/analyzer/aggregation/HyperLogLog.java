@@ -0,0 +1,126 @@
+package analyzer.aggregation;
+
+import Utils.HashUtils;
+import Utils.Utils;
+
+import java.io.Serial;
+
+import static report.Report.println;
+
+/**
+ * Aggregate estimating the number of distinct values with the HyperLogLog algorithm.
+ * Uses a fixed amount of memory of 2^precision bytes, independent of the number of (distinct) values.
+ * The relative standard error of the estimate is about 1.04 / sqrt(2^precision).
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/HyperLogLog">https://en.wikipedia.org/wiki/HyperLogLog</a>
+ */
+public class HyperLogLog implements Aggregate<Object> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Precision used by {@link #HyperLogLog()}, resulting in a standard error of about 1.6% using 4 KB of memory.
+     */
+    public static final int DEFAULT_PRECISION = 12;
+
+    private final int precision;
+    private final byte[] registers;
+
+    /**
+     * Creates a HyperLogLog with the {@link #DEFAULT_PRECISION}.
+     */
+    public HyperLogLog() {
+        this(DEFAULT_PRECISION);
+    }
+
+    /**
+     * @param precision Number of bits used to pick a register, needs to be between 4 and 18.
+     */
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 18) throw new IllegalArgumentException("Precision needs to be between 4 and 18");
+        this.precision = precision;
+        registers = new byte[1 << precision];
+    }
+
+    /**
+     * Creates a HyperLogLog with the lowest precision that has at most the given relative standard error.
+     *
+     * @param relativeError The maximal relative standard error, for example 0.01 for 1%.
+     */
+    public static HyperLogLog withError(double relativeError) {
+        if (relativeError <= 0) throw new IllegalArgumentException("Relative error needs to be positive");
+        double registers = Math.pow(1.04 / relativeError, 2);
+        int precision = (int) Math.ceil(Math.log(registers) / Math.log(2));
+        return new HyperLogLog(Math.clamp(precision, 4, 18));
+    }
+
+    @Override
+    public void add(Object value) {
+        addHash(HashUtils.hash64(value));
+    }
+
+    /**
+     * Adds a primitive value without boxing it.
+     */
+    public void add(long value) {
+        addHash(HashUtils.hash64(value));
+    }
+
+    private void addHash(long hash) {
+        int index = (int) (hash >>> (64 - precision));
+        // position of the first 1-bit in the remaining bits, capped if all remaining bits are 0
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        if (rank > registers[index]) registers[index] = (byte) rank;
+    }
+
+    @Override
+    public void merge(Aggregate<Object> other) {
+        if (!(other instanceof HyperLogLog hll) || hll.precision != precision) {
+            throw new IllegalArgumentException("Can only merge with a HyperLogLog with the same precision");
+        }
+        for (int i = 0; i < registers.length; i++) {
+            registers[i] = (byte) Math.max(registers[i], hll.registers[i]);
+        }
+    }
+
+    /**
+     * Estimates the number of distinct values added so far.
+     */
+    public long estimate() {
+        int m = registers.length;
+        double sum = 0;
+        int zeros = 0;
+        for (byte register : registers) {
+            sum += 1d / (1L << register);
+            if (register == 0) zeros++;
+        }
+        double estimate = alpha(m) * m * m / sum;
+        // use linear counting for small cardinalities, where HyperLogLog is biased
+        if (estimate <= 2.5 * m && zeros > 0) estimate = m * Math.log((double) m / zeros);
+        return Math.round(estimate);
+    }
+
+    /**
+     * The relative standard error of the estimate.
+     */
+    public double relativeError() {
+        return 1.04 / Math.sqrt(registers.length);
+    }
+
+    private static double alpha(int m) {
+        return switch (m) {
+            case 16 -> 0.673;
+            case 32 -> 0.697;
+            case 64 -> 0.709;
+            default -> 0.7213 / (1 + 1.079 / m);
+        };
+    }
+
+    @Override
+    public void print() {
+        println("~" + estimate() + " distinct values (standard error "
+                + Utils.toPercentage(relativeError()) + ")");
+    }
+
+}
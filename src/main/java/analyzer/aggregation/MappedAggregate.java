@@ -0,0 +1,48 @@
+package analyzer.aggregation;
+
+import java.io.Serial;
+import java.util.function.Consumer;
+
+/**
+ * Aggregate mapping each value before passing it to the wrapped Aggregate, see {@link Aggregate#mapping} and
+ * {@link NumericAggregate#mapping}.
+ */
+class MappedAggregate<T> implements Aggregate<T> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Aggregate<?> aggregate;
+    // null after deserialization
+    private final transient Consumer<T> adder;
+
+    /**
+     * @param aggregate The wrapped Aggregate.
+     * @param adder     Maps a value and adds it to the wrapped Aggregate.
+     */
+    MappedAggregate(Aggregate<?> aggregate, Consumer<T> adder) {
+        this.aggregate = aggregate;
+        this.adder = adder;
+    }
+
+    @Override
+    public void add(T value) {
+        if (adder == null) throw new IllegalStateException("Deserialized mapped Aggregates can only be merged into others");
+        adder.accept(value);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void merge(Aggregate<T> other) {
+        if (!(other instanceof MappedAggregate<T> mapped)) {
+            throw new IllegalArgumentException("Can only merge with another mapped Aggregate");
+        }
+        ((Aggregate<Object>) aggregate).merge((Aggregate<Object>) mapped.aggregate);
+    }
+
+    @Override
+    public void print() {
+        aggregate.print();
+    }
+
+}
@@ -0,0 +1,69 @@
+package analyzer.aggregation;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Aggregate over numbers, consuming primitive values without boxing them.
+ * Null values are ignored.
+ */
+public interface NumericAggregate extends Aggregate<Number> {
+
+    /**
+     * Adds a single primitive value to this Aggregate.
+     */
+    void add(double value);
+
+    @Override
+    default void add(Number value) {
+        if (value != null) add(value.doubleValue());
+    }
+
+    /**
+     * Adds all values of the array. Implementations may use {@link NumericKernels} to add them at once.
+     */
+    default void addAll(double[] values) {
+        for (double value : values) add(value);
+    }
+
+    /**
+     * Adds all values of the array. Implementations may use {@link NumericKernels} to add them at once.
+     */
+    default void addAll(int[] values) {
+        for (int value : values) add(value);
+    }
+
+    /**
+     * Creates an evaluator that adds all values of an array to a new NumericAggregate and prints the result.
+     *
+     * @param aggregate Supplier creating a new, empty NumericAggregate for each evaluation.
+     */
+    static Consumer<double[]> arrayEvaluator(Supplier<? extends NumericAggregate> aggregate) {
+        return values -> {
+            NumericAggregate result = aggregate.get();
+            result.addAll(values);
+            result.print();
+        };
+    }
+
+    /**
+     * Like {@link #arrayEvaluator(Supplier)} for an array of ints.
+     */
+    static Consumer<int[]> intArrayEvaluator(Supplier<? extends NumericAggregate> aggregate) {
+        return values -> {
+            NumericAggregate result = aggregate.get();
+            result.addAll(values);
+            result.print();
+        };
+    }
+
+    /**
+     * Creates an Aggregate that maps each added Object to a primitive value before adding it to the given
+     * NumericAggregate. Aggregates created by this can be merged if the underlying NumericAggregates can be merged.
+     */
+    static <T> Aggregate<T> mapping(ToDoubleFunction<T> mapper, NumericAggregate aggregate) {
+        return new MappedAggregate<>(aggregate, t -> aggregate.add(mapper.applyAsDouble(t)));
+    }
+
+}
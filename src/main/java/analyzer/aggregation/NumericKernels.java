@@ -0,0 +1,116 @@
+package analyzer.aggregation;
+
+/**
+ * Kernels aggregating primitive arrays, for example the arrays of mapped values passed to evaluators of Questions
+ * with a primitive mapper. If the module jdk.incubator.vector is available (started with
+ * {@code --add-modules jdk.incubator.vector}) the kernels use the Vector API to process several values per
+ * instruction, otherwise, or with the system property {@code analyzer.scalarKernels=true}, equivalent scalar loops.
+ * <br>
+ * Results of the vectorized kernels can differ from the scalar ones in the last bits of sums of doubles, since they
+ * are added in a different order.
+ */
+public final class NumericKernels {
+
+    private static final boolean VECTORIZED = vectorized();
+
+    /**
+     * Whether the kernels use the Vector API.
+     */
+    public static boolean isVectorized() {
+        return VECTORIZED;
+    }
+
+    public static double sum(double[] values) {
+        return VECTORIZED ? VectorKernels.sum(values) : ScalarKernels.sum(values);
+    }
+
+    public static long sum(int[] values) {
+        return VECTORIZED ? VectorKernels.sum(values) : ScalarKernels.sum(values);
+    }
+
+    /**
+     * The smallest value like {@link Math#min(double, double)}, positive infinity for an empty array.
+     */
+    public static double min(double[] values) {
+        return VECTORIZED ? VectorKernels.min(values) : ScalarKernels.min(values);
+    }
+
+    /**
+     * The smallest value, {@link Integer#MAX_VALUE} for an empty array.
+     */
+    public static int min(int[] values) {
+        return VECTORIZED ? VectorKernels.min(values) : ScalarKernels.min(values);
+    }
+
+    /**
+     * The largest value like {@link Math#max(double, double)}, negative infinity for an empty array.
+     */
+    public static double max(double[] values) {
+        return VECTORIZED ? VectorKernels.max(values) : ScalarKernels.max(values);
+    }
+
+    /**
+     * The largest value, {@link Integer#MIN_VALUE} for an empty array.
+     */
+    public static int max(int[] values) {
+        return VECTORIZED ? VectorKernels.max(values) : ScalarKernels.max(values);
+    }
+
+    /**
+     * The sum of the squared differences of the values from the mean.
+     */
+    public static double squaredDeviations(double[] values, double mean) {
+        return VECTORIZED ? VectorKernels.squaredDeviations(values, mean) : ScalarKernels.squaredDeviations(values, mean);
+    }
+
+    /**
+     * The sum of the squared differences of the values from the mean.
+     */
+    public static double squaredDeviations(int[] values, double mean) {
+        return VECTORIZED ? VectorKernels.squaredDeviations(values, mean) : ScalarKernels.squaredDeviations(values, mean);
+    }
+
+    /**
+     * Counts how many times each value of a small domain appears, like grouping by
+     * {@link analyzer.GroupingDefinition#ofInt}.
+     *
+     * @param min    The smallest value of the domain.
+     * @param counts The counters of the values of the domain, incremented at the index value - min.
+     * @throws IllegalArgumentException If a value is outside of the domain. Some values may be counted already.
+     */
+    public static void count(int[] values, int min, long[] counts) {
+        if (VECTORIZED) VectorKernels.count(values, min, counts);
+        else ScalarKernels.count(values, 0, values.length, min, counts);
+    }
+
+    /**
+     * Counts the values in bins of equal width between min and max like {@link Histogram}, ignoring NaN values.
+     *
+     * @param bins    The counters of the bins.
+     * @param outside The counters of values below min (index 0) and above max (index 1).
+     * @return The number of counted values, which are all values except NaN.
+     */
+    public static long histogram(double[] values, double min, double max, long[] bins, long[] outside) {
+        return VECTORIZED
+                ? VectorKernels.histogram(values, min, max, bins, outside)
+                : ScalarKernels.histogram(values, 0, values.length, min, max, bins, outside);
+    }
+
+    static IllegalArgumentException outside(int value, int min, int size) {
+        return new IllegalArgumentException("Value " + value + " is outside of [" + min + ", " + (min + size - 1) + "]");
+    }
+
+    private static boolean vectorized() {
+        if (Boolean.getBoolean("analyzer.scalarKernels")) return false;
+        if (ModuleLayer.boot().findModule("jdk.incubator.vector").isEmpty()) return false;
+        try {
+            return VectorKernels.supported();
+        } catch (LinkageError _) {
+            return false;
+        }
+    }
+
+    private NumericKernels() {
+    }
+
+}
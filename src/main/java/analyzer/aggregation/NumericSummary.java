@@ -0,0 +1,134 @@
+package analyzer.aggregation;
+
+import java.io.Serial;
+
+import static Utils.Utils.roundToString;
+import static report.Report.println;
+
+/**
+ * Aggregate calculating count, mean, variance, min and max of numbers in a single pass with constant memory,
+ * using Welford's algorithm for a numerically stable variance. NaN values are ignored.
+ *
+ * @see <a href="https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance">https://en.wikipedia.org/wiki/Algorithms_for_calculating_variance</a>
+ */
+public class NumericSummary implements NumericAggregate {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private long count;
+    private double mean;
+    // sum of squared differences from the mean
+    private double m2;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    @Override
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        count++;
+        double delta = value - mean;
+        mean += delta / count;
+        m2 += delta * (value - mean);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Adds all values at once with the {@link NumericKernels}, computing their mean and squared deviations in two
+     * passes and merging them into this summary.
+     */
+    @Override
+    public void addAll(double[] values) {
+        if (values.length == 0) return;
+        double sum = NumericKernels.sum(values);
+        if (Double.isNaN(sum)) {
+            // contains NaN values to ignore, or infinities of both signs
+            for (double value : values) add(value);
+            return;
+        }
+        double mean = sum / values.length;
+        merge(values.length, mean, NumericKernels.squaredDeviations(values, mean),
+                NumericKernels.min(values), NumericKernels.max(values));
+    }
+
+    /**
+     * Adds all values at once with the {@link NumericKernels}, like {@link #addAll(double[])}.
+     */
+    @Override
+    public void addAll(int[] values) {
+        if (values.length == 0) return;
+        double mean = (double) NumericKernels.sum(values) / values.length;
+        merge(values.length, mean, NumericKernels.squaredDeviations(values, mean),
+                NumericKernels.min(values), NumericKernels.max(values));
+    }
+
+    @Override
+    public void merge(Aggregate<Number> other) {
+        if (!(other instanceof NumericSummary summary)) {
+            throw new IllegalArgumentException("Can only merge with another NumericSummary");
+        }
+        if (summary.count == 0) return;
+        merge(summary.count, summary.mean, summary.m2, summary.min, summary.max);
+    }
+
+    private void merge(long otherCount, double otherMean, double otherM2, double otherMin, double otherMax) {
+        long total = count + otherCount;
+        double delta = otherMean - mean;
+        mean += delta * otherCount / total;
+        m2 += otherM2 + delta * delta * count * otherCount / total;
+        count = total;
+        min = Math.min(min, otherMin);
+        max = Math.max(max, otherMax);
+    }
+
+    public long count() {
+        return count;
+    }
+
+    /**
+     * The mean of all numbers, NaN if there are none.
+     */
+    public double mean() {
+        return count == 0 ? Double.NaN : mean;
+    }
+
+    /**
+     * The sample variance of all numbers, NaN if there are less than 2.
+     */
+    public double variance() {
+        return count < 2 ? Double.NaN : m2 / (count - 1);
+    }
+
+    /**
+     * The sample standard deviation of all numbers, NaN if there are less than 2.
+     */
+    public double standardDeviation() {
+        return Math.sqrt(variance());
+    }
+
+    /**
+     * The smallest number, NaN if there are none.
+     */
+    public double min() {
+        return count == 0 ? Double.NaN : min;
+    }
+
+    /**
+     * The largest number, NaN if there are none.
+     */
+    public double max() {
+        return count == 0 ? Double.NaN : max;
+    }
+
+    @Override
+    public void print() {
+        println("Count: " + count);
+        if (count == 0) return;
+        println("Mean: " + roundToString(mean(), 2));
+        if (count > 1) println("Standard deviation: " + roundToString(standardDeviation(), 2));
+        println("Min: " + roundToString(min, 2));
+        println("Max: " + roundToString(max, 2));
+    }
+
+}
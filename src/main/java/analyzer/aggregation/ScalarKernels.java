@@ -0,0 +1,86 @@
+package analyzer.aggregation;
+
+/**
+ * Scalar implementations of the {@link NumericKernels}, used if the Vector API isn't available.
+ */
+final class ScalarKernels {
+
+    static double sum(double[] values) {
+        double sum = 0;
+        for (double value : values) sum += value;
+        return sum;
+    }
+
+    static long sum(int[] values) {
+        long sum = 0;
+        for (int value : values) sum += value;
+        return sum;
+    }
+
+    static double min(double[] values) {
+        double min = Double.POSITIVE_INFINITY;
+        for (double value : values) min = Math.min(min, value);
+        return min;
+    }
+
+    static int min(int[] values) {
+        int min = Integer.MAX_VALUE;
+        for (int value : values) min = Math.min(min, value);
+        return min;
+    }
+
+    static double max(double[] values) {
+        double max = Double.NEGATIVE_INFINITY;
+        for (double value : values) max = Math.max(max, value);
+        return max;
+    }
+
+    static int max(int[] values) {
+        int max = Integer.MIN_VALUE;
+        for (int value : values) max = Math.max(max, value);
+        return max;
+    }
+
+    static double squaredDeviations(double[] values, double mean) {
+        double sum = 0;
+        for (double value : values) {
+            double delta = value - mean;
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    static double squaredDeviations(int[] values, double mean) {
+        double sum = 0;
+        for (int value : values) {
+            double delta = value - mean;
+            sum += delta * delta;
+        }
+        return sum;
+    }
+
+    static void count(int[] values, int from, int to, int min, long[] counts) {
+        for (int i = from; i < to; i++) {
+            int index = values[i] - min;
+            if (index < 0 || index >= counts.length) throw NumericKernels.outside(values[i], min, counts.length);
+            counts[index]++;
+        }
+    }
+
+    static long histogram(double[] values, int from, int to, double min, double max, long[] bins, long[] outside) {
+        long counted = 0;
+        for (int i = from; i < to; i++) {
+            double value = values[i];
+            if (Double.isNaN(value)) continue;
+            counted++;
+            if (value < min) outside[0]++;
+            else if (value > max) outside[1]++;
+            else bins[Math.min((int) ((value - min) / (max - min) * bins.length), bins.length - 1)]++;
+        }
+        return counted;
+    }
+
+    private ScalarKernels() {
+    }
+
+}
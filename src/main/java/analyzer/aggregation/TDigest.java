@@ -0,0 +1,241 @@
+package analyzer.aggregation;
+
+import java.io.Serial;
+import java.util.Arrays;
+
+import static Utils.Utils.roundToString;
+import static report.Report.println;
+
+/**
+ * Aggregate estimating quantiles of numbers with a merging t-digest, using memory proportional to the compression
+ * but independent of the amount of numbers. Estimates are most accurate for extreme quantiles like p1 or p99.
+ * Prints the configured quantiles, by default p50, p90 and p99. NaN values are ignored.
+ *
+ * @see <a href="https://arxiv.org/abs/1902.04023">Dunning, Ertl: Computing Extremely Accurate Quantiles Using t-Digests</a>
+ */
+public class TDigest implements NumericAggregate {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final double compression;
+    private final double[] quantiles;
+
+    // centroids sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int centroids;
+
+    // values added since the last compression
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered;
+
+    private double total;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * Creates a TDigest with the {@link #DEFAULT_COMPRESSION}, printing p50, p90 and p99.
+     */
+    public TDigest() {
+        this(DEFAULT_COMPRESSION, 0.5, 0.9, 0.99);
+    }
+
+    /**
+     * @param compression Higher values give more accurate estimates and use more memory. Needs to be at least 10.
+     * @param quantiles   The quantiles to print, each between 0 and 1.
+     */
+    public TDigest(double compression, double... quantiles) {
+        if (compression < 10) throw new IllegalArgumentException("Compression needs to be at least 10");
+        for (double q : quantiles) {
+            if (q < 0 || q > 1) throw new IllegalArgumentException("Quantiles need to be between 0 and 1");
+        }
+        this.compression = compression;
+        this.quantiles = quantiles.clone();
+        int capacity = (int) Math.ceil(compression) * 2;
+        means = new double[capacity];
+        weights = new double[capacity];
+        bufferMeans = new double[capacity * 5];
+        bufferWeights = new double[capacity * 5];
+    }
+
+    @Override
+    public void add(double value) {
+        if (Double.isNaN(value)) return;
+        add(value, 1);
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    private void add(double mean, double weight) {
+        if (buffered == bufferMeans.length) compress();
+        bufferMeans[buffered] = mean;
+        bufferWeights[buffered] = weight;
+        buffered++;
+        total += weight;
+    }
+
+    @Override
+    public void merge(Aggregate<Number> other) {
+        if (!(other instanceof TDigest digest)) {
+            throw new IllegalArgumentException("Can only merge with another TDigest");
+        }
+        // copy the centroids and the buffer instead of compressing the other digest, which stays unchanged
+        double[] otherMeans = Arrays.copyOf(digest.means, digest.centroids);
+        double[] otherWeights = Arrays.copyOf(digest.weights, digest.centroids);
+        double[] otherBufferMeans = Arrays.copyOf(digest.bufferMeans, digest.buffered);
+        double[] otherBufferWeights = Arrays.copyOf(digest.bufferWeights, digest.buffered);
+        for (int i = 0; i < otherMeans.length; i++) add(otherMeans[i], otherWeights[i]);
+        for (int i = 0; i < otherBufferMeans.length; i++) add(otherBufferMeans[i], otherBufferWeights[i]);
+        min = Math.min(min, digest.min);
+        max = Math.max(max, digest.max);
+    }
+
+    /**
+     * Merges all buffered values into the centroids, so that no centroid exceeds the size allowed by the scale
+     * function k(q) = compression / (2 * PI) * asin(2q - 1).
+     */
+    private void compress() {
+        if (buffered == 0) return;
+        sort(bufferMeans, bufferWeights, 0, buffered - 1);
+        double[] oldMeans = means;
+        double[] oldWeights = weights;
+        int oldCentroids = centroids;
+        means = new double[means.length];
+        weights = new double[weights.length];
+        centroids = 0;
+
+        // merge the sorted centroids and the sorted buffer, combining neighbours as long as the limit allows it
+        int i = 0;
+        int j = 0;
+        double done = 0;
+        double limit = total * inverseScale(scale(0) + 1);
+        double mean = 0;
+        double weight = 0;
+        while (i < oldCentroids || j < buffered) {
+            double nextMean;
+            double nextWeight;
+            if (j == buffered || (i < oldCentroids && oldMeans[i] <= bufferMeans[j])) {
+                nextMean = oldMeans[i];
+                nextWeight = oldWeights[i++];
+            } else {
+                nextMean = bufferMeans[j];
+                nextWeight = bufferWeights[j++];
+            }
+            if (weight == 0) {
+                mean = nextMean;
+                weight = nextWeight;
+            } else if (done + weight + nextWeight <= limit) {
+                weight += nextWeight;
+                mean += (nextMean - mean) * nextWeight / weight;
+            } else {
+                done += weight;
+                emit(mean, weight);
+                limit = total * inverseScale(scale(done / total) + 1);
+                mean = nextMean;
+                weight = nextWeight;
+            }
+        }
+        emit(mean, weight);
+        buffered = 0;
+    }
+
+    /**
+     * Sorts the keys between the indices from and to (both inclusive) with a quicksort, moving the values along.
+     */
+    private static void sort(double[] keys, double[] values, int from, int to) {
+        while (from < to) {
+            double pivot = keys[(from + to) >>> 1];
+            int left = from;
+            int right = to;
+            while (left <= right) {
+                while (keys[left] < pivot) left++;
+                while (keys[right] > pivot) right--;
+                if (left <= right) {
+                    swap(keys, left, right);
+                    swap(values, left, right);
+                    left++;
+                    right--;
+                }
+            }
+            // recurse into the smaller part to limit the depth of the recursion
+            if (right - from < to - left) {
+                sort(keys, values, from, right);
+                from = left;
+            } else {
+                sort(keys, values, left, to);
+                to = right;
+            }
+        }
+    }
+
+    private static void swap(double[] array, int a, int b) {
+        double tmp = array[a];
+        array[a] = array[b];
+        array[b] = tmp;
+    }
+
+    private void emit(double mean, double weight) {
+        if (centroids == means.length) {
+            means = Arrays.copyOf(means, centroids * 2);
+            weights = Arrays.copyOf(weights, centroids * 2);
+        }
+        means[centroids] = mean;
+        weights[centroids] = weight;
+        centroids++;
+    }
+
+    private double scale(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, q) - 1);
+    }
+
+    private double inverseScale(double k) {
+        if (k >= compression / 4) return 1;
+        return (Math.sin(k * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    /**
+     * The amount of numbers added so far.
+     */
+    public long count() {
+        return Math.round(total);
+    }
+
+    /**
+     * Estimates the given quantile of all numbers, NaN if there are none.
+     *
+     * @param q The quantile between 0 and 1, for example 0.9 for p90.
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) return Double.NaN;
+        if (q <= 0) return min;
+        if (q >= 1) return max;
+        if (centroids == 1) return means[0];
+
+        double index = q * total;
+        // the weight of each centroid is treated as centered around its mean
+        double center = weights[0] / 2;
+        if (index < center) return min + (means[0] - min) * index / center;
+        for (int i = 0; i < centroids - 1; i++) {
+            double between = (weights[i] + weights[i + 1]) / 2;
+            if (center + between > index) {
+                return means[i] + (means[i + 1] - means[i]) * (index - center) / between;
+            }
+            center += between;
+        }
+        double last = weights[centroids - 1] / 2;
+        return means[centroids - 1] + (max - means[centroids - 1]) * Math.min(1, (index - center) / last);
+    }
+
+    @Override
+    public void print() {
+        for (double q : quantiles) {
+            println("p" + roundToString(100 * q, 2) + ": " + roundToString(quantile(q), 2));
+        }
+    }
+
+}
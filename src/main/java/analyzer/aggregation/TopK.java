@@ -0,0 +1,196 @@
+package analyzer.aggregation;
+
+import Utils.Utils;
+
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.Serial;
+import java.io.Serializable;
+import java.util.*;
+
+import static report.Report.println;
+
+/**
+ * Aggregate finding the k most frequent values with the Space-Saving algorithm, using memory for only k values.
+ * Values are printed sorted by their amount in descending order, together with their percentage and the Wilson Score
+ * confidence interval with a confidence of 0.95.
+ * <br>
+ * As long as there are at most k distinct values the amounts are exact. Otherwise the amounts may be overestimated,
+ * but never by more than the printed maximal error, and any value that appears more than total / k times is
+ * guaranteed to be included.
+ *
+ * @see <a href="https://doi.org/10.1007/978-3-540-30570-5_27">Metwally et al.: Efficient Computation of Frequent and Top-k Elements in Data Streams</a>
+ */
+public class TopK implements Aggregate<Object> {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Number of values kept by {@link #TopK()}.
+     */
+    public static final int DEFAULT_K = 20;
+
+    private final int k;
+    private final HashMap<Object, Entry> entries;
+    // ordered by ascending amount, so the first Entry is the one to replace, ties are printed in order of insertion;
+    // restored from the entries after deserialization, since the Comparator isn't serializable
+    private transient TreeSet<Entry> ordered = newOrdered();
+    private long nextId;
+    private int total;
+
+    /**
+     * Creates a TopK keeping the {@link #DEFAULT_K} most frequent values.
+     */
+    public TopK() {
+        this(DEFAULT_K);
+    }
+
+    /**
+     * @param k Number of most frequent values to keep.
+     */
+    public TopK(int k) {
+        if (k < 1) throw new IllegalArgumentException("k needs to be positive");
+        this.k = k;
+        entries = new HashMap<>(2 * k);
+    }
+
+    @Override
+    public void add(Object value) {
+        total++;
+        Entry entry = entries.get(value);
+        if (entry != null) {
+            increment(entry, 1);
+        } else if (entries.size() < k) {
+            insert(value, 1, 0);
+        } else {
+            // replace the least frequent value, which might have appeared as often as the new value
+            Entry min = ordered.pollFirst();
+            entries.remove(min.value);
+            insert(value, min.amount + 1, min.amount);
+        }
+    }
+
+    private void increment(Entry entry, int amount) {
+        ordered.remove(entry);
+        entry.amount += amount;
+        ordered.add(entry);
+    }
+
+    private void insert(Object value, int amount, int error) {
+        Entry entry = new Entry(value, amount, error, nextId++);
+        entries.put(value, entry);
+        ordered.add(entry);
+    }
+
+    /**
+     * Merges the other TopK into this one. If a value is missing from a TopK that was full, it might have appeared up
+     * to the smallest kept amount of that TopK, which is added as possible error.
+     */
+    @Override
+    public void merge(Aggregate<Object> other) {
+        if (!(other instanceof TopK topK) || topK.k != k) {
+            throw new IllegalArgumentException("Can only merge with a TopK with the same k");
+        }
+        int thisMin = minIfFull();
+        int otherMin = topK.minIfFull();
+        Map<Object, Entry> merged = new HashMap<>();
+        for (Entry entry : entries.values()) {
+            Entry otherEntry = topK.entries.get(entry.value);
+            if (otherEntry != null) {
+                merged.put(entry.value, new Entry(entry.value, entry.amount + otherEntry.amount,
+                        entry.error + otherEntry.error, entry.id));
+            } else {
+                merged.put(entry.value, new Entry(entry.value, entry.amount + otherMin,
+                        entry.error + otherMin, entry.id));
+            }
+        }
+        for (Entry otherEntry : topK.entries.values()) {
+            if (merged.containsKey(otherEntry.value)) continue;
+            merged.put(otherEntry.value, new Entry(otherEntry.value, otherEntry.amount + thisMin,
+                    otherEntry.error + thisMin, nextId++));
+        }
+
+        entries.clear();
+        ordered.clear();
+        total += topK.total;
+        merged.values().stream()
+                .sorted(Comparator.comparingInt((Entry e) -> e.amount).reversed().thenComparingLong(e -> e.id))
+                .limit(k)
+                .forEach(e -> {
+                    entries.put(e.value, e);
+                    ordered.add(e);
+                });
+    }
+
+    private int minIfFull() {
+        return entries.size() < k ? 0 : ordered.first().amount;
+    }
+
+    /**
+     * The total amount of values added so far.
+     */
+    public int total() {
+        return total;
+    }
+
+    /**
+     * The kept values mapped to their (possibly overestimated) amount, sorted by the amount in descending order.
+     */
+    public Map<Object, Integer> values() {
+        Map<Object, Integer> result = new LinkedHashMap<>();
+        ordered.descendingSet().forEach(e -> result.put(e.value, e.amount));
+        return result;
+    }
+
+    /**
+     * The maximal amount by which the amount of the given value may be overestimated, 0 for values that are not kept.
+     */
+    public int error(Object value) {
+        Entry entry = entries.get(value);
+        return entry == null ? 0 : entry.error;
+    }
+
+    @Override
+    public void print() {
+        for (Entry e : ordered.descendingSet()) {
+            println(e.value + ": "
+                    + Utils.toPercentage(e.amount, total) + " "
+                    + Utils.toBinomialConfidenceRange(e.amount, total, 0.95, 2)
+                    + " (" + e.amount + "/" + total + (e.error > 0 ? ", max. error " + e.error : "") + ")");
+        }
+    }
+
+    private static TreeSet<Entry> newOrdered() {
+        return new TreeSet<>(
+                Comparator.comparingInt((Entry e) -> e.amount).thenComparing(e -> e.id, Comparator.reverseOrder())
+        );
+    }
+
+    @Serial
+    private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
+        in.defaultReadObject();
+        ordered = newOrdered();
+        ordered.addAll(entries.values());
+    }
+
+    private static class Entry implements Serializable {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // the values need to be serializable to serialize the TopK
+        @SuppressWarnings("serial")
+        final Object value;
+        int amount;
+        final int error;
+        final long id;
+
+        Entry(Object value, int amount, int error, long id) {
+            this.value = value;
+            this.amount = amount;
+            this.error = error;
+            this.id = id;
+        }
+    }
+
+}
@@ -0,0 +1,182 @@
+package analyzer.aggregation;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorShape;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Implementations of the {@link NumericKernels} with the Vector API, processing as many values per instruction as
+ * the preferred vector size of the CPU allows. Only loaded if the module jdk.incubator.vector is available.
+ */
+final class VectorKernels {
+
+    private static final VectorSpecies<Double> DOUBLES = DoubleVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+    private static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+    // ints with as many lanes as DOUBLES and LONGS, for converting them
+    private static final VectorSpecies<Integer> HALF_INTS =
+            VectorSpecies.of(int.class, VectorShape.forBitSize(DOUBLES.vectorBitSize() / 2));
+
+    /**
+     * Whether vectors hold more than one double, otherwise the scalar kernels are faster.
+     */
+    static boolean supported() {
+        return DOUBLES.length() > 1;
+    }
+
+    static double sum(double[] values) {
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            sum = sum.add(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) result += values[i];
+        return result;
+    }
+
+    static long sum(int[] values) {
+        LongVector sum = LongVector.zero(LONGS);
+        int i = 0;
+        for (int bound = HALF_INTS.loopBound(values.length); i < bound; i += HALF_INTS.length()) {
+            sum = sum.add(IntVector.fromArray(HALF_INTS, values, i).convertShape(VectorOperators.I2L, LONGS, 0));
+        }
+        long result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) result += values[i];
+        return result;
+    }
+
+    static double min(double[] values) {
+        DoubleVector min = DoubleVector.broadcast(DOUBLES, Double.POSITIVE_INFINITY);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            min = min.min(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double result = min.reduceLanes(VectorOperators.MIN);
+        for (; i < values.length; i++) result = Math.min(result, values[i]);
+        return result;
+    }
+
+    static int min(int[] values) {
+        IntVector min = IntVector.broadcast(INTS, Integer.MAX_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += INTS.length()) {
+            min = min.min(IntVector.fromArray(INTS, values, i));
+        }
+        int result = min.reduceLanes(VectorOperators.MIN);
+        for (; i < values.length; i++) result = Math.min(result, values[i]);
+        return result;
+    }
+
+    static double max(double[] values) {
+        DoubleVector max = DoubleVector.broadcast(DOUBLES, Double.NEGATIVE_INFINITY);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            max = max.max(DoubleVector.fromArray(DOUBLES, values, i));
+        }
+        double result = max.reduceLanes(VectorOperators.MAX);
+        for (; i < values.length; i++) result = Math.max(result, values[i]);
+        return result;
+    }
+
+    static int max(int[] values) {
+        IntVector max = IntVector.broadcast(INTS, Integer.MIN_VALUE);
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += INTS.length()) {
+            max = max.max(IntVector.fromArray(INTS, values, i));
+        }
+        int result = max.reduceLanes(VectorOperators.MAX);
+        for (; i < values.length; i++) result = Math.max(result, values[i]);
+        return result;
+    }
+
+    static double squaredDeviations(double[] values, double mean) {
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            DoubleVector delta = DoubleVector.fromArray(DOUBLES, values, i).sub(mean);
+            sum = delta.fma(delta, sum);
+        }
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) {
+            double delta = values[i] - mean;
+            result += delta * delta;
+        }
+        return result;
+    }
+
+    static double squaredDeviations(int[] values, double mean) {
+        DoubleVector sum = DoubleVector.zero(DOUBLES);
+        int i = 0;
+        for (int bound = HALF_INTS.loopBound(values.length); i < bound; i += HALF_INTS.length()) {
+            DoubleVector delta = ((DoubleVector) IntVector.fromArray(HALF_INTS, values, i)
+                    .convertShape(VectorOperators.I2D, DOUBLES, 0)).sub(mean);
+            sum = delta.fma(delta, sum);
+        }
+        double result = sum.reduceLanes(VectorOperators.ADD);
+        for (; i < values.length; i++) {
+            double delta = values[i] - mean;
+            result += delta * delta;
+        }
+        return result;
+    }
+
+    /**
+     * Counts by comparing each vector with every value of the domain, which beats incrementing one counter per value
+     * as long as the domain isn't larger than a vector.
+     */
+    static void count(int[] values, int min, long[] counts) {
+        if (counts.length > INTS.length()) {
+            ScalarKernels.count(values, 0, values.length, min, counts);
+            return;
+        }
+        int max = min + counts.length - 1;
+        int i = 0;
+        for (int bound = INTS.loopBound(values.length); i < bound; i += INTS.length()) {
+            IntVector vector = IntVector.fromArray(INTS, values, i);
+            if (vector.compare(VectorOperators.LT, min).or(vector.compare(VectorOperators.GT, max)).anyTrue()) {
+                // find the value outside of the domain
+                ScalarKernels.count(values, i, i + INTS.length(), min, new long[counts.length]);
+            }
+            for (int value = 0; value < counts.length; value++) {
+                counts[value] += vector.compare(VectorOperators.EQ, min + value).trueCount();
+            }
+        }
+        ScalarKernels.count(values, i, values.length, min, counts);
+    }
+
+    /**
+     * Computes the bins of a vector at once, only incrementing the counters is scalar.
+     */
+    static long histogram(double[] values, double min, double max, long[] bins, long[] outside) {
+        int[] indices = new int[DOUBLES.length()];
+        long counted = 0;
+        int i = 0;
+        for (int bound = DOUBLES.loopBound(values.length); i < bound; i += DOUBLES.length()) {
+            DoubleVector vector = DoubleVector.fromArray(DOUBLES, values, i);
+            VectorMask<Double> below = vector.compare(VectorOperators.LT, min);
+            VectorMask<Double> above = vector.compare(VectorOperators.GT, max);
+            outside[0] += below.trueCount();
+            outside[1] += above.trueCount();
+            // same operations as the scalar kernel, so values on the boundary of two bins end up in the same bin
+            ((IntVector) vector.sub(min).div(max - min).mul(bins.length).convertShape(VectorOperators.D2I, HALF_INTS, 0))
+                    .min(bins.length - 1)
+                    .intoArray(indices, 0);
+            VectorMask<Double> nan = vector.test(VectorOperators.IS_NAN);
+            counted += DOUBLES.length() - nan.trueCount();
+            long inside = below.or(above).or(nan).not().toLong();
+            for (int lane = 0; lane < indices.length; lane++) {
+                if ((inside >>> lane & 1) != 0) bins[indices[lane]]++;
+            }
+        }
+        return counted + ScalarKernels.histogram(values, i, values.length, min, max, bins, outside);
+    }
+
+    private VectorKernels() {
+    }
+
+}
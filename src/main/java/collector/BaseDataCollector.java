@@ -2,15 +2,29 @@ package collector;
 
 import Utils.ActionMap;
 import Utils.InputUtils;
+import Utils.Script;
 import dataset.BaseDataSet;
+import dataset.MapDataSet;
 import dataset.Metadata;
+import dataset.StringDictionary;
+import dataset.TimestampedMetadata;
+import memory.MemoryAccounting;
+import report.Report;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.*;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 
 import static Utils.InputUtils.input;
-import static java.lang.IO.println;
+import static java.util.Objects.requireNonNull;
+import static report.Report.println;
 
 /**
  * Class for Collecting new Data. Subclasses can override any relevant methods.
@@ -29,6 +43,23 @@ public abstract class BaseDataCollector<T extends BaseDataSet> {
 
     protected boolean running;
 
+    /**
+     * Accounts for the memory of the collected data, see {@link #printMemory()}.
+     */
+    protected final MemoryAccounting memory = new MemoryAccounting();
+
+    private final Map<String, StringDictionary> dictionaries = new LinkedHashMap<>();
+    // the options each dictionary was created with, null for dictionaries without options
+    private final Map<String, List<String>> dictionaryOptions = new HashMap<>();
+    // null if the dictionaries aren't saved with the data
+    private Path dictionaryDirectory;
+    private boolean dictionariesLoaded;
+
+    // null if publishing is disabled
+    private DataSetPublisher<T> publisher;
+    private int publisherBufferSize;
+    private DataSetPublisher.OverflowPolicy publisherPolicy;
+
     protected BaseDataCollector() {
         survey = new Survey(getQuestions());
         actions = new ActionMap();
@@ -36,41 +67,118 @@ public abstract class BaseDataCollector<T extends BaseDataSet> {
         actions.put("AddDataMultiple", this::addMultipleDatasets, List.of("am"));
         actions.put("ClearData", this::clearData, List.of("c"));
         actions.put("Delete", this::deleteDataset, List.of("d"));
-        actions.put("Save", this::saveData, List.of("s"));
+        actions.put("Save", this::save, List.of("s"));
         actions.put("PrintData", this::printData, List.of("p"));
         actions.put("PickMetadata", this::setMetadata, List.of("m"));
         actions.put("FixChoices", this::fixChoices, List.of("f", "fc"));
         actions.put("ClearFixedChoices", this::clearFixedChoices, List.of("cc"));
+        actions.put("Memory", this::printMemory, List.of("mem"));
         actions.put("Exit", this::exit, List.of("e"));
         running = false;
+        memory.track("data", () -> data);
+        memory.track("dictionaries", () -> dictionaries);
     }
 
     /**
      * Starts up the Analyzer and presents the user with the choice of these actions:
-     * addData; clearData; save; printData; pickMetadata; fixChoices; clearFixedChoices; exit.
-     * Performs the chosen action and loops back to the choice.
+     * addData; clearData; save; printData; pickMetadata; fixChoices; clearFixedChoices; memory; exit.
+     * Performs the chosen action and loops back to the choice, warning if the memory crosses any thresholds.
+     * While collecting, the {@link #memory} can be queried via JMX.
      */
     public void collect() {
+        loadPersistedDictionaries();
         setMetadata();
         running = true;
-        while (running) {
-            String action = inputAction();
-            executeAction(action);
+        memory.registerMBean(getClass().getSimpleName());
+        try {
+            while (running) {
+                String action = inputAction();
+                executeAction(action);
+                memory.checkAfterAction();
+            }
+        } finally {
+            memory.unregisterMBean();
+            completePublisher();
         }
     }
 
+    /**
+     * Like {@link #collect()}, reading the actions and all answers from the lines of the script instead of the console,
+     * see {@link Script}. Stops after the last line or Exit.
+     *
+     * @return The time each action took.
+     * @throws java.util.NoSuchElementException If the script ends while an action expects an answer.
+     */
+    public List<Script.Timing> collect(List<String> script) {
+        memory.registerMBean(getClass().getSimpleName());
+        try {
+            return Script.run(script, () -> {
+                loadPersistedDictionaries();
+                setMetadata();
+                running = true;
+            }, this::executeAction, () -> running, memory::checkAfterAction);
+        } finally {
+            running = false;
+            memory.unregisterMBean();
+            completePublisher();
+        }
+    }
+
+    /**
+     * Executes the action and flushes the {@link Report#sink()} afterwards, so the output of the action is complete
+     * before the next one is chosen.
+     */
     protected void executeAction(String action) {
         actions.acceptOrFallback(action, () -> println(action + " is not a valid option."));
+        Report.flush();
     }
 
     /**
      * Runs a Survey of Questions, requesting user input to create a new DataSet and save it.
+     * If the current Metadata is a {@link TimestampedMetadata} the DataSet gets a copy with the current time.
      */
     protected void addData() {
         Map<String, Object> typeMap = survey.run();
-        T dataSet = mapToDataset(typeMap);
-        if (validateDataSet(dataSet)) this.data.add(dataSet);
-        else this.onInvalidDataSet(dataSet);
+        T dataSet;
+        Metadata shared = currMetadata;
+        if (shared instanceof TimestampedMetadata timestamped) currMetadata = timestamped.withTimestamp(Instant.now());
+        try {
+            dataSet = mapToDataset(typeMap);
+        } finally {
+            currMetadata = shared;
+        }
+        if (validateDataSet(dataSet)) {
+            this.data.add(dataSet);
+            if (publisher != null) publisher.publish(dataSet);
+        } else this.onInvalidDataSet(dataSet);
+    }
+
+    /**
+     * Enables publishing each DataSet accepted by {@link #addData()} to the subscribers of {@link #publisher()}.
+     * When collecting ends the subscribers are completed and a new publisher is created for the next collection.
+     *
+     * @param bufferSize The maximal number of buffered DataSets per subscriber.
+     * @param policy     What to do if the buffer of a subscriber is full.
+     */
+    protected void enablePublishing(int bufferSize, DataSetPublisher.OverflowPolicy policy) {
+        if (publisher != null) publisher.close();
+        publisher = new DataSetPublisher<>(bufferSize, policy);
+        publisherBufferSize = bufferSize;
+        publisherPolicy = policy;
+    }
+
+    /**
+     * Returns the publisher of the DataSets accepted during the current or next collection, or null if publishing is
+     * disabled, see {@link #enablePublishing(int, DataSetPublisher.OverflowPolicy)}.
+     */
+    public DataSetPublisher<T> publisher() {
+        return publisher;
+    }
+
+    private void completePublisher() {
+        if (publisher == null) return;
+        publisher.close();
+        publisher = new DataSetPublisher<>(publisherBufferSize, publisherPolicy);
     }
 
     /**
@@ -90,6 +198,106 @@ public abstract class BaseDataCollector<T extends BaseDataSet> {
      */
     protected abstract List<Question> getQuestions();
 
+    /**
+     * Returns the dictionary of the field with the key, creating it if it doesn't exist yet.
+     * Can be used in {@link #getQuestions()} with {@link Question.Builder#dictionary(StringDictionary)}.
+     */
+    protected StringDictionary dictionary(String key) {
+        return dictionaries.computeIfAbsent(key, _ -> new StringDictionary());
+    }
+
+    /**
+     * Returns the dictionary of the field with the key, creating it with the options if it doesn't exist yet, see
+     * {@link StringDictionary#ofOptions(String...)}.
+     *
+     * @throws IllegalArgumentException If the dictionary of the key already exists with other options or without
+     *                                  options.
+     */
+    protected StringDictionary dictionary(String key, String... options) {
+        List<String> optionList = List.of(options);
+        StringDictionary existing = dictionaries.get(key);
+        if (existing != null) {
+            if (!optionList.equals(dictionaryOptions.get(key))) {
+                throw new IllegalArgumentException("Dictionary " + key + " already exists with the options "
+                        + dictionaryOptions.get(key) + " instead of " + optionList);
+            }
+            return existing;
+        }
+        StringDictionary dictionary = StringDictionary.ofOptions(options);
+        dictionaries.put(key, dictionary);
+        dictionaryOptions.put(key, optionList);
+        return dictionary;
+    }
+
+    /**
+     * Returns the codes of the values of the map in the dictionaries of their keys, see {@link #dictionary(String)},
+     * adding values that aren't in the dictionary yet. Keys without dictionary and values that aren't Strings are
+     * skipped. Used to create DataSets storing the codes, like {@link MapDataSet#MapDataSet(Metadata, Map, Map)}.
+     */
+    protected Map<String, Integer> dictionaryCodes(Map<String, Object> map) {
+        Map<String, Integer> codes = new HashMap<>();
+        dictionaries.forEach((key, dictionary) -> {
+            if (map.get(key) instanceof String value) codes.put(key, dictionary.code(value));
+        });
+        return codes;
+    }
+
+    /**
+     * Saves the dictionaries into the directory with every {@link #saveData()} of the Save and Exit actions, and loads
+     * them from it before collecting starts, so the codes of the values stay the same across runs. Loading happens
+     * once per collector, see {@link #loadDictionaries(Path)}.
+     */
+    protected void persistDictionaries(Path directory) {
+        dictionaryDirectory = requireNonNull(directory);
+        dictionariesLoaded = false;
+    }
+
+    private void loadPersistedDictionaries() {
+        if (dictionaryDirectory == null || dictionariesLoaded) return;
+        loadDictionaries(dictionaryDirectory);
+        dictionariesLoaded = true;
+    }
+
+    /**
+     * Saves the data and, if enabled with {@link #persistDictionaries(Path)}, the dictionaries.
+     */
+    private void save() {
+        saveData();
+        if (dictionaryDirectory != null) saveDictionaries(dictionaryDirectory);
+    }
+
+    /**
+     * Saves all dictionaries into the directory, one file per key. Should be called together with saving the data, so
+     * the codes of the values stay the same, which {@link #persistDictionaries(Path)} does automatically.
+     *
+     * @throws UncheckedIOException If writing fails.
+     */
+    protected void saveDictionaries(Path directory) {
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        dictionaries.forEach((key, dictionary) -> dictionary.save(dictionaryFile(directory, key)));
+    }
+
+    /**
+     * Loads the values saved by {@link #saveDictionaries(Path)} into the dictionaries. Keys without saved dictionary
+     * are skipped.
+     *
+     * @throws UncheckedIOException If reading fails.
+     */
+    protected void loadDictionaries(Path directory) {
+        dictionaries.forEach((key, dictionary) -> {
+            Path file = dictionaryFile(directory, key);
+            if (Files.exists(file)) dictionary.load(file);
+        });
+    }
+
+    private static Path dictionaryFile(Path directory, String key) {
+        return directory.resolve(URLEncoder.encode(key, StandardCharsets.UTF_8) + ".dict");
+    }
+
     /**
      * Called before adding a new DataSet to validate it.
      * If this returns false for a DataSet the DataSet will be discarded.
@@ -140,29 +348,26 @@ public abstract class BaseDataCollector<T extends BaseDataSet> {
     }
 
     /**
-     * Prints all collected and unsaved DataSets with 1 per line.
+     * Prints all collected and unsaved DataSets with 1 per line to the {@link Report#sink()}.
      */
     protected void printData() {
-        if (data.isEmpty()) {
-            println("No datasets");
-            return;
-        }
+        if (data.isEmpty()) println("No datasets");
         for (T dataSet : data) {
             println(dataSet);
         }
+        Report.flush();
     }
 
     /**
-     * Prints all collected and unsaved DataSets with 1 per line, enumerated starting with 1.
+     * Prints all collected and unsaved DataSets with 1 per line, enumerated starting with 1, to the
+     * {@link Report#sink()}.
      */
     protected void printDataEnumerated() {
-        if (data.isEmpty()) {
-            println("No datasets");
-            return;
-        }
+        if (data.isEmpty()) println("No datasets");
         for (int i = 0; i < data.size(); i++) {
             println((i + 1) + ": " + data.get(i));
         }
+        Report.flush();
     }
 
     /**
@@ -172,6 +377,14 @@ public abstract class BaseDataCollector<T extends BaseDataSet> {
      */
     protected abstract void saveData();
 
+    /**
+     * Prints the estimated memory of the collected data and the dictionaries to the {@link Report#sink()}.
+     */
+    protected void printMemory() {
+        memory.print();
+        Report.flush();
+    }
+
     /**
      * Simply removes all unsaved collected data.
      * May be overridden to for example add extra validation.
@@ -227,7 +440,7 @@ public abstract class BaseDataCollector<T extends BaseDataSet> {
      * Exits the loop in the {@link #collect()} method, exiting the analyzer.
      */
     protected void exit() {
-        this.saveData();
+        this.save();
         this.running = false;
     }
 
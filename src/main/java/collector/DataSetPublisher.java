@@ -0,0 +1,107 @@
+package collector;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.SubmissionPublisher;
+import java.util.concurrent.atomic.LongAdder;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Publishes the DataSets accepted by a {@link BaseDataCollector} to subscribers as they arrive, for example analyzers,
+ * stores or exporters processing them in a pipeline. Subscribers receive items according to their requested demand,
+ * items they haven't requested yet are kept in a bounded buffer per subscriber. What happens when the buffer of a
+ * subscriber is full is decided by the {@link OverflowPolicy}.
+ * <br>
+ * Subscribers are called asynchronously by the Executor. A subscriber only receives the DataSets published after it
+ * subscribed. Closing the publisher completes all subscribers after they received the buffered DataSets.
+ *
+ * @param <T> Type of published DataSets.
+ */
+public class DataSetPublisher<T> implements Flow.Publisher<T>, AutoCloseable {
+
+    /**
+     * What to do with a DataSet if the buffer of a subscriber is full.
+     */
+    public enum OverflowPolicy {
+        /**
+         * Wait until the subscriber requested more DataSets, which blocks collecting.
+         */
+        BLOCK,
+        /**
+         * Don't publish the DataSet to that subscriber, counted by {@link #dropped()}.
+         */
+        DROP
+    }
+
+    private final SubmissionPublisher<T> publisher;
+    private final OverflowPolicy policy;
+    private final LongAdder dropped = new LongAdder();
+
+    /**
+     * @param bufferSize The maximal number of buffered DataSets per subscriber, rounded up to a power of two.
+     * @param policy     What to do if the buffer of a subscriber is full.
+     * @param executor   Executor calling the subscribers.
+     */
+    public DataSetPublisher(int bufferSize, OverflowPolicy policy, Executor executor) {
+        if (bufferSize < 1) throw new IllegalArgumentException("bufferSize needs to be positive");
+        this.policy = requireNonNull(policy);
+        publisher = new SubmissionPublisher<>(requireNonNull(executor), bufferSize);
+    }
+
+    /**
+     * Creates a publisher calling the subscribers with the common ForkJoinPool.
+     */
+    public DataSetPublisher(int bufferSize, OverflowPolicy policy) {
+        this(bufferSize, policy, ForkJoinPool.commonPool());
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super T> subscriber) {
+        publisher.subscribe(subscriber);
+    }
+
+    /**
+     * Publishes the DataSet to all current subscribers according to the overflow policy.
+     *
+     * @throws IllegalStateException If the publisher is closed.
+     */
+    public void publish(T t) {
+        if (policy == OverflowPolicy.BLOCK) {
+            publisher.submit(t);
+        } else {
+            publisher.offer(t, (_, _) -> {
+                dropped.increment();
+                return false;
+            });
+        }
+    }
+
+    /**
+     * The number of DataSets that weren't published to a subscriber, counted once per subscriber.
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * The number of current subscribers.
+     */
+    public int subscribers() {
+        return publisher.getNumberOfSubscribers();
+    }
+
+    public boolean isClosed() {
+        return publisher.isClosed();
+    }
+
+    /**
+     * Completes all subscribers once they received the buffered DataSets. Publishing afterwards fails.
+     */
+    @Override
+    public void close() {
+        publisher.close();
+    }
+
+}
@@ -4,6 +4,10 @@ import dataset.MapDataSet;
 
 import java.util.Map;
 
+/**
+ * Collector of {@link MapDataSet}s storing the answers under the keys of the Questions. The codes of values with a
+ * dictionary are stored in the DataSets, see {@link #dictionaryCodes(Map)}.
+ */
 public abstract class MapDataCollector extends BaseDataCollector<MapDataSet> {
 
     protected MapDataCollector() {
@@ -12,7 +16,7 @@ public abstract class MapDataCollector extends BaseDataCollector<MapDataSet> {
 
     @Override
     protected MapDataSet mapToDataset(Map<String, Object> map) {
-        return new MapDataSet(currMetadata, map);
+        return new MapDataSet(currMetadata, map, dictionaryCodes(map));
     }
 
 }
@@ -4,6 +4,7 @@ import Utils.StringUtils;
 import collector.functions.EmptyIfEmptyBiFunction;
 import collector.functions.NormalizerBiConsumer;
 import collector.functions.ThrowingFunction;
+import dataset.StringDictionary;
 import exceptions.InvalidInputFormatException;
 
 import java.util.Arrays;
@@ -61,6 +62,7 @@ public record Question(
         protected boolean multiline = false;
         protected String conditionPrompt;
         private boolean allowPreset = true;
+        private StringDictionary dictionary;
 
         protected Builder(final String key, final String prompt) {
             this.key = key;
@@ -88,6 +90,15 @@ public record Question(
             return this;
         }
 
+        /**
+         * Replaces the String stored under the key by its canonical instance from the dictionary after normalizing,
+         * so repeating answers are stored only once. Other values, like null, are stored unchanged.
+         */
+        public Builder dictionary(final StringDictionary dictionary) {
+            this.dictionary = requireNonNull(dictionary);
+            return this;
+        }
+
         public Builder dontAllowPreset() {
             allowPreset = false;
             return this;
@@ -182,6 +193,15 @@ public record Question(
         }
 
         public Question build() {
+            NormalizerBiConsumer normalizer = this.normalizer;
+            if (dictionary != null) {
+                final NormalizerBiConsumer base = normalizer != null ? normalizer : (answer, map) -> map.put(key, answer);
+                final StringDictionary dictionary = this.dictionary;
+                normalizer = (answer, map) -> {
+                    base.accept(answer, map);
+                    if (map.get(key) instanceof String value) map.put(key, dictionary.intern(value));
+                };
+            }
             return new Question(
                     key,
                     conditionPrompt == null ? prompt : prompt + lineSeparator() + conditionPrompt,
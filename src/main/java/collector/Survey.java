@@ -6,7 +6,7 @@ import java.util.*;
 
 import static Utils.InputUtils.input;
 import static Utils.InputUtils.multilineInput;
-import static java.lang.IO.println;
+import static report.Report.println;
 import static java.lang.System.lineSeparator;
 
 /**
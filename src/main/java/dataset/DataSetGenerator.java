@@ -0,0 +1,242 @@
+package dataset;
+
+import java.util.*;
+import java.util.function.BiFunction;
+import java.util.function.IntFunction;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Deterministic generator for synthetic DataSets, intended for benchmarks and stress tests.
+ * <br>
+ * Every generated DataSet is built from a key-value Map with one entry per defined field, which is then passed to the
+ * mapper (like {@link collector.BaseDataCollector} does with the answers of a survey). Each field has a cardinality
+ * (number of distinct values), a skew following a Zipf distribution (0 for uniformly distributed values) and a ratio of
+ * null values. All DataSets share the same {@link Metadata}.
+ * <br>
+ * DataSets are generated lazily, so iterating over or streaming millions of DataSets never holds more than the current
+ * DataSet in memory. Generators with the same definition and seed always produce the same DataSets in the same order,
+ * each call of {@link #iterator()} or {@link #stream()} starts from the beginning again.
+ *
+ * @param <T> Type of DataSets to generate.
+ */
+public class DataSetGenerator<T extends BaseDataSet> implements Iterable<T> {
+
+    private final long seed;
+    private final long size;
+    private final Metadata metadata;
+    private final List<Field> fields;
+    private final BiFunction<Metadata, Map<String, Object>, T> mapper;
+
+    private DataSetGenerator(Builder<T> builder) {
+        seed = builder.seed;
+        size = builder.size;
+        metadata = builder.metadata;
+        fields = List.copyOf(builder.fields);
+        mapper = builder.mapper;
+    }
+
+    /**
+     * Starts building a generator for {@link MapDataSet}s, where each field is one key in the Map.
+     */
+    public static Builder<MapDataSet> mapDataSets() {
+        return new Builder<>(MapDataSet::new);
+    }
+
+    /**
+     * Starts building a generator for any type of DataSet.
+     *
+     * @param mapper Function creating the DataSet from the shared {@link Metadata} and the generated key-value Map.
+     */
+    public static <T extends BaseDataSet> Builder<T> dataSets(BiFunction<Metadata, Map<String, Object>, T> mapper) {
+        return new Builder<>(mapper);
+    }
+
+    /**
+     * The total number of DataSets this generates.
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Creates an Iterator lazily generating all DataSets, starting with the first one.
+     */
+    @Override
+    public Iterator<T> iterator() {
+        return new Iterator<>() {
+            private final SplittableRandom random = new SplittableRandom(seed);
+            private long generated = 0;
+
+            @Override
+            public boolean hasNext() {
+                return generated < size;
+            }
+
+            @Override
+            public T next() {
+                if (!hasNext()) throw new NoSuchElementException();
+                generated++;
+                Map<String, Object> map = new HashMap<>();
+                for (Field field : fields) {
+                    map.put(field.key, field.next(random));
+                }
+                return mapper.apply(metadata, map);
+            }
+        };
+    }
+
+    /**
+     * Creates a sequential Stream lazily generating all DataSets, starting with the first one.
+     */
+    public Stream<T> stream() {
+        return StreamSupport.stream(
+                Spliterators.spliterator(iterator(), size, Spliterator.ORDERED | Spliterator.NONNULL),
+                false
+        );
+    }
+
+    /**
+     * Generates all DataSets into a List. Only use this for amounts of DataSets that comfortably fit into memory,
+     * for example to pass them to a {@link analyzer.BaseDataAnalyzer}.
+     */
+    public List<T> toList() {
+        if (size > Integer.MAX_VALUE) throw new IllegalStateException("Too many DataSets to fit into a List");
+        List<T> list = new ArrayList<>((int) size);
+        forEach(list::add);
+        return list;
+    }
+
+    private static final class Field {
+        private final String key;
+        private final int cardinality;
+        private final double nullRatio;
+        private final IntFunction<?> values;
+        // cumulative probabilities of the Zipf distribution, null if values are uniformly distributed
+        private final double[] cdf;
+
+        private Field(String key, int cardinality, double skew, double nullRatio, IntFunction<?> values) {
+            this.key = key;
+            this.cardinality = cardinality;
+            this.nullRatio = nullRatio;
+            this.values = values;
+            if (skew == 0) {
+                cdf = null;
+                return;
+            }
+            cdf = new double[cardinality];
+            double sum = 0;
+            for (int i = 0; i < cardinality; i++) {
+                sum += 1 / Math.pow(i + 1, skew);
+                cdf[i] = sum;
+            }
+            for (int i = 0; i < cardinality; i++) {
+                cdf[i] /= sum;
+            }
+        }
+
+        private Object next(SplittableRandom random) {
+            if (nullRatio > 0 && random.nextDouble() < nullRatio) return null;
+            if (cdf == null) return values.apply(random.nextInt(cardinality));
+            int index = Arrays.binarySearch(cdf, random.nextDouble());
+            // binarySearch returns (-insertionPoint - 1) for values not contained
+            if (index < 0) index = -index - 1;
+            return values.apply(Math.min(index, cardinality - 1));
+        }
+    }
+
+    /**
+     * Builder for creating {@link DataSetGenerator} instances.
+     *
+     * @param <T> Type of DataSets the generator creates.
+     */
+    public static class Builder<T extends BaseDataSet> {
+        private final BiFunction<Metadata, Map<String, Object>, T> mapper;
+        private final List<Field> fields = new ArrayList<>();
+        private final Set<String> keys = new HashSet<>();
+        private long seed = 0;
+        private long size = 0;
+        private Metadata metadata;
+
+        protected Builder(BiFunction<Metadata, Map<String, Object>, T> mapper) {
+            this.mapper = requireNonNull(mapper);
+        }
+
+        /**
+         * Sets the seed for the random values. Defaults to 0.
+         */
+        public Builder<T> seed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets the number of DataSets to generate.
+         */
+        public Builder<T> size(long size) {
+            if (size < 0) throw new IllegalArgumentException("Size may not be negative");
+            this.size = size;
+            return this;
+        }
+
+        /**
+         * Sets the {@link Metadata} shared by all generated DataSets. Defaults to null.
+         */
+        public Builder<T> metadata(Metadata metadata) {
+            this.metadata = metadata;
+            return this;
+        }
+
+        /**
+         * Adds a field with uniformly distributed String values like "key 1", "key 2"... and no null values.
+         */
+        public Builder<T> field(String key, int cardinality) {
+            return field(key, cardinality, 0, 0);
+        }
+
+        /**
+         * Adds a field with String values like "key 1", "key 2"... where "key 1" is the most frequent value.
+         *
+         * @param skew      Exponent of the Zipf distribution of the values, 0 for uniformly distributed values.
+         * @param nullRatio Chance for the value to be null.
+         */
+        public Builder<T> field(String key, int cardinality, double skew, double nullRatio) {
+            return field(key, cardinality, skew, nullRatio, i -> key + " " + (i + 1));
+        }
+
+        /**
+         * Adds a field with custom values.
+         *
+         * @param cardinality Number of distinct values, values will be created for indices from 0 to cardinality - 1.
+         * @param skew        Exponent of the Zipf distribution of the values, 0 for uniformly distributed values.
+         *                    Lower indices are more frequent.
+         * @param nullRatio   Chance for the value to be null.
+         * @param values      Function creating the value for an index.
+         */
+        public Builder<T> field(String key, int cardinality, double skew, double nullRatio, IntFunction<?> values) {
+            requireNonNull(key);
+            requireNonNull(values);
+            if (!keys.add(key)) throw new IllegalArgumentException("Field " + key + " already exists");
+            if (cardinality < 1) throw new IllegalArgumentException("Cardinality needs to be positive");
+            if (skew < 0) throw new IllegalArgumentException("Skew may not be negative");
+            if (nullRatio < 0 || nullRatio > 1) throw new IllegalArgumentException("Null ratio needs to be between 0 and 1");
+            fields.add(new Field(key, cardinality, skew, nullRatio, values));
+            return this;
+        }
+
+        /**
+         * Adds a field with uniformly distributed Integer values from min to max (both inclusive) and no null values.
+         */
+        public Builder<T> intField(String key, int min, int max) {
+            if (max < min) throw new IllegalArgumentException("max needs to be at least min");
+            return field(key, max - min + 1, 0, 0, i -> min + i);
+        }
+
+        public DataSetGenerator<T> build() {
+            return new DataSetGenerator<>(this);
+        }
+    }
+
+}
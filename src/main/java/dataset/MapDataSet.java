@@ -4,21 +4,45 @@ import java.util.Map;
 
 /**
  * A simple implementation of {@link BaseDataSet} where all values are stored in a key-value Map where the keys are Strings.
+ * Values from a {@link StringDictionary} can additionally be stored as their codes, so they can be grouped without
+ * looking them up, see {@link analyzer.GroupingDefinition#ofDictionary(String, StringDictionary)}.
  */
 public class MapDataSet extends BaseDataSet {
 
     protected final Map<String, Object> map;
 
+    protected final Map<String, Integer> codes;
+
     public MapDataSet(Map<String, Object> map) {
-        this.map = map;
+        this(null, map);
     }
 
     public MapDataSet(Metadata metadata, Map<String, Object> map) {
+        this(metadata, map, Map.of());
+    }
+
+    /**
+     * @param codes The codes of values of the map in their dictionaries by key.
+     */
+    public MapDataSet(Metadata metadata, Map<String, Object> map, Map<String, Integer> codes) {
         super(metadata);
         this.map = map;
+        this.codes = Map.copyOf(codes);
     }
 
     public Map<String, Object> getMap() {
         return map;
     }
+
+    /**
+     * Returns the code of the value under the key in the dictionary. Uses the stored code if there is one, which needs
+     * to be from the same dictionary, otherwise looks up the value.
+     *
+     * @return The code, or -1 if the value is null or not in the dictionary.
+     */
+    public int code(String key, StringDictionary dictionary) {
+        Integer code = codes.get(key);
+        if (code != null) return code;
+        return map.get(key) instanceof String value ? dictionary.codeOf(value) : -1;
+    }
 }
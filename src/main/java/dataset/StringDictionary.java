@@ -0,0 +1,210 @@
+package dataset;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Dictionary of the values of a String field, assigning each distinct normalized value a dense int code in the order
+ * the values were first added. Values that repeat heavily, like names or answers to options, are stored only once when
+ * DataSets keep the canonical instance returned by {@link #intern(String)}, and can be grouped by their code with
+ * {@link analyzer.GroupingDefinition#ofDictionary}.
+ * <br>
+ * The dictionary should be saved together with the data, so codes stay the same when the data is loaded again.
+ * Adding values is synchronized, looking up values and codes is possible from multiple threads without locking.
+ */
+public class StringDictionary {
+
+    private final UnaryOperator<String> normalizer;
+    private final Map<String, Integer> codes = new ConcurrentHashMap<>();
+    private volatile String[] values = new String[16];
+    private volatile int size = 0;
+
+    /**
+     * @param normalizer Turns each value into its canonical form before it is added or looked up. Needs to return
+     *                   canonical forms unchanged, so canonical values can be looked up without normalizing them.
+     */
+    public StringDictionary(UnaryOperator<String> normalizer) {
+        this.normalizer = requireNonNull(normalizer);
+    }
+
+    /**
+     * Creates a dictionary which strips the values.
+     */
+    public StringDictionary() {
+        this(String::strip);
+    }
+
+    /**
+     * Creates a dictionary of the given options with the codes in the order of the options. Values that equal an option
+     * ignoring case are normalized to the option.
+     */
+    public static StringDictionary ofOptions(String... options) {
+        Map<String, String> byLowerCase = new ConcurrentHashMap<>();
+        for (String option : options) byLowerCase.putIfAbsent(option.toLowerCase(), option);
+        StringDictionary dictionary = new StringDictionary(s -> {
+            String stripped = s.strip();
+            return byLowerCase.getOrDefault(stripped.toLowerCase(), stripped);
+        });
+        for (String option : options) dictionary.code(option);
+        return dictionary;
+    }
+
+    /**
+     * Returns the code of the normalized value, adding it if it isn't in the dictionary yet.
+     *
+     * @throws NullPointerException If the value is null.
+     */
+    public int code(String value) {
+        String normalized = normalizer.apply(requireNonNull(value));
+        Integer code = codes.get(normalized);
+        if (code != null) return code;
+        synchronized (this) {
+            code = codes.get(normalized);
+            return code != null ? code : append(normalized);
+        }
+    }
+
+    // needs to be called while synchronized on this
+    private int append(String normalized) {
+        if (size == values.length) values = Arrays.copyOf(values, size * 2);
+        values[size] = normalized;
+        // publish the value before its code
+        int code = size++;
+        codes.put(normalized, code);
+        return code;
+    }
+
+    /**
+     * Returns the canonical instance of the normalized value, adding it if it isn't in the dictionary yet.
+     *
+     * @return The canonical instance, or null if the value is null.
+     */
+    public String intern(String value) {
+        if (value == null) return null;
+        return value(code(value));
+    }
+
+    /**
+     * Returns the code of the normalized value without adding it.
+     *
+     * @return The code, or -1 if the value is null or not in the dictionary.
+     */
+    public int codeOf(String value) {
+        if (value == null) return -1;
+        // canonical values, like those returned by intern, are found without normalizing them
+        Integer code = codes.get(value);
+        if (code == null) code = codes.get(normalizer.apply(value));
+        return code == null ? -1 : code;
+    }
+
+    /**
+     * Returns the value with the given code.
+     *
+     * @throws IndexOutOfBoundsException If no value has the code.
+     */
+    public String value(int code) {
+        int n = size;
+        return values[Objects.checkIndex(code, n)];
+    }
+
+    /**
+     * The number of values, codes are between 0 and size - 1.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * All values in the order of their codes.
+     */
+    public List<String> values() {
+        int n = size;
+        return List.of(Arrays.copyOf(values, n));
+    }
+
+    /**
+     * Writes all values to the file in the order of their codes, one per line, replacing the file if it exists.
+     *
+     * @throws UncheckedIOException If writing fails.
+     */
+    public void save(Path file) {
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            for (String value : values()) {
+                writer.write(escape(value));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Adds the values of a file written by {@link #save(Path)} in their order, so each value keeps its saved code. The
+     * values already in this dictionary, like the options of {@link #ofOptions(String...)}, need to be the first saved
+     * values.
+     *
+     * @throws UncheckedIOException     If reading fails.
+     * @throws IllegalArgumentException If the saved values don't start with the values of this dictionary.
+     */
+    public synchronized void load(Path file) {
+        int existing = size;
+        int position = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                // the values were normalized before saving
+                String value = unescape(line);
+                Integer code = codes.get(value);
+                if (position < existing ? code == null || code != position : code != null) {
+                    throw new IllegalArgumentException("Saved value " + value + " doesn't match the code " + position);
+                }
+                if (position >= existing) append(value);
+                position++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (position < existing) throw new IllegalArgumentException("File " + file + " is missing values");
+    }
+
+    private static String escape(String value) {
+        return value.replace("\\", "\\\\").replace("\n", "\\n").replace("\r", "\\r");
+    }
+
+    private static String unescape(String line) {
+        StringBuilder builder = new StringBuilder(line.length());
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c != '\\' || i + 1 == line.length()) {
+                builder.append(c);
+                continue;
+            }
+            char next = line.charAt(++i);
+            builder.append(switch (next) {
+                case 'n' -> '\n';
+                case 'r' -> '\r';
+                default -> next;
+            });
+        }
+        return builder.toString();
+    }
+
+    @Override
+    public String toString() {
+        return "StringDictionary" + values();
+    }
+
+}
@@ -0,0 +1,50 @@
+package dataset;
+
+import java.time.Instant;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link Metadata} with the point in time the DataSet was collected, allowing to analyze DataSets by time, for example
+ * with {@link analyzer.TimeWindows}. Can be extended like any other Metadata, subclasses with own fields should
+ * override {@link #withTimestamp(Instant)}.
+ * <br>
+ * A {@link collector.BaseDataCollector} shares its Metadata between the DataSets it creates, so it stamps each DataSet
+ * accepted by {@link collector.BaseDataCollector#addData()} with a copy of the Metadata with the current time.
+ */
+public class TimestampedMetadata extends Metadata {
+
+    private final Instant timestamp;
+
+    /**
+     * Creates Metadata with the current time as timestamp, which collectors replace with the time each DataSet is
+     * added.
+     */
+    public TimestampedMetadata() {
+        this(Instant.now());
+    }
+
+    public TimestampedMetadata(Instant timestamp) {
+        this.timestamp = requireNonNull(timestamp);
+    }
+
+    public Instant getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Returns a copy of this Metadata with the timestamp. Subclasses with own fields need to override this to copy
+     * them, otherwise the copy is a plain TimestampedMetadata.
+     */
+    public TimestampedMetadata withTimestamp(Instant timestamp) {
+        return new TimestampedMetadata(timestamp);
+    }
+
+    /**
+     * Returns the timestamp of the DataSet, or null if its Metadata isn't a TimestampedMetadata.
+     */
+    public static Instant timestampOf(BaseDataSet dataSet) {
+        return dataSet.getMetadata() instanceof TimestampedMetadata m ? m.timestamp : null;
+    }
+
+}
@@ -0,0 +1,27 @@
+package exceptions;
+
+import java.io.Serial;
+
+/**
+ * Exception thrown by {@link analyzer.QueryCompiler} when a query can't be compiled.
+ */
+public class QuerySyntaxException extends IllegalArgumentException {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final int position;
+
+    public QuerySyntaxException(String message, int position) {
+        super(message + " at position " + position);
+        this.position = position;
+    }
+
+    /**
+     * The position in the query where the error was found, starting at 0.
+     */
+    public int getPosition() {
+        return position;
+    }
+
+}
@@ -0,0 +1,272 @@
+package memory;
+
+import dataset.BaseDataSet;
+import report.Report;
+
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import static memory.MemoryEstimator.format;
+import static report.Report.println;
+
+/**
+ * Accounts for the memory retained by named sources, like the collected data or cached group maps, using the
+ * estimates of {@link MemoryEstimator}. The estimates are calculated whenever they are queried, either directly, by an
+ * action printing them or via JMX after {@link #registerMBean(String)}.
+ * <br>
+ * Thresholds can be set for each source, for the group maps of each Question and for the total. A warning is printed
+ * whenever {@link #check()} finds a crossed threshold, periodically between actions with {@link #checkAfterAction()},
+ * and while grouping DataSets inside {@link #watch(Runnable)}, so
+ * an unsafe grouping is noticed before the heap runs out.
+ */
+public class MemoryAccounting implements MemoryAccountingMXBean {
+
+    /**
+     * Name of the threshold for the group maps of each Question.
+     */
+    public static final String GROUPS = "groups";
+
+    /**
+     * The default number of actions after which {@link #checkAfterAction()} checks the thresholds again.
+     */
+    public static final int DEFAULT_CHECK_INTERVAL = 10;
+
+    private static final String GROUPS_PREFIX = GROUPS + ": ";
+    private static final ThreadLocal<MemoryAccounting> CURRENT = new ThreadLocal<>();
+
+    private final Map<String, Source> sources = new LinkedHashMap<>();
+    private final Map<String, Long> groups = new LinkedHashMap<>();
+    private final Map<String, Long> thresholds = new HashMap<>();
+    private final Set<String> warned = new HashSet<>();
+    private long totalThreshold = -1;
+    private int checkInterval = DEFAULT_CHECK_INTERVAL;
+    private long actions;
+    private ObjectName objectName;
+
+    /**
+     * Tracks the memory retained by the object returned by the supplier, which is called for every estimate. Replaces
+     * an existing source with the same name.
+     */
+    public void track(String name, Supplier<?> root) {
+        track(name, root, _ -> false);
+    }
+
+    /**
+     * Like {@link #track(String, Supplier)}, without counting shared objects that are retained by another source.
+     *
+     * @param shared Whether an object is shared, see {@link MemoryEstimator#estimate(Object, Predicate)}.
+     */
+    public synchronized void track(String name, Supplier<?> root, Predicate<Object> shared) {
+        sources.put(Objects.requireNonNull(name), new Source(Objects.requireNonNull(root), Objects.requireNonNull(shared)));
+    }
+
+    /**
+     * Sets the threshold for the source with the name, or for the group maps of each Question with {@link #GROUPS}.
+     *
+     * @param bytes The threshold in bytes, -1 to remove it.
+     */
+    public synchronized void setThreshold(String name, long bytes) {
+        if (bytes < 0) thresholds.remove(name);
+        else thresholds.put(name, bytes);
+    }
+
+    @Override
+    public synchronized long getTotalThreshold() {
+        return totalThreshold;
+    }
+
+    @Override
+    public synchronized void setTotalThreshold(long bytes) {
+        totalThreshold = bytes < 0 ? -1 : bytes;
+    }
+
+    @Override
+    public synchronized Map<String, Long> getEstimates() {
+        Map<String, Long> estimates = new LinkedHashMap<>();
+        sources.forEach((name, source) -> estimates.put(name, source.estimate(source.root.get())));
+        groups.forEach((question, bytes) -> estimates.put(GROUPS_PREFIX + question, bytes));
+        return estimates;
+    }
+
+    @Override
+    public long getTotalBytes() {
+        return getEstimates().values().stream().mapToLong(Long::longValue).sum();
+    }
+
+    @Override
+    public synchronized List<String> getWarnings() {
+        List<String> warnings = new ArrayList<>();
+        Map<String, Long> estimates = getEstimates();
+        estimates.forEach((name, bytes) -> {
+            Long threshold = thresholds.get(name.startsWith(GROUPS_PREFIX) ? GROUPS : name);
+            if (threshold != null && bytes > threshold) warnings.add(warning(name, bytes, threshold));
+        });
+        long total = estimates.values().stream().mapToLong(Long::longValue).sum();
+        if (totalThreshold >= 0 && total > totalThreshold) warnings.add(warning("Total", total, totalThreshold));
+        return warnings;
+    }
+
+    /**
+     * Prints a warning for each crossed threshold.
+     *
+     * @return The warnings.
+     */
+    public List<String> check() {
+        List<String> warnings = getWarnings();
+        warnings.forEach(Report::println);
+        return warnings;
+    }
+
+    /**
+     * Sets after how many actions {@link #checkAfterAction()} checks the thresholds again.
+     *
+     * @param actions The interval, 1 to check after every action.
+     */
+    public synchronized void setCheckInterval(int actions) {
+        if (actions < 1) throw new IllegalArgumentException("actions needs to be positive");
+        checkInterval = actions;
+        this.actions = 0;
+    }
+
+    /**
+     * Called after every action of a collector or analyzer. Since every check walks all tracked objects, the
+     * thresholds are only checked after the first action and then after every {@link #setCheckInterval(int)}
+     * actions, and only if any threshold is set. Group maps are still checked while grouping.
+     *
+     * @return The warnings, empty if nothing was checked.
+     */
+    public List<String> checkAfterAction() {
+        synchronized (this) {
+            if (!hasThresholds() || actions++ % checkInterval != 0) return List.of();
+        }
+        return check();
+    }
+
+    /**
+     * Whether any threshold is set, so {@link #check()} can find warnings.
+     */
+    public synchronized boolean hasThresholds() {
+        return !thresholds.isEmpty() || totalThreshold >= 0;
+    }
+
+    /**
+     * Prints the estimate of each source, the bytes per DataSet for sources containing DataSets, the total and the
+     * warnings.
+     */
+    public synchronized void print() {
+        println("Estimated memory:");
+        long total = 0;
+        for (Map.Entry<String, Source> source : sources.entrySet()) {
+            Object root = source.getValue().root.get();
+            long bytes = source.getValue().estimate(root);
+            total += bytes;
+            String perDataSet = "";
+            if (root instanceof Collection<?> c && !c.isEmpty() && c.iterator().next() instanceof BaseDataSet) {
+                perDataSet = " (" + format(bytes / c.size()) + " per DataSet)";
+            }
+            println(source.getKey() + ": " + format(bytes) + perDataSet);
+        }
+        for (Map.Entry<String, Long> group : groups.entrySet()) {
+            total += group.getValue();
+            println(GROUPS_PREFIX + group.getKey() + ": " + format(group.getValue()));
+        }
+        println("Total: " + format(total));
+        check();
+    }
+
+    /**
+     * Runs the action with this as the accounting of the current thread, recording the group maps created by
+     * {@link analyzer.Survey} in the meantime.
+     */
+    public void watch(Runnable action) {
+        MemoryAccounting previous = CURRENT.get();
+        CURRENT.set(this);
+        synchronized (this) {
+            warned.clear();
+        }
+        try {
+            action.run();
+        } finally {
+            if (previous == null) CURRENT.remove();
+            else CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Records the estimated bytes of a group map of the Question if the current thread is inside
+     * {@link #watch(Runnable)}, printing a warning the first time the threshold for group maps is crossed. The
+     * DataSets in the groups aren't counted, they are retained by the data anyway.
+     *
+     * @param groups Map of the combined results of the grouping functions to their group.
+     * @param keys   The number of grouping functions.
+     */
+    public static void recordGroups(String question, Map<List<?>, ?> groups, int keys) {
+        MemoryAccounting accounting = CURRENT.get();
+        if (accounting == null) return;
+        long bytes = MemoryEstimator.groupMap(groups.size(), keys);
+        for (Object group : groups.values()) {
+            bytes += MemoryEstimator.estimate(group, o -> o instanceof BaseDataSet);
+        }
+        synchronized (accounting) {
+            accounting.groups.put(question, bytes);
+            Long threshold = accounting.thresholds.get(GROUPS);
+            if (threshold != null && bytes > threshold && accounting.warned.add(question)) {
+                println(warning(GROUPS_PREFIX + question, bytes, threshold));
+            }
+        }
+    }
+
+    /**
+     * Registers this with the platform MBeanServer as DataCollecting:type=MemoryAccounting,name=[name], replacing a
+     * bean registered with the same name before.
+     *
+     * @throws IllegalStateException If registering fails.
+     */
+    public synchronized ObjectName registerMBean(String name) {
+        unregisterMBean();
+        try {
+            ObjectName objectName = new ObjectName("DataCollecting", new Hashtable<>(Map.of(
+                    "type", "MemoryAccounting", "name", ObjectName.quote(name)
+            )));
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(objectName)) server.unregisterMBean(objectName);
+            server.registerMBean(this, objectName);
+            this.objectName = objectName;
+            return objectName;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register MBean " + name, e);
+        }
+    }
+
+    /**
+     * Unregisters this from the platform MBeanServer if it was registered.
+     */
+    public synchronized void unregisterMBean() {
+        if (objectName == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+        } catch (InstanceNotFoundException _) {
+            // already replaced by another bean
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to unregister MBean " + objectName, e);
+        }
+        objectName = null;
+    }
+
+    private record Source(Supplier<?> root, Predicate<Object> shared) {
+        long estimate(Object root) {
+            return MemoryEstimator.estimate(root, shared);
+        }
+    }
+
+    private static String warning(String name, long bytes, long threshold) {
+        return "Warning: " + name + " uses about " + format(bytes) + ", more than the threshold of " + format(threshold);
+    }
+
+}
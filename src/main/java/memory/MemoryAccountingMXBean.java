@@ -0,0 +1,33 @@
+package memory;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Management interface of {@link MemoryAccounting}, for querying the estimates via JMX, for example with JConsole.
+ */
+public interface MemoryAccountingMXBean {
+
+    /**
+     * The estimated bytes of each tracked source and of the last group maps of each Question.
+     */
+    Map<String, Long> getEstimates();
+
+    /**
+     * The sum of all estimates.
+     */
+    long getTotalBytes();
+
+    /**
+     * The threshold of the sum of all estimates in bytes, -1 if there is none.
+     */
+    long getTotalThreshold();
+
+    void setTotalThreshold(long bytes);
+
+    /**
+     * Returns a warning for each threshold that is crossed.
+     */
+    List<String> getWarnings();
+
+}
@@ -0,0 +1,218 @@
+package memory;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import static Utils.Utils.roundToString;
+
+/**
+ * Estimates the memory retained by objects with the layout of a typical 64-bit HotSpot JVM: 12 byte object headers,
+ * compressed references of 4 bytes if the maximal heap is smaller than 32 GiB and objects aligned to 8 bytes.
+ * <br>
+ * The estimate follows all references reachable from the root, counting each object once. Strings, boxed primitives,
+ * arrays and the common collections of java.util are estimated by their known layout, other objects by the sizes of
+ * their fields. Fields of classes that can't be accessed by reflection aren't followed. Classes and enum constants
+ * are shared by the whole JVM and aren't counted.
+ */
+public final class MemoryEstimator {
+
+    private static final int HEADER = 12;
+    private static final int ARRAY_HEADER = 16;
+    private static final int ALIGNMENT = 8;
+    private static final int REFERENCE = Runtime.getRuntime().maxMemory() < 32L << 30 ? 4 : 8;
+    // fields of HashMap and its Nodes
+    private static final long HASH_MAP = align(HEADER + 4L * REFERENCE + 4 * 4);
+    private static final long HASH_MAP_NODE = align(HEADER + 4 + 3L * REFERENCE);
+    private static final long LINKED_HASH_MAP_NODE = align(HASH_MAP_NODE + 2L * REFERENCE);
+
+    private static final ClassValue<Layout> LAYOUTS = new ClassValue<>() {
+        @Override
+        protected Layout computeValue(Class<?> type) {
+            return Layout.of(type);
+        }
+    };
+
+    /**
+     * Estimates the bytes retained by the object and everything reachable from it.
+     */
+    public static long estimate(Object root) {
+        return estimate(root, _ -> false);
+    }
+
+    /**
+     * Estimates the bytes retained by the object and everything reachable from it, except for shared objects, which
+     * are retained elsewhere anyway. Only the references to shared objects are counted.
+     *
+     * @param shared Whether an object other than the root is shared.
+     */
+    public static long estimate(Object root, Predicate<Object> shared) {
+        if (root == null) return 0;
+        Set<Object> visited = Collections.newSetFromMap(new IdentityHashMap<>());
+        ArrayDeque<Object> pending = new ArrayDeque<>();
+        visited.add(root);
+        pending.push(root);
+        long bytes = 0;
+        while (!pending.isEmpty()) {
+            Object object = pending.pop();
+            bytes += shallow(object, child -> {
+                if (child != null && !shared.test(child) && visited.add(child)) pending.push(child);
+            });
+        }
+        return bytes;
+    }
+
+    /**
+     * Estimates the bytes of a Map of groups as created when grouping DataSets, without the groups themselves.
+     *
+     * @param groups The number of groups.
+     * @param keys   The number of keys per group.
+     */
+    public static long groupMap(int groups, int keys) {
+        return hashMap(groups, false) + (long) groups * (align(HEADER + REFERENCE) + array(keys, REFERENCE));
+    }
+
+    /**
+     * Formats the bytes with a binary unit, like "1.5 MiB".
+     */
+    public static String format(long bytes) {
+        String[] units = {"B", "KiB", "MiB", "GiB", "TiB"};
+        double value = bytes;
+        int unit = 0;
+        while (Math.abs(value) >= 1024 && unit < units.length - 1) {
+            value /= 1024;
+            unit++;
+        }
+        return roundToString(value, 1) + " " + units[unit];
+    }
+
+    /**
+     * Estimates the size of the object itself, passing each referenced object to the consumer.
+     */
+    private static long shallow(Object object, Consumer<Object> references) {
+        Class<?> type = object.getClass();
+        if (object instanceof Class<?> || type.isEnum() || object instanceof Enum<?>) return 0;
+        if (object instanceof String s) return align(HEADER + 4 + 2 + REFERENCE) + array(s.length(), latin1(s) ? 1 : 2);
+        if (type.isArray()) {
+            Class<?> component = type.getComponentType();
+            int length = Array.getLength(object);
+            if (component.isPrimitive()) return array(length, primitiveSize(component));
+            for (Object element : (Object[]) object) references.accept(element);
+            return array(length, REFERENCE);
+        }
+        Layout layout = LAYOUTS.get(type);
+        Class<?> base = javaSuperclass(type);
+        layout.references.forEach(field -> references.accept(get(field, object)));
+        if (base == Object.class || !(object instanceof Map<?, ?> || object instanceof Collection<?>)) return layout.size;
+
+        // the fields of java.util can't be followed, subclasses only add their own fields
+        long extra = layout.size - LAYOUTS.get(base).size;
+        if (object instanceof Map<?, ?> map) {
+            map.forEach((k, v) -> {
+                references.accept(k);
+                references.accept(v);
+            });
+            return extra + mapSize(map.size(), base);
+        }
+        Collection<?> collection = (Collection<?>) object;
+        collection.forEach(references);
+        return extra + collectionSize(collection.size(), base);
+    }
+
+    private static Object get(Field field, Object object) {
+        try {
+            return field.get(object);
+        } catch (IllegalAccessException _) {
+            // not followed like inaccessible fields
+            return null;
+        }
+    }
+
+    /**
+     * The class itself or its first superclass from the JDK.
+     */
+    private static Class<?> javaSuperclass(Class<?> type) {
+        Class<?> c = type;
+        while (!c.getName().startsWith("java.")) c = c.getSuperclass();
+        return c;
+    }
+
+    private static long mapSize(int size, Class<?> type) {
+        if (TreeMap.class.isAssignableFrom(type)) return treeMap(size);
+        if (HashMap.class.isAssignableFrom(type)) return hashMap(size, LinkedHashMap.class.isAssignableFrom(type));
+        // other maps are estimated like a HashMap
+        return LAYOUTS.get(type).size + hashMap(size, false) - HASH_MAP;
+    }
+
+    private static long collectionSize(int size, Class<?> type) {
+        if (HashSet.class.isAssignableFrom(type)) {
+            return align(HEADER + REFERENCE) + hashMap(size, LinkedHashSet.class.isAssignableFrom(type));
+        }
+        if (TreeSet.class.isAssignableFrom(type)) return align(HEADER + REFERENCE) + treeMap(size);
+        if (LinkedList.class.isAssignableFrom(type)) return align(HEADER + 2L * REFERENCE + 8) + size * align(HEADER + 3L * REFERENCE);
+        // ArrayList, ArrayDeque, immutable Lists and others are estimated as backed by an array
+        return LAYOUTS.get(type).size + array(size, REFERENCE);
+    }
+
+    private static long treeMap(int size) {
+        return align(HEADER + 4L * REFERENCE + 8) + size * align(HEADER + 5L * REFERENCE + 1);
+    }
+
+    private static long hashMap(int size, boolean linked) {
+        // default load factor of 0.75 and a table with a power of 2 as length
+        long table = size == 0 ? 0 : array(Math.max(16, Integer.highestOneBit(Math.max(1, (int) (size / 0.75f)) * 2 - 1)), REFERENCE);
+        long nodes = (long) size * (linked ? LINKED_HASH_MAP_NODE : HASH_MAP_NODE);
+        return HASH_MAP + (linked ? 2L * REFERENCE + 8 : 0) + table + nodes;
+    }
+
+    private static boolean latin1(String s) {
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) return false;
+        }
+        return true;
+    }
+
+    private static long array(long length, int elementSize) {
+        return align(ARRAY_HEADER + length * elementSize);
+    }
+
+    private static long align(long bytes) {
+        return (bytes + ALIGNMENT - 1) / ALIGNMENT * ALIGNMENT;
+    }
+
+    private static int primitiveSize(Class<?> type) {
+        if (type == long.class || type == double.class) return 8;
+        if (type == int.class || type == float.class) return 4;
+        if (type == short.class || type == char.class) return 2;
+        return 1;
+    }
+
+    /**
+     * Size of the instances of a class and its reference fields that can be followed.
+     */
+    private record Layout(long size, List<Field> references) {
+        static Layout of(Class<?> type) {
+            long size = HEADER;
+            List<Field> references = new ArrayList<>();
+            for (Class<?> c = type; c != null; c = c.getSuperclass()) {
+                for (Field field : c.getDeclaredFields()) {
+                    if (Modifier.isStatic(field.getModifiers())) continue;
+                    if (field.getType().isPrimitive()) {
+                        size += primitiveSize(field.getType());
+                        continue;
+                    }
+                    size += REFERENCE;
+                    if (field.trySetAccessible()) references.add(field);
+                }
+            }
+            return new Layout(align(size), List.copyOf(references));
+        }
+    }
+
+    private MemoryEstimator() {
+    }
+
+}
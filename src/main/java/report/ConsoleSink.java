@@ -0,0 +1,46 @@
+package report;
+
+/**
+ * Sink writing to {@link System#out} with a large buffer, so the console is only written to when the buffer is full
+ * or the sink is flushed. The sink always writes to the stream {@link System#out} refers to when writing, so it follows
+ * {@link System#setOut(java.io.PrintStream)}. Can be shared by multiple threads.
+ */
+public class ConsoleSink implements ReportSink {
+
+    /**
+     * The default number of buffered characters.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final int bufferSize;
+    private final StringBuilder buffer;
+
+    public ConsoleSink() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * @param bufferSize The number of characters after which the buffer is written to the console.
+     */
+    public ConsoleSink(int bufferSize) {
+        if (bufferSize < 1) throw new IllegalArgumentException("bufferSize needs to be positive");
+        this.bufferSize = bufferSize;
+        buffer = new StringBuilder(Math.min(bufferSize, DEFAULT_BUFFER_SIZE));
+    }
+
+    @Override
+    public synchronized void print(Object o) {
+        buffer.append(o);
+        if (buffer.length() >= bufferSize) flush();
+    }
+
+    @Override
+    public synchronized void flush() {
+        if (!buffer.isEmpty()) {
+            System.out.append(buffer);
+            buffer.setLength(0);
+        }
+        System.out.flush();
+    }
+
+}
@@ -0,0 +1,77 @@
+package report;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Sink writing UTF-8 encoded to a file with a large buffer. Existing files are overwritten.
+ * The sink needs to be closed after the report is complete. Can be shared by multiple threads.
+ */
+public class FileSink implements ReportSink {
+
+    /**
+     * The default number of buffered characters.
+     */
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 16;
+
+    private final Writer writer;
+
+    /**
+     * Creates the file or truncates it if it already exists.
+     *
+     * @throws UncheckedIOException If the file can't be opened.
+     */
+    public FileSink(Path file) {
+        this(file, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Creates the file or truncates it if it already exists.
+     *
+     * @param bufferSize The number of characters after which the buffer is written to the file.
+     * @throws UncheckedIOException If the file can't be opened.
+     */
+    public FileSink(Path file, int bufferSize) {
+        try {
+            writer = new BufferedWriter(
+                    new OutputStreamWriter(Files.newOutputStream(file), StandardCharsets.UTF_8), bufferSize
+            );
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void print(Object o) {
+        try {
+            writer.write(String.valueOf(o));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void flush() {
+        try {
+            writer.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        try {
+            writer.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+}
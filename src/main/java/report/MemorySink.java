@@ -0,0 +1,46 @@
+package report;
+
+import java.util.List;
+
+/**
+ * Sink keeping the whole output in memory, for example for tests or to collect a report before writing it elsewhere.
+ * Not thread-safe.
+ */
+public class MemorySink implements ReportSink {
+
+    private final StringBuilder output = new StringBuilder();
+
+    @Override
+    public void print(Object o) {
+        output.append(o);
+    }
+
+    /**
+     * Does nothing, the output is always available with {@link #getOutput()}.
+     */
+    @Override
+    public void flush() {
+    }
+
+    /**
+     * All output written to this sink.
+     */
+    public String getOutput() {
+        return output.toString();
+    }
+
+    /**
+     * All output written to this sink split into lines.
+     */
+    public List<String> lines() {
+        return output.toString().lines().toList();
+    }
+
+    /**
+     * Removes all output.
+     */
+    public void clear() {
+        output.setLength(0);
+    }
+
+}
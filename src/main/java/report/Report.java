@@ -0,0 +1,65 @@
+package report;
+
+/**
+ * Writes reports to the {@link ReportSink} of the current thread, which defaults to a {@link ConsoleSink} shared by all
+ * threads. Meant to be used with static imports like {@link java.lang.IO#println(Object)}.
+ */
+public final class Report {
+
+    private static final ReportSink CONSOLE = new ConsoleSink();
+    private static final ThreadLocal<ReportSink> CURRENT = ThreadLocal.withInitial(() -> CONSOLE);
+
+    /**
+     * The sink of the current thread.
+     */
+    public static ReportSink sink() {
+        return CURRENT.get();
+    }
+
+    /**
+     * Runs the report with the given sink as the sink of the current thread and flushes the sink afterwards.
+     * The previous sink of the current thread is restored afterwards.
+     */
+    public static void writeTo(ReportSink sink, Runnable report) {
+        ReportSink previous = CURRENT.get();
+        CURRENT.set(sink);
+        try {
+            report.run();
+        } finally {
+            sink.flush();
+            CURRENT.set(previous);
+        }
+    }
+
+    /**
+     * Writes the String representation of the Object to the sink of the current thread.
+     */
+    public static void print(Object o) {
+        CURRENT.get().print(o);
+    }
+
+    /**
+     * Writes the String representation of the Object and a line separator to the sink of the current thread.
+     */
+    public static void println(Object o) {
+        CURRENT.get().println(o);
+    }
+
+    /**
+     * Writes a line separator to the sink of the current thread.
+     */
+    public static void println() {
+        CURRENT.get().println();
+    }
+
+    /**
+     * Flushes the sink of the current thread, should be called once a report is complete.
+     */
+    public static void flush() {
+        CURRENT.get().flush();
+    }
+
+    private Report() {
+    }
+
+}
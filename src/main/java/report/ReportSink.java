@@ -0,0 +1,45 @@
+package report;
+
+import java.io.Closeable;
+
+/**
+ * Destination for the output of analyses and other reports. Implementations may buffer the output until
+ * {@link #flush()} is called, so a report should be flushed once it is complete.
+ * <br>
+ * Usually reports are written through {@link Report}, which writes to the sink of the current thread.
+ */
+public interface ReportSink extends Closeable {
+
+    /**
+     * Writes the String representation of the Object.
+     */
+    void print(Object o);
+
+    /**
+     * Writes the String representation of the Object followed by a line separator.
+     */
+    default void println(Object o) {
+        print(String.valueOf(o) + System.lineSeparator());
+    }
+
+    /**
+     * Writes a line separator.
+     */
+    default void println() {
+        print(System.lineSeparator());
+    }
+
+    /**
+     * Writes all buffered output to the destination.
+     */
+    void flush();
+
+    /**
+     * Flushes the sink and releases its resources.
+     */
+    @Override
+    default void close() {
+        flush();
+    }
+
+}
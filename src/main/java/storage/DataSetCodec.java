@@ -0,0 +1,20 @@
+package storage;
+
+/**
+ * Converts DataSets to single lines of text and back, for example as JSON.
+ *
+ * @param <T> Type of DataSets to convert.
+ */
+public interface DataSetCodec<T> {
+
+    /**
+     * Converts the DataSet to a String without line breaks.
+     */
+    String encode(T t);
+
+    /**
+     * Converts a String created by {@link #encode(Object)} back to an equal DataSet.
+     */
+    T decode(String line);
+
+}
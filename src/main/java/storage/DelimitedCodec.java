@@ -0,0 +1,224 @@
+package storage;
+
+import dataset.StringDictionary;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * {@link ProjectingCodec} encoding the fields of DataSets as tab-separated columns in a fixed order. Tabs, line
+ * breaks and backslashes in values are escaped with a backslash, so an unescaped tab always separates two columns and
+ * decoding a projection only needs to search for the tabs of the columns it skips. Columns after the last projected
+ * one aren't read at all. Null values are encoded as {@code \N}.
+ * <br>
+ * Columns can be appended to the codec later, lines written before decode them as null.
+ *
+ * @param <T> Type of DataSets to convert.
+ */
+public class DelimitedCodec<T> implements ProjectingCodec<T> {
+
+    private static final String NULL = "\\N";
+
+    private final List<Column<T>> columns;
+    private final Map<String, Integer> indices = new HashMap<>();
+    private final Projection all;
+    private final int[] allSlots;
+    private final Function<Projection.Values, T> factory;
+    // the column indices of the last decoded projection, reused as long as the same fields are projected
+    private volatile Mapping mapping;
+
+    private DelimitedCodec(List<Column<T>> columns, Function<Projection.Values, T> factory) {
+        this.columns = List.copyOf(columns);
+        for (int i = 0; i < columns.size(); i++) {
+            if (indices.put(columns.get(i).name(), i) != null) {
+                throw new IllegalArgumentException("Duplicate column " + columns.get(i).name());
+            }
+        }
+        all = new Projection(columns.stream().map(Column::name).toList(), null);
+        allSlots = new int[columns.size()];
+        Arrays.setAll(allSlots, i -> i);
+        this.factory = requireNonNull(factory);
+    }
+
+    /**
+     * @param factory Function creating a DataSet from the values of the columns, called with only the projected
+     *                columns by {@link #create(Projection.Values)}.
+     */
+    public static <T> Builder<T> builder(Function<Projection.Values, T> factory) {
+        return new Builder<>(factory);
+    }
+
+    @Override
+    public String encode(T t) {
+        StringBuilder line = new StringBuilder();
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) line.append('\t');
+            Object value = columns.get(i).getter().apply(t);
+            if (value == null) {
+                line.append(NULL);
+                continue;
+            }
+            String string = value.toString();
+            for (int c = 0; c < string.length(); c++) {
+                char ch = string.charAt(c);
+                switch (ch) {
+                    case '\\' -> line.append("\\\\");
+                    case '\t' -> line.append("\\t");
+                    case '\n' -> line.append("\\n");
+                    case '\r' -> line.append("\\r");
+                    default -> line.append(ch);
+                }
+            }
+        }
+        return line.toString();
+    }
+
+    @Override
+    public T decode(String line) {
+        Projection.Values values = all.values();
+        decode(line, values);
+        return create(values);
+    }
+
+    @Override
+    public void decode(String line, Projection.Values values) {
+        int[] slots = mapping(values.fields());
+        int remaining = values.fields().size();
+        for (int i = 0; i < remaining; i++) values.set(i, null);
+        int start = 0;
+        for (int column = 0; column < slots.length && remaining > 0 && start <= line.length(); column++) {
+            int end = line.indexOf('\t', start);
+            if (end < 0) end = line.length();
+            int slot = slots[column];
+            if (slot >= 0) {
+                values.set(slot, parse(column, line, start, end));
+                remaining--;
+            }
+            start = end + 1;
+        }
+    }
+
+    @Override
+    public T create(Projection.Values values) {
+        return factory.apply(values);
+    }
+
+    private Object parse(int column, String line, int start, int end) {
+        if (end - start == NULL.length() && line.startsWith(NULL, start)) return null;
+        int escape = start;
+        while (escape < end && line.charAt(escape) != '\\') escape++;
+        String value;
+        if (escape == end) {
+            value = line.substring(start, end);
+        } else {
+            StringBuilder builder = new StringBuilder(end - start).append(line, start, escape);
+            for (int i = escape; i < end; i++) {
+                char ch = line.charAt(i);
+                if (ch == '\\' && i + 1 < end) {
+                    ch = switch (line.charAt(++i)) {
+                        case 't' -> '\t';
+                        case 'n' -> '\n';
+                        case 'r' -> '\r';
+                        default -> line.charAt(i);
+                    };
+                }
+                builder.append(ch);
+            }
+            value = builder.toString();
+        }
+        return columns.get(column).parser().apply(value);
+    }
+
+    /**
+     * Maps each column to the index of the projected field, -1 if it isn't projected. The array ends after the last
+     * projected column.
+     */
+    private int[] mapping(List<String> fields) {
+        if (fields == all.fields()) return allSlots;
+        Mapping current = mapping;
+        if (current != null && current.fields() == fields) return current.slots();
+        int last = -1;
+        for (String field : fields) {
+            Integer index = indices.get(field);
+            if (index == null) throw new IllegalArgumentException("Unknown column " + field);
+            last = Math.max(last, index);
+        }
+        int[] slots = new int[last + 1];
+        Arrays.fill(slots, -1);
+        for (int i = 0; i < fields.size(); i++) slots[indices.get(fields.get(i))] = i;
+        mapping = new Mapping(fields, slots);
+        return slots;
+    }
+
+    private record Mapping(List<String> fields, int[] slots) {
+    }
+
+    private record Column<T>(String name, Function<T, ?> getter, Function<String, ?> parser) {
+    }
+
+    /**
+     * Builder adding the columns of a {@link DelimitedCodec} in order.
+     *
+     * @param <T> Type of DataSets to convert.
+     */
+    public static class Builder<T> {
+        private final Function<Projection.Values, T> factory;
+        private final List<Column<T>> columns = new ArrayList<>();
+
+        private Builder(Function<Projection.Values, T> factory) {
+            this.factory = factory;
+        }
+
+        /**
+         * Adds a column encoded with the String representation of its values.
+         *
+         * @param getter Function returning the value of the column, may return null.
+         * @param parser Function parsing the String representation back to the value.
+         */
+        public Builder<T> column(String name, Function<T, ?> getter, Function<String, ?> parser) {
+            columns.add(new Column<>(requireNonNull(name), requireNonNull(getter), requireNonNull(parser)));
+            return this;
+        }
+
+        public Builder<T> stringColumn(String name, Function<T, String> getter) {
+            return column(name, getter, Function.identity());
+        }
+
+        /**
+         * Adds a String column whose values are replaced by their canonical instance from the dictionary when decoding,
+         * so the loaded values are found in the dictionary without normalizing them, see
+         * {@link StringDictionary#codeOf(String)}.
+         */
+        public Builder<T> dictionaryColumn(String name, Function<T, String> getter, StringDictionary dictionary) {
+            requireNonNull(dictionary);
+            return column(name, getter, dictionary::intern);
+        }
+
+        public Builder<T> intColumn(String name, Function<T, Integer> getter) {
+            return column(name, getter, Integer::valueOf);
+        }
+
+        public Builder<T> longColumn(String name, Function<T, Long> getter) {
+            return column(name, getter, Long::valueOf);
+        }
+
+        public Builder<T> doubleColumn(String name, Function<T, Double> getter) {
+            return column(name, getter, Double::valueOf);
+        }
+
+        public Builder<T> booleanColumn(String name, Function<T, Boolean> getter) {
+            return column(name, getter, Boolean::valueOf);
+        }
+
+        public DelimitedCodec<T> build() {
+            return new DelimitedCodec<>(columns, factory);
+        }
+    }
+
+}
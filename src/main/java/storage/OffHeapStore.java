@@ -0,0 +1,416 @@
+package storage;
+
+import dataset.BaseDataSet;
+import dataset.Metadata;
+
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemoryLayout;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.StructLayout;
+import java.lang.foreign.ValueLayout;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Stores the fields of DataSets in native memory outside the heap, so even huge amounts of DataSets don't need to be
+ * scanned by the garbage collector.
+ * <br>
+ * The fields are defined by a {@link Schema}, each DataSet is stored as one struct with a fixed layout. Strings are
+ * stored UTF-8 encoded in separate native memory and referenced by the struct. The stored DataSets are read through
+ * {@link Row}s, lightweight flyweights pointing into native memory, which are DataSets themselves and can be used with
+ * {@link analyzer.Question}s like any other DataSet, for example {@code row -> row.get(NUMBER)}.
+ * <br>
+ * The native memory is released by {@link #close()}, afterwards the rows can't be read anymore. Adding DataSets isn't
+ * thread-safe, but rows can be read by multiple threads once all DataSets are added.
+ *
+ * @param <T> Type of DataSets to store.
+ */
+public class OffHeapStore<T> implements AutoCloseable {
+
+    // rows are allocated in chunks of 2^CHUNK_BITS rows
+    private static final int CHUNK_BITS = 14;
+    private static final int CHUNK_ROWS = 1 << CHUNK_BITS;
+    private static final long STRING_CHUNK_SIZE = 1 << 20;
+
+    private final Schema<T> schema;
+    private final Metadata metadata;
+    private final Arena arena = Arena.ofShared();
+    private final List<MemorySegment> chunks = new ArrayList<>();
+    private final List<MemorySegment> stringChunks = new ArrayList<>();
+    private long stringOffset = STRING_CHUNK_SIZE;
+    private int size = 0;
+
+    /**
+     * @param schema   Fields to store, the Schema can't be changed afterwards.
+     * @param metadata Metadata of all rows, may be null.
+     */
+    public OffHeapStore(Schema<T> schema, Metadata metadata) {
+        this.schema = requireNonNull(schema);
+        this.metadata = metadata;
+        schema.freeze();
+    }
+
+    /**
+     * Copies the fields of the DataSet into native memory.
+     */
+    public void add(T t) {
+        if (size == Integer.MAX_VALUE) throw new IllegalStateException("Store is full");
+        if ((size & (CHUNK_ROWS - 1)) == 0) {
+            chunks.add(arena.allocate(schema.layout.byteSize() * CHUNK_ROWS, schema.layout.byteAlignment()));
+        }
+        MemorySegment chunk = chunks.getLast();
+        long base = (size & (CHUNK_ROWS - 1)) * schema.layout.byteSize();
+        for (Column<T> column : schema.columns) {
+            column.write(this, chunk, base + column.offset, t);
+        }
+        size++;
+    }
+
+    public void addAll(Iterable<T> data) {
+        data.forEach(this::add);
+    }
+
+    /**
+     * The number of stored DataSets.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a flyweight for reading the stored DataSet at the position.
+     */
+    public Row row(int index) {
+        Objects.checkIndex(index, size);
+        return new Row(this, chunks.get(index >>> CHUNK_BITS), (index & (CHUNK_ROWS - 1)) * schema.layout.byteSize());
+    }
+
+    /**
+     * An unmodifiable List of all stored DataSets, creating a flyweight whenever a DataSet is accessed.
+     * It can be passed to a {@link analyzer.BaseDataAnalyzer} like any other List of DataSets.
+     */
+    public List<Row> rows() {
+        return new AbstractList<>() {
+            @Override
+            public Row get(int index) {
+                return row(index);
+            }
+
+            @Override
+            public int size() {
+                return size;
+            }
+        };
+    }
+
+    /**
+     * The number of bytes of native memory allocated by this store.
+     */
+    public long byteSize() {
+        return (long) chunks.size() * CHUNK_ROWS * schema.layout.byteSize() + stringChunks.stream().mapToLong(MemorySegment::byteSize).sum();
+    }
+
+    /**
+     * Releases the native memory. Reading rows afterwards throws an {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    /**
+     * Copies the String into native memory.
+     *
+     * @return The position of the String, the index of the chunk in the upper 32 bits and the offset in the chunk in
+     * the lower 32 bits.
+     */
+    private long writeString(byte[] bytes) {
+        // the first String needs a chunk even if it is empty
+        if (stringChunks.isEmpty() || bytes.length > STRING_CHUNK_SIZE - stringOffset) {
+            stringChunks.add(arena.allocate(Math.max(STRING_CHUNK_SIZE, bytes.length), 1));
+            stringOffset = 0;
+        }
+        MemorySegment chunk = stringChunks.getLast();
+        MemorySegment.copy(bytes, 0, chunk, ValueLayout.JAVA_BYTE, stringOffset, bytes.length);
+        long position = (long) (stringChunks.size() - 1) << 32 | stringOffset;
+        // strings larger than a chunk fill their own chunk
+        stringOffset = Math.min(stringOffset + bytes.length, STRING_CHUNK_SIZE);
+        return position;
+    }
+
+    private String readString(long position, int length) {
+        byte[] bytes = new byte[length];
+        MemorySegment.copy(stringChunks.get((int) (position >>> 32)), ValueLayout.JAVA_BYTE, position & 0xFFFFFFFFL, bytes, 0, length);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Flyweight reading one stored DataSet from native memory.
+     */
+    public static final class Row extends BaseDataSet {
+        private final OffHeapStore<?> store;
+        private final MemorySegment chunk;
+        private final long base;
+
+        private Row(OffHeapStore<?> store, MemorySegment chunk, long base) {
+            super(store.metadata);
+            this.store = store;
+            this.chunk = chunk;
+            this.base = base;
+        }
+
+        public int get(IntColumn<?> column) {
+            return chunk.get(ValueLayout.JAVA_INT, base + column.offset);
+        }
+
+        public long get(LongColumn<?> column) {
+            return chunk.get(ValueLayout.JAVA_LONG, base + column.offset);
+        }
+
+        public double get(DoubleColumn<?> column) {
+            return chunk.get(ValueLayout.JAVA_DOUBLE, base + column.offset);
+        }
+
+        public boolean get(BooleanColumn<?> column) {
+            return chunk.get(ValueLayout.JAVA_BYTE, base + column.offset) != 0;
+        }
+
+        public String get(StringColumn<?> column) {
+            int length = chunk.get(ValueLayout.JAVA_INT, base + column.offset + Long.BYTES);
+            if (length < 0) return null;
+            return store.readString(chunk.get(ValueLayout.JAVA_LONG, base + column.offset), length);
+        }
+
+        @Override
+        public String toString() {
+            StringJoiner joiner = new StringJoiner(", ", "Row{", "}");
+            for (Column<?> column : store.schema.columns) {
+                Object value = switch (column) {
+                    case IntColumn<?> c -> get(c);
+                    case LongColumn<?> c -> get(c);
+                    case DoubleColumn<?> c -> get(c);
+                    case BooleanColumn<?> c -> get(c);
+                    case StringColumn<?> c -> get(c);
+                };
+                joiner.add(column.name + "=" + value);
+            }
+            return joiner.toString();
+        }
+    }
+
+    /**
+     * The fields stored for each DataSet, laid out as one struct. Once a store was created with the Schema no more
+     * columns can be added.
+     *
+     * @param <T> Type of DataSets to store.
+     */
+    public static final class Schema<T> {
+        private final List<Column<T>> columns = new ArrayList<>();
+        private final Set<String> names = new HashSet<>();
+        private StructLayout layout;
+
+        public IntColumn<T> intColumn(String name, ToIntFunction<T> getter) {
+            return add(new IntColumn<>(name, requireNonNull(getter)));
+        }
+
+        public LongColumn<T> longColumn(String name, ToLongFunction<T> getter) {
+            return add(new LongColumn<>(name, requireNonNull(getter)));
+        }
+
+        public DoubleColumn<T> doubleColumn(String name, ToDoubleFunction<T> getter) {
+            return add(new DoubleColumn<>(name, requireNonNull(getter)));
+        }
+
+        public BooleanColumn<T> booleanColumn(String name, Predicate<T> getter) {
+            return add(new BooleanColumn<>(name, requireNonNull(getter)));
+        }
+
+        /**
+         * Adds a column for Strings, which may be null.
+         */
+        public StringColumn<T> stringColumn(String name, Function<T, String> getter) {
+            return add(new StringColumn<>(name, requireNonNull(getter)));
+        }
+
+        /**
+         * The layout of the struct of each DataSet, null until a store was created.
+         */
+        public StructLayout layout() {
+            return layout;
+        }
+
+        private <C extends Column<T>> C add(C column) {
+            if (layout != null) throw new IllegalStateException("Schema is already used by a store");
+            if (!names.add(column.name())) throw new IllegalArgumentException("Column " + column.name() + " already exists");
+            columns.add(column);
+            return column;
+        }
+
+        /**
+         * Creates the layout, ordering the fields by their alignment so that no padding is needed between them.
+         */
+        private void freeze() {
+            if (layout != null) return;
+            if (columns.isEmpty()) throw new IllegalStateException("Schema has no columns");
+            List<Column<T>> ordered = new ArrayList<>(columns);
+            ordered.sort(Comparator.comparingLong((Column<T> c) -> c.layout().byteAlignment()).reversed());
+            List<MemoryLayout> elements = new ArrayList<>();
+            long offset = 0;
+            for (Column<T> column : ordered) {
+                column.offset = offset;
+                offset += column.layout().byteSize();
+                elements.add(column.layout().withName(column.name));
+            }
+            long alignment = ordered.getFirst().layout().byteAlignment();
+            if (offset % alignment != 0) elements.add(MemoryLayout.paddingLayout(alignment - offset % alignment));
+            layout = MemoryLayout.structLayout(elements.toArray(MemoryLayout[]::new));
+        }
+    }
+
+    /**
+     * A field of the stored DataSets, used to read the field from a {@link Row}.
+     *
+     * @param <T> Type of DataSets to store.
+     */
+    public abstract static sealed class Column<T> permits IntColumn, LongColumn, DoubleColumn, BooleanColumn, StringColumn {
+        private final String name;
+        // offset within the struct
+        long offset;
+
+        private Column(String name) {
+            this.name = requireNonNull(name);
+        }
+
+        public String name() {
+            return name;
+        }
+
+        abstract MemoryLayout layout();
+
+        abstract void write(OffHeapStore<T> store, MemorySegment chunk, long offset, T t);
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    public static final class IntColumn<T> extends Column<T> {
+        private final ToIntFunction<T> getter;
+
+        private IntColumn(String name, ToIntFunction<T> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        MemoryLayout layout() {
+            return ValueLayout.JAVA_INT;
+        }
+
+        @Override
+        void write(OffHeapStore<T> store, MemorySegment chunk, long offset, T t) {
+            chunk.set(ValueLayout.JAVA_INT, offset, getter.applyAsInt(t));
+        }
+    }
+
+    public static final class LongColumn<T> extends Column<T> {
+        private final ToLongFunction<T> getter;
+
+        private LongColumn(String name, ToLongFunction<T> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        MemoryLayout layout() {
+            return ValueLayout.JAVA_LONG;
+        }
+
+        @Override
+        void write(OffHeapStore<T> store, MemorySegment chunk, long offset, T t) {
+            chunk.set(ValueLayout.JAVA_LONG, offset, getter.applyAsLong(t));
+        }
+    }
+
+    public static final class DoubleColumn<T> extends Column<T> {
+        private final ToDoubleFunction<T> getter;
+
+        private DoubleColumn(String name, ToDoubleFunction<T> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        MemoryLayout layout() {
+            return ValueLayout.JAVA_DOUBLE;
+        }
+
+        @Override
+        void write(OffHeapStore<T> store, MemorySegment chunk, long offset, T t) {
+            chunk.set(ValueLayout.JAVA_DOUBLE, offset, getter.applyAsDouble(t));
+        }
+    }
+
+    public static final class BooleanColumn<T> extends Column<T> {
+        private final Predicate<T> getter;
+
+        private BooleanColumn(String name, Predicate<T> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        MemoryLayout layout() {
+            return ValueLayout.JAVA_BYTE;
+        }
+
+        @Override
+        void write(OffHeapStore<T> store, MemorySegment chunk, long offset, T t) {
+            chunk.set(ValueLayout.JAVA_BYTE, offset, (byte) (getter.test(t) ? 1 : 0));
+        }
+    }
+
+    /**
+     * Stored as position of the UTF-8 encoded String followed by its length in bytes, -1 for null.
+     */
+    public static final class StringColumn<T> extends Column<T> {
+        private static final MemoryLayout LAYOUT = MemoryLayout.structLayout(
+                ValueLayout.JAVA_LONG.withName("position"),
+                ValueLayout.JAVA_INT.withName("length"),
+                MemoryLayout.paddingLayout(4)
+        );
+
+        private final Function<T, String> getter;
+
+        private StringColumn(String name, Function<T, String> getter) {
+            super(name);
+            this.getter = getter;
+        }
+
+        @Override
+        MemoryLayout layout() {
+            return LAYOUT;
+        }
+
+        @Override
+        void write(OffHeapStore<T> store, MemorySegment chunk, long offset, T t) {
+            String value = getter.apply(t);
+            if (value == null) {
+                chunk.set(ValueLayout.JAVA_INT, offset + Long.BYTES, -1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            chunk.set(ValueLayout.JAVA_LONG, offset, store.writeString(bytes));
+            chunk.set(ValueLayout.JAVA_INT, offset + Long.BYTES, bytes.length);
+        }
+    }
+
+}
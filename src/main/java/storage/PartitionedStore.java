@@ -0,0 +1,243 @@
+package storage;
+
+import dataset.BaseDataSet;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Stores DataSets in a directory with one file per partition, where the partition of a DataSet is the result of a key
+ * function, for example the field most analyses filter or group by. Each file contains one DataSet per line, encoded
+ * by a {@link DataSetCodec}.
+ * <br>
+ * Conditions created with {@link #keyCondition(Predicate)} only depend on the partition key, so loading DataSets with
+ * such a condition skips whole partitions without reading or decoding any of their DataSets. Used as
+ * {@link analyzer.Question#conditionAll()} this prunes all partitions that a Question ignores anyway. With a
+ * {@link ProjectingCodec} a {@link Projection} further skips the fields a Question doesn't read and the DataSets its
+ * filter rejects, see {@link analyzer.Question#projection()}.
+ *
+ * @param <T> Type of stored DataSets.
+ */
+public class PartitionedStore<T extends BaseDataSet> {
+
+    private static final String SUFFIX = ".part";
+    // file of the partition with a null key, other partitions start with the prefix so they can't collide
+    private static final String NULL_PARTITION = "null" + SUFFIX;
+    private static final String PREFIX = "p-";
+    // precedes upper-case letters in file names, which are written in lower case
+    private static final char ESCAPE = '_';
+
+    private final Path directory;
+    private final Function<T, String> key;
+    private final DataSetCodec<T> codec;
+
+    /**
+     * @param directory Directory containing the partition files, created if it doesn't exist.
+     * @param key       Function returning the partition key of a DataSet, may return null.
+     * @param codec     Codec converting DataSets to lines and back.
+     * @throws UncheckedIOException If the directory can't be created.
+     */
+    public PartitionedStore(Path directory, Function<T, String> key, DataSetCodec<T> codec) {
+        this.directory = requireNonNull(directory);
+        this.key = requireNonNull(key);
+        this.codec = requireNonNull(codec);
+        try {
+            Files.createDirectories(directory);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Appends the DataSets to the files of their partitions.
+     *
+     * @throws IllegalArgumentException If the codec encodes a DataSet with a line break.
+     * @throws UncheckedIOException     If writing fails.
+     */
+    public void save(Collection<T> data) {
+        Map<String, List<String>> partitions = new LinkedHashMap<>();
+        for (T t : data) {
+            String line = codec.encode(t);
+            if (line.contains("\n") || line.contains("\r")) {
+                throw new IllegalArgumentException("Encoded DataSet contains a line break: " + line);
+            }
+            partitions.computeIfAbsent(key.apply(t), _ -> new ArrayList<>()).add(line);
+        }
+        try {
+            for (Map.Entry<String, List<String>> partition : partitions.entrySet()) {
+                Path file = directory.resolve(fileName(partition.getKey()));
+                try (BufferedWriter writer = Files.newBufferedWriter(
+                        file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND
+                )) {
+                    for (String line : partition.getValue()) {
+                        writer.write(line);
+                        writer.newLine();
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * The keys of all partitions, including null if there is a partition for DataSets with a null key.
+     */
+    public Set<String> partitions() {
+        Set<String> keys = new TreeSet<>(Comparator.nullsFirst(Comparator.naturalOrder()));
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.equals(NULL_PARTITION)) keys.add(null);
+                else if (name.startsWith(PREFIX)) keys.add(key(name));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return keys;
+    }
+
+    /**
+     * Loads all stored DataSets.
+     */
+    public List<T> load() {
+        return load(_ -> true);
+    }
+
+    /**
+     * Loads all stored DataSets fulfilling the condition. If the condition was created by
+     * {@link #keyCondition(Predicate)} partitions with keys not fulfilling its key predicate are skipped without
+     * being read.
+     *
+     * @throws UncheckedIOException If reading fails.
+     */
+    public List<T> load(Predicate<T> condition) {
+        return load(null, condition);
+    }
+
+    /**
+     * Loads the projected fields of all stored DataSets passing the filter of the projection and fulfilling the
+     * condition. If the codec is a {@link ProjectingCodec} only the projected fields of each line are decoded and
+     * lines not passing the filter are skipped before creating a DataSet, otherwise the projection is ignored.
+     * Partitions are skipped like in {@link #load(Predicate)}, and the key predicate of a {@link KeyCondition} is only
+     * tested on the partitions, so the partition key doesn't need to be projected.
+     *
+     * @param projection The fields read by the condition and the later analysis, null to load all fields.
+     * @throws UncheckedIOException If reading fails.
+     */
+    public List<T> load(Projection projection, Predicate<T> condition) {
+        Predicate<String> keys = _ -> true;
+        Predicate<T> rows = condition;
+        if (condition instanceof KeyCondition<T> kc && kc.store == this) {
+            // all DataSets of a partition have its key, which may not even be projected
+            keys = kc.keys;
+            rows = kc.further;
+        }
+        ProjectingCodec<T> projecting = projection != null && codec instanceof ProjectingCodec<T> pc ? pc : null;
+        Projection.Values values = projecting != null ? projection.values() : null;
+        List<T> data = new ArrayList<>();
+        for (String partition : partitions()) {
+            if (!keys.test(partition)) continue;
+            try (BufferedReader reader = Files.newBufferedReader(directory.resolve(fileName(partition)), StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.isEmpty()) continue;
+                    T t;
+                    if (projecting != null) {
+                        projecting.decode(line, values);
+                        if (!projection.filter().test(values)) continue;
+                        t = projecting.create(values);
+                    } else t = codec.decode(line);
+                    if (rows.test(t)) data.add(t);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return data;
+    }
+
+    /**
+     * Creates a condition only depending on the partition key of DataSets, which allows {@link #load(Predicate)} to
+     * skip partitions. Combining it with {@link KeyCondition#and(Predicate)} keeps this ability.
+     *
+     * @param keys Predicate on the partition key, may be called with null.
+     */
+    public KeyCondition<T> keyCondition(Predicate<String> keys) {
+        return new KeyCondition<>(this, requireNonNull(keys), _ -> true);
+    }
+
+    /**
+     * URL encodes the key and escapes upper-case letters and the escape character with an underscore, so keys only
+     * differing in case get different files on file systems ignoring the case of names.
+     */
+    private static String fileName(String key) {
+        if (key == null) return NULL_PARTITION;
+        StringBuilder name = new StringBuilder(PREFIX);
+        for (char c : URLEncoder.encode(key, StandardCharsets.UTF_8).toCharArray()) {
+            if (c >= 'A' && c <= 'Z') name.append(ESCAPE).append(Character.toLowerCase(c));
+            else if (c == ESCAPE) name.append(ESCAPE).append(ESCAPE);
+            else name.append(c);
+        }
+        return name.append(SUFFIX).toString();
+    }
+
+    private static String key(String fileName) {
+        String name = fileName.substring(PREFIX.length(), fileName.length() - SUFFIX.length());
+        StringBuilder encoded = new StringBuilder(name.length());
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c == ESCAPE && i + 1 < name.length()) {
+                char escaped = name.charAt(++i);
+                encoded.append(escaped == ESCAPE ? ESCAPE : Character.toUpperCase(escaped));
+            } else encoded.append(c);
+        }
+        return URLDecoder.decode(encoded.toString(), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Condition on DataSets consisting of a predicate on their partition key and an optional further condition.
+     * A DataSet fulfills it if both are fulfilled.
+     *
+     * @param <T> Type of stored DataSets.
+     */
+    public static final class KeyCondition<T extends BaseDataSet> implements Predicate<T> {
+        private final PartitionedStore<T> store;
+        private final Predicate<String> keys;
+        private final Predicate<T> further;
+
+        private KeyCondition(PartitionedStore<T> store, Predicate<String> keys, Predicate<T> further) {
+            this.store = store;
+            this.keys = keys;
+            this.further = further;
+        }
+
+        @Override
+        public boolean test(T t) {
+            return keys.test(store.key.apply(t)) && further.test(t);
+        }
+
+        /**
+         * Combines this with the other condition, keeping the predicate on the partition key.
+         */
+        @Override
+        public KeyCondition<T> and(Predicate<? super T> other) {
+            return new KeyCondition<>(store, keys, further.and(other));
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package storage;
+
+/**
+ * {@link DataSetCodec} that can decode only some fields of a line, allowing readers to filter lines by these fields
+ * before creating DataSets and to skip the other fields entirely, see {@link Projection}.
+ *
+ * @param <T> Type of DataSets to convert.
+ */
+public interface ProjectingCodec<T> extends DataSetCodec<T> {
+
+    /**
+     * Decodes the projected fields of the line into the values, overwriting all of them. Fields missing in the line
+     * are set to null.
+     *
+     * @throws IllegalArgumentException If a projected field is unknown.
+     */
+    void decode(String line, Projection.Values values);
+
+    /**
+     * Creates a DataSet from the decoded values, with default values for all fields that aren't projected.
+     */
+    T create(Projection.Values values);
+
+}
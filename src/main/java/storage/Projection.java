@@ -0,0 +1,99 @@
+package storage;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.function.Predicate;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Declares which fields of stored DataSets are read and which of them pass a filter on these fields, so a reader with
+ * a {@link ProjectingCodec} only decodes the projected fields and skips DataSets not passing the filter before
+ * creating them, see {@link PartitionedStore#load(Projection, Predicate)}.
+ * <br>
+ * DataSets created from a projection only contain the projected fields, so it needs to contain every field read by
+ * the conditions, groupings and evaluators they are used with. The filter is only an optimization and may not reject
+ * DataSets that should be kept, usually it checks the same as the condition on the DataSets.
+ *
+ * @param fields The names of the projected fields.
+ * @param filter Filter on the values of the projected fields.
+ */
+public record Projection(List<String> fields, Predicate<Values> filter) {
+
+    public Projection {
+        fields = List.copyOf(fields);
+        if (new HashSet<>(fields).size() != fields.size()) throw new IllegalArgumentException("Duplicate fields: " + fields);
+        filter = filter != null ? filter : _ -> true;
+    }
+
+    /**
+     * Creates a projection of the fields without filter.
+     */
+    public static Projection of(String... fields) {
+        return new Projection(List.of(fields), null);
+    }
+
+    /**
+     * Creates a projection of the same fields with the filter.
+     */
+    public Projection where(Predicate<Values> filter) {
+        return new Projection(fields, requireNonNull(filter));
+    }
+
+    /**
+     * Creates empty values of the projected fields, which a reader reuses for each decoded DataSet.
+     */
+    public Values values() {
+        return new Values(fields);
+    }
+
+    /**
+     * The decoded values of the projected fields of one DataSet.
+     */
+    public static final class Values {
+        private final List<String> fields;
+        private final Object[] values;
+
+        Values(List<String> fields) {
+            this.fields = fields;
+            values = new Object[fields.size()];
+        }
+
+        public List<String> fields() {
+            return fields;
+        }
+
+        /**
+         * The value of the field, null if it wasn't projected.
+         */
+        public Object get(String field) {
+            int index = fields.indexOf(field);
+            return index < 0 ? null : values[index];
+        }
+
+        /**
+         * The value of the projected field at the index.
+         */
+        public Object get(int index) {
+            return values[index];
+        }
+
+        /**
+         * Sets the value of the projected field at the index, used by {@link ProjectingCodec}s.
+         */
+        public void set(int index, Object value) {
+            values[index] = value;
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder builder = new StringBuilder("{");
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) builder.append(", ");
+                builder.append(fields.get(i)).append('=').append(values[i]);
+            }
+            return builder.append('}').toString();
+        }
+    }
+
+}
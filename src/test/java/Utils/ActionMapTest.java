@@ -0,0 +1,80 @@
+package Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ActionMapTest {
+
+    @Test
+    void prefixes() {
+        // given
+        List<String> executed = new ArrayList<>();
+        ActionMap actions = new ActionMap();
+        actions.put("Save", () -> executed.add("save"), List.of("s"));
+        actions.put("SaveAs", () -> executed.add("saveAs"));
+        actions.put("PrintData", () -> executed.add("print"), List.of("p", "pd"));
+        actions.put("Exit", () -> executed.add("exit"));
+
+        // when
+        actions.accept("SAVE");
+        actions.accept("ex");
+        actions.acceptOrFallback("sa", () -> executed.add("fallback"));
+        actions.acceptOrFallback("PRI", () -> executed.add("fallback"));
+
+        // then
+        assertEquals(List.of("save", "exit", "fallback", "print"), executed);
+        assertEquals("Save", actions.resolve("s"));
+        assertEquals("SaveAs", actions.resolve("saveA"));
+        assertEquals("PrintData", actions.resolve("p"));
+        assertNull(actions.resolve("sa"));
+        assertNull(actions.resolve(""));
+        assertNull(actions.resolve("x"));
+        assertFalse(actions.containsKey("ex"));
+        actions.remove("saveas");
+        assertEquals("Save", actions.resolve("sa"));
+    }
+
+    @Test
+    void manyKeys() {
+        // given
+        ActionMap actions = new ActionMap();
+        for (int i = 0; i < 200; i++) actions.put("Action" + i, () -> {
+        }, List.of("a" + i));
+
+        // when
+        for (int i = 0; i < 200; i += 2) actions.remove("A" + i);
+
+        // then
+        for (int i = 0; i < 200; i++) {
+            assertEquals(i % 2 == 1, actions.containsKey("ACTION" + i), "Action" + i);
+            assertEquals(i % 2 == 1, actions.containsKey("a" + i), "a" + i);
+        }
+        assertEquals(100, actions.size());
+        // keys take precedence over prefixes
+        assertEquals("Action19", actions.resolve("action19"));
+        assertNull(actions.resolve("action18"));
+    }
+
+    @Test
+    void cachedKeyReps() {
+        // given
+        ActionMap actions = new ActionMap();
+        actions.put("Save", () -> {
+        }, List.of("s"));
+        String reps = actions.keyReps();
+
+        // when
+        String cached = actions.keyReps();
+        actions.addKeys("save", "sv");
+
+        // then
+        assertSame(reps, cached);
+        assertEquals("Save (s; sv)", actions.keyReps());
+        assertEquals("Save (s|sv)", actions.keyReps("; ", "|"));
+    }
+
+}
@@ -0,0 +1,63 @@
+package Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentCounterTest {
+
+    @Test
+    void parallelCounting() throws Exception {
+        // given
+        ConcurrentCounter<String> counter = new ConcurrentCounter<>();
+        List<Future<?>> futures = new ArrayList<>();
+
+        // when
+        try (ExecutorService executor = Executors.newFixedThreadPool(4)) {
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < 10_000; i++) counter.add(i % 3 == 0 ? null : "Value " + i % 5);
+                }));
+            }
+            for (Future<?> future : futures) future.get();
+        }
+        Counter<String> snapshot = counter.snapshot();
+
+        // then
+        assertEquals(40_000, counter.sum());
+        assertEquals(4 * 3334, counter.get(null));
+        assertEquals(4 * 3334, snapshot.get(null));
+        assertEquals(6, snapshot.size());
+        assertEquals(40_000, snapshot.sum());
+    }
+
+    @Test
+    void merge() {
+        // given
+        Counter<String> first = new Counter<>(new String[]{"a", "b", "a"});
+        Counter<String> second = new Counter<>(new String[]{"a", "c"});
+        second.substract("b");
+        ConcurrentCounter<String> concurrent = new ConcurrentCounter<>();
+
+        // when
+        first.addAll(second);
+        concurrent.addAll(first);
+        concurrent.substract("c");
+
+        // then
+        assertEquals(3, first.get("a"));
+        assertEquals(0, first.get("b"));
+        assertEquals(1, first.get("c"));
+        assertEquals(1, second.get("a"));
+        assertEquals(3, concurrent.get("a"));
+        assertEquals(0, concurrent.get("c"));
+        assertEquals(List.of("a"), List.copyOf(concurrent.snapshot().keySet()));
+    }
+
+}
@@ -0,0 +1,60 @@
+package Utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.NoSuchElementException;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RoaringBitmapTest {
+
+    @Test
+    void sparseAndDense() {
+        // given
+        SplittableRandom random = new SplittableRandom(1);
+        RoaringBitmap sparse = new RoaringBitmap();
+        RoaringBitmap dense = new RoaringBitmap();
+        BitSet sparseExpected = new BitSet();
+        BitSet denseExpected = new BitSet();
+
+        // when
+        for (int i = 0; i < 20_000; i++) {
+            int value = random.nextInt(1_000_000);
+            sparse.add(value);
+            sparseExpected.set(value);
+        }
+        for (int i = 0; i < 300_000; i += random.nextInt(1, 4)) {
+            dense.add(i);
+            denseExpected.set(i);
+        }
+        BitSet andExpected = (BitSet) sparseExpected.clone();
+        andExpected.and(denseExpected);
+
+        // then
+        assertArrayEquals(sparseExpected.stream().toArray(), sparse.toArray());
+        assertArrayEquals(denseExpected.stream().toArray(), dense.toArray());
+        assertEquals(denseExpected.cardinality(), dense.cardinality());
+        assertArrayEquals(andExpected.stream().toArray(), sparse.and(dense).toArray());
+        assertArrayEquals(denseExpected.stream().toArray(), dense.and(dense).toArray());
+        assertEquals(andExpected.cardinality(), sparse.andCardinality(dense));
+        assertEquals(andExpected.cardinality(), dense.andCardinality(sparse));
+        assertEquals(sparseExpected.nextSetBit(0), sparse.first());
+        assertTrue(dense.contains(0));
+        assertFalse(dense.contains(-1));
+    }
+
+    @Test
+    void empty() {
+        RoaringBitmap empty = RoaringBitmap.of(1, 5).and(RoaringBitmap.of(2, 70_000));
+
+        assertTrue(empty.isEmpty());
+        assertEquals(0, empty.cardinality());
+        assertThrows(NoSuchElementException.class, empty::first);
+        assertThrows(IllegalArgumentException.class, () -> empty.add(-1));
+        empty.add(3);
+        assertEquals(RoaringBitmap.of(3), empty);
+    }
+
+}
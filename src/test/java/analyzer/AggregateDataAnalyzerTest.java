@@ -0,0 +1,374 @@
+package analyzer;
+
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import example.other_examples.AggregateDataAnalyzer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import report.MemorySink;
+import report.Report;
+import testutils.InputBuilder;
+import testutils.TestWithOutputs;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AggregateDataAnalyzerTest extends TestWithOutputs {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    private static final String ANALYZE = "a";
+    private static final String OPTIONS = "Options: Analyze (a); PrintData (p); Memory (mem); Exit (e)";
+    private static final String WHAT_DO = "What would you like to do?";
+    private static final String ANALYZE_OPTIONS1 = "Choose what to analyze. Options:";
+    private static final String ANALYZE_OPTIONS2 = "Name, Distinct_Names, Frequent_Values, Number, Positive, Number_Array";
+    private static final String GROUP_QUESTION = "Do you want to group by number_positive? (y|yes)";
+    private static final String GROUPED_VALUES1 = " grouped Datasets with:";
+    private static final String GROUPED_VALUES2 = "number_positive";
+    private static final String YES = "y";
+    private static final String NO = "n";
+
+    private AggregateDataAnalyzer analyzer;
+
+    @BeforeEach
+    void setup() {
+        analyzer = new AggregateDataAnalyzer(List.of(
+                new SomeDataSet(M, "Name 1", 50, "Value 1"),
+                new SomeDataSet(M, "Name 2", 20, "Value 2"),
+                new SomeDataSet(M, "Name 3", 42, "Value 2"),
+                new SomeDataSet(M, "Name 4", -17, "Value 3"),
+                new SomeDataSet(M, null, 22, "Value 2"),
+                new SomeDataSet(M, null, -33, "Value 3"),
+                new SomeDataSet(M, "Name 1", 24, "Value 1"),
+                new SomeDataSet(M, "Name 1", -1, "Value 1"),
+                new SomeDataSet(M, "Name 2", 0, "Value 1"),
+                new SomeDataSet(M, "Name 2", 46, "Value 2"),
+                new SomeDataSet(M, "Name 3", 90, "Value 1"),
+                new SomeDataSet(M, "Name 2", -12, "Value 1"),
+                new SomeDataSet(M, "Name 1", 0, "Value 1")
+        ));
+    }
+
+    private void enable(String mode) {
+        switch (mode) {
+            case "cubes" -> analyzer.enableCubes(GroupingCube.DEFAULT_MAX_COMBINATIONS);
+            case "index" -> analyzer.enableIndex();
+            case "parallel" -> analyzer.enableParallelEvaluation(4);
+            default -> {
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"data", "cubes", "index", "parallel"})
+    void aggregate(String mode) throws IOException {
+        // given
+        // answers from cubes, the index and parallel evaluation need to be the same as from grouping the data
+        enable(mode);
+        InputBuilder.start()
+                .line(ANALYZE)
+                .line("name")
+                .line(YES)
+                .line(ANALYZE)
+                .line("name")
+                .line(NO)
+                .line(ANALYZE)
+                .line("distinct_names")
+                .line(YES)
+                .line(ANALYZE)
+                .line("frequent_values")
+                .line("e")
+                .set();
+
+        // when
+        analyzer.analyze();
+
+        // then
+        // same outputs as the List based evaluators in SomeDataAnalyzerTest
+        validateOutputs(new String[]{
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                GROUP_QUESTION,
+                5 + GROUPED_VALUES1,
+                GROUPED_VALUES2,
+                "false",
+                "Name 4: [3.62% - 62.45%] (1/5)",
+                "Name 2: [11.76% - 76.93%] (2/5)",
+                "Name 1: [11.76% - 76.93%] (2/5)",
+                6 + GROUPED_VALUES1,
+                GROUPED_VALUES2,
+                "true",
+                "Name 3: [9.68% - 70%] (2/6)",
+                "Name 2: [9.68% - 70%] (2/6)",
+                "Name 1: [9.68% - 70%] (2/6)",
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                GROUP_QUESTION,
+                "Name 4: [1.62% - 37.74%] (1/11)",
+                "Name 3: [5.14% - 47.7%] (2/11)",
+                "Name 2: [15.17% - 64.62%] (4/11)",
+                "Name 1: [15.17% - 64.62%] (4/11)",
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                GROUP_QUESTION,
+                6 + GROUPED_VALUES1,
+                GROUPED_VALUES2,
+                "false",
+                "~4 distinct values (standard error 1.63%)",
+                7 + GROUPED_VALUES1,
+                GROUPED_VALUES2,
+                "true",
+                "~4 distinct values (standard error 1.63%)",
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                "Value 1: ~7/13 53.85%",
+                "Value 2: ~4/13 30.77%",
+                "Estimates exceed the actual amounts by at most 1 with a probability of 99%",
+                WHAT_DO,
+                OPTIONS
+        });
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"data", "cubes", "index", "parallel"})
+    void primitives(String mode) throws IOException {
+        // given
+        // answers from cubes, the index and parallel evaluation need to be the same as from grouping the data
+        enable(mode);
+        InputBuilder.start()
+                .line(ANALYZE)
+                .line("number")
+                .line(ANALYZE)
+                .line("positive")
+                .line(YES)
+                .line(ANALYZE)
+                .line("number_array")
+                .line("e")
+                .set();
+
+        // when
+        analyzer.analyze();
+
+        // then
+        validateOutputs(new String[]{
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                // groups by int domains are ordered by their value
+                1 + GROUPED_VALUES1,
+                "tens",
+                "-3",
+                "Count: 1",
+                "Mean: -33",
+                "Min: -33",
+                "Max: -33",
+                2 + GROUPED_VALUES1,
+                "tens",
+                "-1",
+                "Count: 2",
+                "Mean: -14.5",
+                "Standard deviation: 3.54",
+                "Min: -17",
+                "Max: -12",
+                3 + GROUPED_VALUES1,
+                "tens",
+                "0",
+                "Count: 3",
+                "Mean: -0.33",
+                "Standard deviation: 0.58",
+                "Min: -1",
+                "Max: 0",
+                3 + GROUPED_VALUES1,
+                "tens",
+                "2",
+                "Count: 3",
+                "Mean: 22",
+                "Standard deviation: 2",
+                "Min: 20",
+                "Max: 24",
+                2 + GROUPED_VALUES1,
+                "tens",
+                "4",
+                "Count: 2",
+                "Mean: 44",
+                "Standard deviation: 2.83",
+                "Min: 42",
+                "Max: 46",
+                1 + GROUPED_VALUES1,
+                "tens",
+                "5",
+                "Count: 1",
+                "Mean: 50",
+                "Min: 50",
+                "Max: 50",
+                1 + GROUPED_VALUES1,
+                "tens",
+                "9",
+                "Count: 1",
+                "Mean: 90",
+                "Min: 90",
+                "Max: 90",
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                "Do you want to group by has_name? (y|yes)",
+                2 + GROUPED_VALUES1,
+                "has_name",
+                "false",
+                "true: [9.45% - 90.55%] (1/2)",
+                11 + GROUPED_VALUES1,
+                "has_name",
+                "true",
+                "true: [28.01% - 78.73%] (6/11)",
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                "Count: 13",
+                "Mean: 17.77",
+                "Standard deviation: 33.36",
+                "Min: -33",
+                "Max: 90",
+                WHAT_DO,
+                OPTIONS
+        });
+    }
+
+    @Test
+    void sampling() throws IOException {
+        // given
+        analyzer.enableSampling(100, null);
+        InputBuilder.start()
+                .line(ANALYZE)
+                .line("number_array")
+                .line("e")
+                .set();
+
+        // when
+        analyzer.analyze();
+
+        // then
+        // the sample is larger than the data, so it contains all DataSets
+        validateOutputs(new String[]{
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                "Approximate results from a sample of 13 out of 13 DataSets",
+                "Percentages within ±0% (95% confidence)",
+                "Count: 13",
+                "Mean: 17.77",
+                "Standard deviation: 33.36",
+                "Min: -33",
+                "Max: 90",
+                WHAT_DO,
+                OPTIONS
+        });
+    }
+
+    @Test
+    void stratifiedSampling() throws IOException {
+        // given
+        analyzer.enableSampling(100, GroupingDefinition.ofPredicate("number_positive", t -> t.getNumber() > 0));
+        InputBuilder.start()
+                .line(ANALYZE)
+                .line("number_array")
+                .line("e")
+                .set();
+
+        // when
+        analyzer.analyze();
+
+        // then
+        // the strata are forced, so the Question is grouped by them without asking
+        validateOutputs(new String[]{
+                WHAT_DO,
+                OPTIONS,
+                ANALYZE_OPTIONS1,
+                ANALYZE_OPTIONS2,
+                "Approximate results from a sample of 13 out of 13 DataSets",
+                "number_positive true: 7 out of 7, percentages within ±0% (95% confidence)",
+                "number_positive false: 6 out of 6, percentages within ±0% (95% confidence)",
+                6 + GROUPED_VALUES1,
+                GROUPED_VALUES2,
+                "false",
+                "Count: 6",
+                "Mean: -10.5",
+                "Standard deviation: 13.13",
+                "Min: -33",
+                "Max: 0",
+                7 + GROUPED_VALUES1,
+                GROUPED_VALUES2,
+                "true",
+                "Count: 7",
+                "Mean: 42",
+                "Standard deviation: 24.47",
+                "Min: 20",
+                "Max: 90",
+                WHAT_DO,
+                OPTIONS
+        });
+    }
+
+    @Test
+    void intGroupingOutsideRange() {
+        // given
+        GroupingDefinition<SomeDataSet> grouping = GroupingDefinition.ofInt("tens", t -> t.getNumber() / 10, 0, 9);
+        SomeDataSet outside = new SomeDataSet(M, "Name 1", -17, "Value 1");
+        SomeDataSet inside = new SomeDataSet(M, "Name 1", 17, "Value 1");
+
+        // then
+        // the hashed and the indexed path reject the value the same way
+        assertThrows(IllegalArgumentException.class, () -> grouping.function().apply(outside));
+        assertThrows(IllegalArgumentException.class, () -> grouping.domain().index().applyAsInt(outside));
+        assertEquals(1, grouping.function().apply(inside));
+        assertEquals(1, grouping.domain().index().applyAsInt(inside));
+    }
+
+    @Test
+    void proportionWithoutValues() {
+        // given
+        Question<SomeDataSet> question = Question.ask("Positive", SomeDataSet.class)
+                .predicateEvaluator(t -> t.getNumber() > 0, BaseDataAnalyzer.PROPORTION)
+                .conditionAll(_ -> false)
+                .build();
+        MemorySink sink = new MemorySink();
+
+        // when
+        Report.writeTo(sink, () -> Survey.run(question, List.of(), List.of(new SomeDataSet(M, "Name 1", 5, "Value 1")), null));
+
+        // then
+        assertEquals(List.of(), sink.lines());
+    }
+
+    @Test
+    void memoryOfReplacedData() {
+        // given
+        long before = analyzer.memory.getEstimates().get("data");
+        List<SomeDataSet> replaced = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) replaced.add(new SomeDataSet(M, "Name " + i, i, "Value " + i));
+
+        // when
+        analyzer.data = replaced;
+
+        // then
+        long after = analyzer.memory.getEstimates().get("data");
+        assertTrue(after > 50 * before, before + " " + after);
+    }
+
+}
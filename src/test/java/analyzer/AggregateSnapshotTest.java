@@ -0,0 +1,167 @@
+package analyzer;
+
+import analyzer.aggregation.Frequencies;
+import analyzer.aggregation.TopK;
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import testutils.SomeDataSets;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static testutils.SomeDataSets.data;
+import static testutils.SomeDataSets.render;
+
+class AggregateSnapshotTest {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    private static final GroupingDefinition<SomeDataSet> NAME = new GroupingDefinition<>("name", SomeDataSet::getName);
+    private static final GroupingDefinition<SomeDataSet> VALUE =
+            new GroupingDefinition<>("value", SomeDataSet::getSomeValue).asForced();
+
+    private static final Question<SomeDataSet> FREQUENCIES = Question.ask("Frequencies", SomeDataSet.class)
+            .aggregate(SomeDataSet::getNumber, Frequencies::wilsonConfidence)
+            .groupings(NAME, VALUE)
+            .build();
+    private static final Question<SomeDataSet> TOP = Question.ask("Top", SomeDataSet.class)
+            .aggregate(SomeDataSet::getName, () -> new TopK(3))
+            .groupings(VALUE)
+            .build();
+    private static final Question<SomeDataSet> LIST = Question.ask("List", SomeDataSet.class)
+            .evaluator(SomeDataSet::getName, List::size)
+            .build();
+    private static final List<Question<SomeDataSet>> QUESTIONS = List.of(FREQUENCIES, TOP, LIST);
+
+    @TempDir
+    Path directory;
+
+    private final SomeDataSets.Codec codec = new SomeDataSets.Codec();
+
+    @Test
+    void foldsInAppendedData() throws IOException {
+        // given
+        Path dataFile = directory.resolve("data.txt");
+        Path snapshotFile = directory.resolve("data.snapshot");
+        List<SomeDataSet> data = data(0, 100);
+        append(dataFile, data);
+        AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS).save();
+        List<SomeDataSet> appended = data(100, 130);
+        append(dataFile, appended);
+        codec.resetDecoded();
+
+        // when
+        AggregateSnapshot<SomeDataSet> snapshot = AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS);
+
+        // then
+        assertTrue(snapshot.restored());
+        assertEquals(30, snapshot.appended());
+        assertEquals(30, codec.decoded());
+        assertNull(snapshot.cube(LIST));
+        List<SomeDataSet> all = new ArrayList<>(data);
+        all.addAll(appended);
+        assertEquals(render(new GroupingCube<>(FREQUENCIES, all), List.of(NAME, VALUE)),
+                render(snapshot.cube(FREQUENCIES), List.of(NAME, VALUE)));
+        assertEquals(render(new GroupingCube<>(FREQUENCIES, all), List.of(VALUE)),
+                render(snapshot.cube(FREQUENCIES), List.of(VALUE)));
+        assertEquals(render(new GroupingCube<>(TOP, all), List.of(VALUE)), render(snapshot.cube(TOP), List.of(VALUE)));
+    }
+
+    @Test
+    void rewrittenData() throws IOException {
+        // given
+        Path dataFile = directory.resolve("data.txt");
+        Path snapshotFile = directory.resolve("data.snapshot");
+        append(dataFile, data(0, 100));
+        AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS).save();
+        Files.delete(dataFile);
+        append(dataFile, data(1, 101));
+
+        // when
+        AggregateSnapshot<SomeDataSet> snapshot = AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS);
+
+        // then
+        assertFalse(snapshot.restored());
+        assertEquals(100, snapshot.appended());
+        assertEquals(render(new GroupingCube<>(TOP, data(1, 101)), List.of(VALUE)), render(snapshot.cube(TOP), List.of(VALUE)));
+    }
+
+    @Test
+    void changedQuestions() throws IOException {
+        // given
+        Path dataFile = directory.resolve("data.txt");
+        Path snapshotFile = directory.resolve("data.snapshot");
+        append(dataFile, data(0, 10));
+        AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS).save();
+        Question<SomeDataSet> regrouped = Question.ask("Top", SomeDataSet.class)
+                .aggregate(SomeDataSet::getName, () -> new TopK(3))
+                .groupings(NAME)
+                .build();
+
+        // when
+        AggregateSnapshot<SomeDataSet> snapshot = AggregateSnapshot.open(snapshotFile, dataFile, codec, List.of(FREQUENCIES, regrouped));
+
+        // then
+        assertFalse(snapshot.restored());
+        assertEquals(10, snapshot.appended());
+    }
+
+    @Test
+    void changedInTheMiddle() throws IOException {
+        // given
+        Path dataFile = directory.resolve("data.txt");
+        Path snapshotFile = directory.resolve("data.snapshot");
+        append(dataFile, data(0, 10000));
+        AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS).save();
+        List<SomeDataSet> changed = new ArrayList<>(data(0, 10000));
+        // same length as the replaced line, far away from the start and the end of the file
+        changed.set(5000, new SomeDataSet(M, "Name 9", 9, "Value 9"));
+        Files.delete(dataFile);
+        append(dataFile, changed);
+
+        // when
+        AggregateSnapshot<SomeDataSet> snapshot = AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS);
+
+        // then
+        assertFalse(snapshot.restored());
+        assertEquals(10000, snapshot.appended());
+        assertEquals(render(new GroupingCube<>(TOP, changed), List.of(VALUE)), render(snapshot.cube(TOP), List.of(VALUE)));
+    }
+
+    @Test
+    void changedAggregateParameters() throws IOException {
+        // given
+        Path dataFile = directory.resolve("data.txt");
+        Path snapshotFile = directory.resolve("data.snapshot");
+        append(dataFile, data(0, 10));
+        AggregateSnapshot.open(snapshotFile, dataFile, codec, QUESTIONS).save();
+        Question<SomeDataSet> moreTop = Question.ask("Top", SomeDataSet.class)
+                .aggregate(SomeDataSet::getName, () -> new TopK(5))
+                .groupings(VALUE)
+                .build();
+        append(dataFile, data(10, 12));
+
+        // when
+        AggregateSnapshot<SomeDataSet> snapshot = AggregateSnapshot.open(snapshotFile, dataFile, codec, List.of(FREQUENCIES, moreTop));
+
+        // then
+        assertFalse(snapshot.restored());
+        assertEquals(12, snapshot.appended());
+        assertEquals(render(new GroupingCube<>(FREQUENCIES, data(0, 12)), List.of(VALUE)),
+                render(snapshot.cube(FREQUENCIES), List.of(VALUE)));
+    }
+
+    private void append(Path file, List<SomeDataSet> data) throws IOException {
+        Files.write(file, data.stream().map(codec::encode).toList(), StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+    }
+
+}
@@ -0,0 +1,151 @@
+package analyzer;
+
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import example.other_examples.AggregateDataAnalyzer;
+import org.junit.jupiter.api.Test;
+import report.MemorySink;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BatchReportTest {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    private static final List<SomeDataSet> DATA = List.of(
+            new SomeDataSet(M, "Name 1", 50, "Value 1"),
+            new SomeDataSet(M, "Name 2", 20, "Value 2"),
+            new SomeDataSet(M, "Name 3", 42, "Value 2"),
+            new SomeDataSet(M, "Name 4", -17, "Value 3"),
+            new SomeDataSet(M, null, 22, "Value 2"),
+            new SomeDataSet(M, null, -33, "Value 3"),
+            new SomeDataSet(M, "Name 1", 24, "Value 1")
+    );
+
+    private static final GroupingDefinition<SomeDataSet> POSITIVE =
+            GroupingDefinition.ofPredicate("positive", t -> t.getNumber() > 0);
+    private static final GroupingDefinition<SomeDataSet> VALUE =
+            new GroupingDefinition<>("value", SomeDataSet::getSomeValue);
+    private static final GroupingDefinition<SomeDataSet> NAMED =
+            GroupingDefinition.<SomeDataSet>ofPredicate("named", t -> t.getName() != null).asForced();
+
+    private static final Question<SomeDataSet> QUESTION = Question.ask("Numbers", SomeDataSet.class)
+            .evaluator(SomeDataSet::getNumber, BaseDataAnalyzer.NUMERIC_SUMMARY)
+            .groupings(POSITIVE, VALUE, NAMED)
+            .build();
+
+    @Test
+    void combinations() {
+        assertEquals(
+                List.of(List.of(NAMED)),
+                BatchReport.combinations(QUESTION, BatchReport.Combinations.FORCED)
+        );
+        assertEquals(
+                List.of(List.of(NAMED), List.of(POSITIVE, NAMED), List.of(VALUE, NAMED)),
+                BatchReport.combinations(QUESTION, BatchReport.Combinations.EACH)
+        );
+        assertEquals(
+                List.of(List.of(NAMED), List.of(POSITIVE, NAMED), List.of(VALUE, NAMED), List.of(POSITIVE, VALUE, NAMED)),
+                BatchReport.combinations(QUESTION, BatchReport.Combinations.ALL)
+        );
+    }
+
+    @Test
+    void manyGroupings() {
+        // given
+        Question.Builder<SomeDataSet> builder = Question.ask("Numbers", SomeDataSet.class)
+                .evaluator(SomeDataSet::getNumber, BaseDataAnalyzer.NUMERIC_SUMMARY);
+        for (int i = 0; i < 40; i++) {
+            int limit = i;
+            builder.groupings(GroupingDefinition.ofPredicate("above " + i, t -> t.getNumber() > limit));
+        }
+        Question<SomeDataSet> question = builder.build();
+
+        // when
+        List<List<GroupingDefinition<SomeDataSet>>> each = BatchReport.combinations(question, BatchReport.Combinations.EACH);
+
+        // then
+        assertEquals(41, each.size());
+        assertEquals(List.of(question.groupings().get(35)), each.get(36));
+        assertThrows(IllegalArgumentException.class, () -> BatchReport.combinations(question, BatchReport.Combinations.ALL));
+        assertThrows(IllegalArgumentException.class, () -> BatchReport.combinations(
+                Question.ask("Numbers", SomeDataSet.class)
+                        .evaluator(SomeDataSet::getNumber, BaseDataAnalyzer.NUMERIC_SUMMARY)
+                        .groupings(question.groupings().subList(0, 7))
+                        .build(),
+                BatchReport.Combinations.ALL));
+        assertEquals(64, BatchReport.combinations(Question.ask("Numbers", SomeDataSet.class)
+                .evaluator(SomeDataSet::getNumber, BaseDataAnalyzer.NUMERIC_SUMMARY)
+                .groupings(question.groupings().subList(0, 6))
+                .build(), BatchReport.Combinations.ALL).size());
+    }
+
+    @Test
+    void deterministic() {
+        // given
+        BatchReport<SomeDataSet> sequential = BatchReport.of(List.of(QUESTION, QUESTION), DATA)
+                .combinations(BatchReport.Combinations.ALL).threads(1).build();
+        BatchReport<SomeDataSet> parallel = BatchReport.of(List.of(QUESTION, QUESTION), DATA)
+                .combinations(BatchReport.Combinations.ALL).threads(4).build();
+        MemorySink sequentialSink = new MemorySink();
+        MemorySink parallelSink = new MemorySink();
+
+        // when
+        List<BatchReport.Timing> timings = sequential.write(sequentialSink);
+        parallel.write(parallelSink);
+
+        // then
+        assertEquals(8, timings.size());
+        assertEquals(List.of("positive", "named"), timings.get(1).groupings());
+        List<String> lines = sequentialSink.lines();
+        int timing = lines.indexOf("===== Timing =====");
+        assertEquals(lines.subList(0, timing), parallelSink.lines().subList(0, timing));
+        assertEquals(List.of(
+                "===== Numbers =====",
+                "Grouped by: named",
+                2 + " grouped Datasets with:",
+                "named",
+                "false",
+                "Count: 2",
+                "Mean: -5.5",
+                "Standard deviation: 38.89",
+                "Min: -33",
+                "Max: 22"
+        ), lines.subList(0, 10));
+        assertTrue(lines.get(timing + 1).startsWith("Numbers: "));
+        assertTrue(lines.get(timing + 2).startsWith("Total: "));
+    }
+
+    @Test
+    void analyzer() throws IOException {
+        // given
+        AggregateDataAnalyzer analyzer = new AggregateDataAnalyzer(DATA);
+        Path file = Files.createTempFile("report", ".txt");
+        file.toFile().deleteOnExit();
+
+        // when
+        List<BatchReport.Timing> timings = analyzer.writeBatchReport(file);
+
+        // then
+        // Name, Distinct_Names and Positive have 2 combinations, the other Questions 1
+        assertEquals(9, timings.size());
+        List<String> lines = Files.readAllLines(file);
+        assertEquals("===== Name =====", lines.getFirst());
+        assertEquals(9, lines.stream().filter(l -> l.startsWith("=====")).count() - 1);
+    }
+
+    @Test
+    void invalidCombinations() {
+        BatchReport<SomeDataSet> report = BatchReport.of(List.of(QUESTION), DATA)
+                .combinations(_ -> List.of(List.of(POSITIVE)))
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> report.write(new MemorySink()));
+    }
+
+}
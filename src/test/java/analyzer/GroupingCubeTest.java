@@ -0,0 +1,84 @@
+package analyzer;
+
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GroupingCubeTest {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    private static final GroupingDefinition<SomeDataSet> NAME = new GroupingDefinition<>("name", SomeDataSet::getName);
+    private static final GroupingDefinition<SomeDataSet> POSITIVE =
+            GroupingDefinition.ofPredicate("positive", t -> t.getNumber() > 0);
+    private static final GroupingDefinition<SomeDataSet> VALUE =
+            new GroupingDefinition<>("value", SomeDataSet::getSomeValue).asForced();
+
+    private static final List<SomeDataSet> DATA = List.of(
+            new SomeDataSet(M, "Name 1", 50, "Value 1"),
+            new SomeDataSet(M, "Name 2", -20, "Value 2"),
+            new SomeDataSet(M, "Name 1", 42, "Value 2"),
+            new SomeDataSet(M, "Name 2", 7, "Value 1"),
+            new SomeDataSet(M, "Name 1", -3, "Value 1")
+    );
+
+    private static final Question<SomeDataSet> QUESTION = Question.ask("Name", SomeDataSet.class)
+            .evaluator(SomeDataSet::getName, List::size)
+            .groupings(NAME, POSITIVE, VALUE)
+            .build();
+
+    @Test
+    void rollUp() {
+        // when
+        GroupingCube<SomeDataSet> cube = new GroupingCube<>(QUESTION, DATA);
+        Map<List<?>, GroupingCube.Cell<SomeDataSet>> byValue = cube.cells(List.of(VALUE));
+        Map<List<?>, GroupingCube.Cell<SomeDataSet>> byNameAndValue = cube.cells(List.of(NAME, VALUE));
+
+        // then
+        assertEquals(4, cube.combinations());
+        assertEquals(2, byValue.size());
+        assertEquals(3, byValue.get(List.of("Value 1")).size);
+        assertEquals(List.of(DATA.get(0), DATA.get(3), DATA.get(4)), byValue.get(List.of("Value 1")).values());
+        assertEquals(List.of(DATA.get(1), DATA.get(2)), byValue.get(List.of("Value 2")).values());
+        assertEquals(List.of(DATA.get(0), DATA.get(4)), byNameAndValue.get(List.of("Name 1", "Value 1")).values());
+        assertThrows(IllegalArgumentException.class, () -> cube.cells(List.of(NAME)));
+    }
+
+    @Test
+    void maxCombinations() {
+        assertEquals(4, GroupingCube.countCombinations(QUESTION));
+        assertThrows(IllegalArgumentException.class, () -> new GroupingCube<>(QUESTION, DATA, 3));
+    }
+
+    @Test
+    void rolledUpValuesInDataOrder() {
+        // given
+        List<SomeDataSet> data = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            data.add(new SomeDataSet(M, "Name " + i % 7, i % 3 - 1, "Value " + i % 2));
+        }
+
+        // when
+        GroupingCube<SomeDataSet> cube = new GroupingCube<>(QUESTION, data);
+
+        // then
+        for (List<GroupingDefinition<SomeDataSet>> selected : List.of(List.of(VALUE), List.of(NAME, VALUE), List.of(POSITIVE, VALUE))) {
+            Map<List<?>, List<SomeDataSet>> direct = new HashMap<>();
+            for (SomeDataSet t : data) {
+                List<Object> keys = selected.stream().<Object>map(gd -> gd.function().apply(t)).toList();
+                direct.computeIfAbsent(keys, _ -> new ArrayList<>()).add(t);
+            }
+            Map<List<?>, List<SomeDataSet>> rolledUp = new HashMap<>();
+            cube.cells(selected).forEach((keys, cell) -> rolledUp.put(keys, cell.values()));
+            assertEquals(direct, rolledUp);
+        }
+    }
+
+}
@@ -0,0 +1,64 @@
+package analyzer;
+
+import org.junit.jupiter.api.Test;
+import testutils.TestWithOutputs;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.BiConsumer;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static report.Report.println;
+
+class ParallelGroupsTest extends TestWithOutputs {
+
+    @Test
+    void ordered() throws IOException {
+        // given
+        Map<List<?>, Integer> groups = new LinkedHashMap<>();
+        for (int i = 0; i < 100; i++) {
+            groups.put(List.of("group " + i), i);
+        }
+        BiConsumer<List<?>, Integer> render = (keys, group) -> {
+            println(keys.getFirst());
+            try {
+                // groups finish in random order
+                Thread.sleep(ThreadLocalRandom.current().nextInt(3));
+            } catch (InterruptedException e) {
+                throw new RuntimeException(e);
+            }
+            println(group * group);
+        };
+        String[] expected = new String[201];
+        for (int i = 0; i < 100; i++) {
+            expected[2 * i] = "group " + i;
+            expected[2 * i + 1] = String.valueOf(i * i);
+        }
+        expected[200] = "done";
+
+        // when
+        ForkJoinPool pool = new ForkJoinPool(8);
+        ParallelGroups.forEach(groups, render, pool);
+        println("done");
+        pool.shutdown();
+
+        // then
+        validateOutputs(expected);
+    }
+
+    @Test
+    void failingGroup() {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        Map<List<?>, Integer> groups = Map.of(List.of(1), 1, List.of(2), 2);
+
+        assertThrows(IllegalStateException.class, () -> ParallelGroups.forEach(groups, (_, _) -> {
+            throw new IllegalStateException();
+        }, pool));
+        pool.shutdown();
+    }
+
+}
@@ -0,0 +1,165 @@
+package analyzer;
+
+import analyzer.aggregation.Aggregate;
+import analyzer.aggregation.Frequencies;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import report.Report;
+import testutils.SomeDataSets;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static testutils.SomeDataSets.data;
+import static testutils.SomeDataSets.render;
+
+class PartialAggregatesTest {
+
+    private static final GroupingDefinition<SomeDataSet> NAME = new GroupingDefinition<>("name", SomeDataSet::getName);
+    private static final GroupingDefinition<SomeDataSet> VALUE = new GroupingDefinition<>("value", SomeDataSet::getSomeValue);
+
+    private static final Question<SomeDataSet> NUMBERS = Question.ask("Numbers", SomeDataSet.class)
+            .aggregate(SomeDataSet::getNumber, Frequencies::wilsonConfidence)
+            .groupings(NAME, VALUE)
+            .build();
+    private static final List<Question<SomeDataSet>> QUESTIONS = List.of(NUMBERS);
+
+    private static final SomeDataSets.Codec CODEC = new SomeDataSets.Codec();
+
+    @TempDir
+    Path directory;
+
+    /**
+     * Aggregates one shard in a separate process.
+     */
+    static class Shard {
+        public static void main(String[] args) throws IOException {
+            List<SomeDataSet> shard = Files.readAllLines(Path.of(args[0])).stream().map(CODEC::decode).toList();
+            PartialAggregates.of(QUESTIONS, shard).write(Path.of(args[1]));
+        }
+    }
+
+    @Test
+    void mergeShardsOfSeveralProcesses() throws Exception {
+        // given
+        List<List<SomeDataSet>> shards = List.of(data(0, 40), data(40, 90), data(90, 150));
+        List<Process> processes = new ArrayList<>();
+        List<Path> partials = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            Path shardFile = directory.resolve("shard" + i + ".txt");
+            Files.write(shardFile, shards.get(i).stream().map(CODEC::encode).toList(), StandardCharsets.UTF_8);
+            Path partial = directory.resolve("shard" + i + ".partial");
+            partials.add(partial);
+            processes.add(startShard(shardFile, partial));
+        }
+        for (Process process : processes) {
+            assertTrue(process.waitFor(60, TimeUnit.SECONDS));
+            assertEquals(0, process.exitValue(), new String(process.getInputStream().readAllBytes()));
+        }
+
+        // when
+        PartialAggregates<SomeDataSet> merged = new PartialAggregates<>(QUESTIONS);
+        partials.forEach(merged::merge);
+
+        // then
+        assertEquals(3, merged.shards());
+        List<SomeDataSet> all = shards.stream().flatMap(List::stream).toList();
+        GroupingCube<SomeDataSet> expected = new GroupingCube<>(NUMBERS, all);
+        for (List<GroupingDefinition<SomeDataSet>> groupings : List.of(List.<GroupingDefinition<SomeDataSet>>of(), List.of(NAME), List.of(NAME, VALUE))) {
+            assertEquals(render(expected, groupings), render(merged.cube(NUMBERS), groupings));
+        }
+    }
+
+    @Test
+    void otherQuestions() {
+        // given
+        Path file = directory.resolve("shard.partial");
+        PartialAggregates.of(QUESTIONS, data(0, 10)).write(file);
+        Question<SomeDataSet> regrouped = Question.ask("Numbers", SomeDataSet.class)
+                .aggregate(SomeDataSet::getNumber, Frequencies::wilsonConfidence)
+                .groupings(VALUE)
+                .build();
+        PartialAggregates<SomeDataSet> merged = new PartialAggregates<>(List.of(regrouped));
+
+        // when + then
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(file));
+        assertEquals(0, merged.shards());
+    }
+
+    @Test
+    void failingMergeChangesNothing() {
+        // given
+        PartialAggregates<SomeDataSet> merged = PartialAggregates.of(List.of(NUMBERS, limited(3)), data(0, 10));
+        PartialAggregates<SomeDataSet> other = PartialAggregates.of(List.of(NUMBERS, limited(5)), data(10, 20));
+
+        // when + then
+        assertThrows(IllegalArgumentException.class, () -> merged.merge(other));
+        assertEquals(1, merged.shards());
+        assertEquals(render(new GroupingCube<>(NUMBERS, data(0, 10)), List.of(NAME)), render(merged.cube(NUMBERS), List.of(NAME)));
+    }
+
+    private static Question<SomeDataSet> limited(int limit) {
+        return Question.ask("Limited", SomeDataSet.class)
+                .aggregate(SomeDataSet::getName, () -> new Limited(limit))
+                .build();
+    }
+
+    /**
+     * Counts up to a limit and only merges with Aggregates of the same limit. It can't be serialized, so the check of
+     * the configuration before merging doesn't notice the different limits.
+     */
+    private static class Limited implements Aggregate<String> {
+        private final int limit;
+        @SuppressWarnings({"unused", "serial"})
+        private final Object notSerializable = new Object();
+        private int count;
+
+        Limited(int limit) {
+            this.limit = limit;
+        }
+
+        @Override
+        public void add(String value) {
+            count = Math.min(count + 1, limit);
+        }
+
+        @Override
+        public void merge(Aggregate<String> other) {
+            if (!(other instanceof Limited limited) || limited.limit != limit) {
+                throw new IllegalArgumentException("Can only merge with the same limit");
+            }
+            count = Math.min(count + limited.count, limit);
+        }
+
+        @Override
+        public void print() {
+            Report.println(count + "/" + limit);
+        }
+    }
+
+    private static Process startShard(Path shardFile, Path partial) throws IOException, URISyntaxException {
+        List<String> command = new ArrayList<>();
+        command.add(Path.of(System.getProperty("java.home"), "bin", "java").toString());
+        ManagementFactory.getRuntimeMXBean().getInputArguments().stream()
+                .filter(arg -> !arg.startsWith("-agentlib:jdwp"))
+                .forEach(command::add);
+        // the test may run in a class loader of the test runner, so add the locations of the classes explicitly
+        Set<String> classPath = new LinkedHashSet<>(List.of(System.getProperty("java.class.path").split(File.pathSeparator)));
+        for (Class<?> c : List.of(PartialAggregatesTest.class, PartialAggregates.class)) {
+            classPath.add(Path.of(c.getProtectionDomain().getCodeSource().getLocation().toURI()).toString());
+        }
+        command.addAll(List.of("-cp", String.join(File.pathSeparator, classPath), Shard.class.getName(),
+                shardFile.toString(), partial.toString()));
+        return new ProcessBuilder(command).redirectErrorStream(true).start();
+    }
+
+}
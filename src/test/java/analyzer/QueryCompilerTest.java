@@ -0,0 +1,162 @@
+package analyzer;
+
+import analyzer.aggregation.Frequencies;
+import analyzer.aggregation.NumericSummary;
+import dataset.MapDataSet;
+import example.MetadataExample;
+import example.example_one.SomeDataAnalyzer;
+import example.example_one.SomeDataSet;
+import exceptions.QuerySyntaxException;
+import org.junit.jupiter.api.Test;
+import report.MemorySink;
+import report.Report;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class QueryCompilerTest {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    private static final QueryCompiler<SomeDataSet> COMPILER = new QueryCompiler<>(Map.<String, Function<SomeDataSet, ?>>of(
+            "name", SomeDataSet::getName,
+            "number", SomeDataSet::getNumber,
+            "someValue", SomeDataSet::getSomeValue
+    ));
+
+    private static final List<SomeDataSet> DATA = List.of(
+            new SomeDataSet(M, "Name 1", 50, "Value 1"),
+            new SomeDataSet(M, "Name 2", 20, "Value 2"),
+            new SomeDataSet(M, "Name 3", 42, "Value 2"),
+            new SomeDataSet(M, "Name 4", -17, "Value 3"),
+            new SomeDataSet(M, null, 22, "Value 2"),
+            new SomeDataSet(M, "Name 1", 24, "Value 1"),
+            new SomeDataSet(M, "Name 1", -1, null),
+            new SomeDataSet(M, "Name 2", 0, "Value 1"),
+            new SomeDataSet(M, "Name 3", 90, "Value 1")
+    );
+
+    @Test
+    void sameOutputAsHandWrittenQuestion() {
+        // given
+        Question<SomeDataSet> compiled = COMPILER.compile(
+                "WHERE not number <= 0 and (name = 'Name 1' or name > 'Name 2') Group By name evaluate wilson(someValue)");
+        Question<SomeDataSet> handWritten = Question.ask("Name", SomeDataSet.class)
+                .aggregate(SomeDataSet::getSomeValue, Frequencies::wilsonConfidence)
+                .conditionAll(t -> t.getNumber() > 0 && t.getName() != null
+                        && (t.getName().equals("Name 1") || t.getName().compareTo("Name 2") > 0))
+                .groupings(new GroupingDefinition<>("name", SomeDataSet::getName, true))
+                .build();
+
+        // when
+        List<String> compiledOutput = run(compiled, DATA);
+        List<String> handWrittenOutput = run(handWritten, DATA);
+
+        // then
+        assertEquals(handWrittenOutput, compiledOutput);
+        assertEquals(List.of(
+                "2 grouped Datasets with:", "name", "Name 1", "Value 1: [34.24% - 100%] (2/2)",
+                "2 grouped Datasets with:", "name", "Name 3", "Value 1: [9.45% - 90.55%] (1/2)", "Value 2: [9.45% - 90.55%] (1/2)"
+        ), compiledOutput);
+        assertEquals("WHERE not number <= 0 and (name = 'Name 1' or name > 'Name 2') Group By name evaluate wilson(someValue)",
+                compiled.toString());
+        assertTrue(compiled.groupings().stream().allMatch(GroupingDefinition::forced));
+    }
+
+    @Test
+    void numericFunctionsAndNullChecks() {
+        // given
+        Question<SomeDataSet> compiled = COMPILER.compile("where someValue is not null evaluate summary(number)");
+        Question<SomeDataSet> handWritten = Question.ask("Summary", SomeDataSet.class)
+                .aggregate(SomeDataSet::getNumber, NumericSummary::new)
+                .conditionAll(t -> t.getSomeValue() != null)
+                .build();
+
+        // when
+        List<String> compiledOutput = run(compiled, DATA);
+
+        // then
+        assertEquals(run(handWritten, DATA), compiledOutput);
+        assertFalse(compiledOutput.isEmpty());
+    }
+
+    @Test
+    void mapDataSets() {
+        // given
+        QueryCompiler<MapDataSet> compiler = QueryCompiler.forMapDataSets("a", "flag", "size");
+        List<MapDataSet> data = List.of(
+                map("a", "x", "flag", true, "size", 3.5),
+                map("a", "y", "flag", false, "size", 1),
+                map("a", "x", "flag", true, "size", 2L),
+                map("a", "x", "flag", null, "size", 7)
+        );
+
+        // when
+        List<String> output = run(compiler.compile("where flag = true and size >= 2 evaluate percentages(a)"), data);
+
+        // then
+        assertEquals(List.of("x: 2/2 100%"), output);
+        assertEquals(6, assertThrows(QuerySyntaxException.class,
+                () -> compiler.compile("where flg = true evaluate percentages(a)")).getPosition());
+    }
+
+    @Test
+    void syntaxErrors() {
+        assertEquals(6, assertThrows(QuerySyntaxException.class,
+                () -> COMPILER.compile("where nme = 'a' evaluate wilson(name)")).getPosition());
+        assertEquals(15, assertThrows(QuerySyntaxException.class,
+                () -> COMPILER.compile("where number > evaluate wilson(name)")).getPosition());
+        assertEquals(6, assertThrows(QuerySyntaxException.class,
+                () -> COMPILER.compile("group name evaluate wilson(name)")).getPosition());
+        assertEquals(0, assertThrows(QuerySyntaxException.class,
+                () -> COMPILER.compile("median(number)")).getPosition());
+        assertEquals(9, assertThrows(QuerySyntaxException.class,
+                () -> COMPILER.compile("evaluate median(number)")).getPosition());
+        assertEquals(22, assertThrows(QuerySyntaxException.class,
+                () -> COMPILER.compile("evaluate wilson(name) and number > 0")).getPosition());
+        assertThrows(QuerySyntaxException.class, () -> COMPILER.compile("where name = 'a evaluate wilson(name)"));
+        assertThrows(QuerySyntaxException.class, () -> COMPILER.compile("where name is null evaluate top(name, 0)"));
+    }
+
+    @Test
+    void queryAction() {
+        // given
+        SomeDataAnalyzer analyzer = new SomeDataAnalyzer(DATA) {
+            @Override
+            protected QueryCompiler<SomeDataSet> queryCompiler() {
+                return COMPILER;
+            }
+        };
+        MemorySink sink = new MemorySink();
+
+        // when
+        Report.writeTo(sink, () -> analyzer.analyze(List.of(
+                "q", "where name = 'Name 3' evaluate top(someValue, 2)",
+                "q", "where name = evaluate top(someValue)",
+                "e"
+        )));
+
+        // then
+        List<String> lines = sink.lines();
+        assertEquals(List.of("Value 2: 50% [9.45% - 90.55%] (1/2)", "Value 1: 50% [9.45% - 90.55%] (1/2)"), lines.subList(0, 2));
+        assertTrue(lines.get(2).startsWith("Invalid query: Expected a literal"), lines.get(2));
+        assertEquals("Script timings:", lines.get(3));
+    }
+
+    private static MapDataSet map(Object... entries) {
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < entries.length; i += 2) map.put((String) entries[i], entries[i + 1]);
+        return new MapDataSet(map);
+    }
+
+    private static <T extends dataset.BaseDataSet> List<String> run(Question<T> question, List<T> data) {
+        MemorySink sink = new MemorySink();
+        Report.writeTo(sink, () -> Survey.run(question, question.groupings(), data, null));
+        return sink.lines();
+    }
+
+}
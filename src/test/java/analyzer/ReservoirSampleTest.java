@@ -0,0 +1,83 @@
+package analyzer;
+
+import dataset.DataSetGenerator;
+import dataset.MapDataSet;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.IntSummaryStatistics;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReservoirSampleTest {
+
+    private static final DataSetGenerator<MapDataSet> GENERATOR = DataSetGenerator.mapDataSets()
+            .seed(3)
+            .size(100_000)
+            .field("value", 4)
+            .field("rare", 100, 2, 0)
+            .build();
+
+    @Test
+    void uniform() {
+        // given
+        ReservoirSample<MapDataSet> sample = new ReservoirSample<>(2_000, 41);
+
+        // when
+        sample.addAll(GENERATOR);
+        Map<Object, Long> counts = sample.sample().stream()
+                .collect(Collectors.groupingBy(d -> d.getMap().get("value"), Collectors.counting()));
+
+        // then
+        assertEquals(100_000, sample.population());
+        assertEquals(2_000, sample.sample().size());
+        double margin = ReservoirSample.marginOfError(2_000, 100_000);
+        counts.values().forEach(c -> assertEquals(0.25, c / 2_000d, margin));
+    }
+
+    @Test
+    void positions() {
+        // given
+        ReservoirSample<SomeDataSet> sample = new ReservoirSample<>(5_000, 7);
+
+        // when
+        for (int i = 0; i < 1_000_000; i++) {
+            sample.add(new SomeDataSet(null, null, i, null));
+        }
+        IntSummaryStatistics numbers = sample.sample().stream().mapToInt(SomeDataSet::getNumber).summaryStatistics();
+
+        // then
+        // positions are uniformly distributed, so early and late DataSets are sampled as well
+        assertEquals(500_000, numbers.getAverage(), 10_000);
+        assertTrue(numbers.getMin() < 2_000);
+        assertTrue(numbers.getMax() > 998_000);
+    }
+
+    @Test
+    void stratified() {
+        // given
+        GroupingDefinition<MapDataSet> rare = new GroupingDefinition<>("rare", d -> d.getMap().get("rare"));
+        ReservoirSample<MapDataSet> sample = new ReservoirSample<>(50, rare, 42);
+
+        // when
+        sample.addAll(GENERATOR);
+        Map<Object, Long> counts = sample.sample().stream()
+                .collect(Collectors.groupingBy(d -> d.getMap().get("rare"), Collectors.counting()));
+
+        // then
+        // the most frequent values are limited to 50, the least frequent are completely sampled
+        assertEquals(50, counts.get("rare 1"));
+        assertTrue(counts.get("rare 100") < 50);
+        assertEquals(100, counts.size());
+    }
+
+    @Test
+    void marginOfError() {
+        assertEquals(0.0310, ReservoirSample.marginOfError(1_000, 1_000_000_000), 0.0001);
+        assertEquals(0, ReservoirSample.marginOfError(10, 10));
+        assertTrue(ReservoirSample.marginOfError(500, 1_000) < ReservoirSample.marginOfError(500, 1_000_000));
+    }
+
+}
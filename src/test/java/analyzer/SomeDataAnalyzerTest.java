@@ -1,5 +1,6 @@
 package analyzer;
 
+import Utils.Script;
 import example.MetadataExample;
 import example.example_one.SomeDataAnalyzer;
 import example.example_one.SomeDataSet;
@@ -9,13 +10,17 @@ import testutils.TestWithOutputs;
 
 import java.io.IOException;
 import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 class SomeDataAnalyzerTest extends TestWithOutputs {
 
     private static final MetadataExample M = new MetadataExample();
 
     private static final String ANALYZE = "a";
-    private static final String OPTIONS = "Options: Analyze (a); PrintData (p); Exit (e)";
+    private static final String OPTIONS = "Options: Analyze (a); PrintData (p); Memory (mem); Exit (e)";
     private static final String WHAT_DO = "What would you like to do?";
     private static final String ANALYZE_OPTIONS1 = "Choose what to analyze. Options:";
     private static final String ANALYZE_OPTIONS2 = "Name, Some_Value";
@@ -123,4 +128,31 @@ class SomeDataAnalyzerTest extends TestWithOutputs {
         });
     }
 
+    @Test
+    void script() throws IOException {
+        // given
+        analyzer = new SomeDataAnalyzer(List.of(
+                new SomeDataSet(M, "Name 1", 50, "Value 1"),
+                new SomeDataSet(M, "Name 2", -20, "Value 2"),
+                new SomeDataSet(M, "Name 1", 42, "Value 2")
+        ));
+
+        // when
+        List<Script.Timing> timings = analyzer.analyze(List.of(ANALYZE, "name", NO, "x", "e", ANALYZE));
+
+        // then
+        // no prompts or menus, the action after Exit isn't executed
+        validateOutputs(new String[]{
+                "Name 2: [6.15% - 79.23%] (1/3)",
+                "Name 1: [20.77% - 93.85%] (2/3)",
+                "x is not a valid option.",
+                "Script timings:",
+                null,
+                null,
+                null
+        });
+        assertEquals(List.of(ANALYZE, "x", "e"), timings.stream().map(Script.Timing::action).toList());
+        assertThrows(NoSuchElementException.class, () -> analyzer.analyze(List.of(ANALYZE)));
+    }
+
 }
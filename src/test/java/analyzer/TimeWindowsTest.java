@@ -0,0 +1,114 @@
+package analyzer;
+
+import analyzer.aggregation.Frequencies;
+import dataset.TimestampedMetadata;
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+import report.MemorySink;
+import report.Report;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TimeWindowsTest {
+
+    private static final Instant START = Instant.parse("2026-01-01T00:00:00Z");
+
+    private static final Question<SomeDataSet> QUESTION = Question.ask("Value", SomeDataSet.class)
+            .aggregate(SomeDataSet::getSomeValue, Frequencies::wilsonConfidence)
+            .groupings(GroupingDefinition.<SomeDataSet>ofPredicate("positive", t -> t.getNumber() > 0).asForced())
+            .build();
+
+    private static SomeDataSet at(int minutes, int number, String value) {
+        return new SomeDataSet(new MetadataExample(null, START.plus(Duration.ofMinutes(minutes))), null, number, value);
+    }
+
+    @Test
+    void sliding() {
+        // given
+        TimeWindows<SomeDataSet> windows = TimeWindows.sliding(QUESTION, Duration.ofHours(1), Duration.ofMinutes(15));
+
+        // when
+        windows.add(at(0, 1, "old"));
+        windows.add(at(50, 1, "a"));
+        windows.add(at(70, 1, "b"));
+        windows.add(at(80, -1, "c"));
+        TimeWindows.Window<SomeDataSet> current = windows.current();
+
+        // then
+        // the window ends with the pane from 75 to 90 minutes and starts 1 hour earlier
+        assertEquals(START.plus(Duration.ofMinutes(30)), current.start());
+        assertEquals(START.plus(Duration.ofMinutes(90)), current.end());
+        assertEquals(2, current.groups().get(List.of(true)).size());
+        assertEquals(1, current.groups().get(List.of(false)).size());
+        // the first pane expired and the first hour isn't complete yet
+        assertEquals(List.of(), windows.history());
+    }
+
+    @Test
+    void tumblingWithHistory() {
+        // given
+        TimeWindows<SomeDataSet> windows = new TimeWindows<>(
+                QUESTION, Duration.ofHours(1), Duration.ofHours(1), 2, TimestampedMetadata::timestampOf
+        );
+
+        // when
+        for (int hour = 0; hour < 5; hour++) {
+            for (int i = 0; i <= hour; i++) {
+                windows.add(at(hour * 60 + i, 1, "value " + hour));
+            }
+        }
+        // late DataSet for a compacted window
+        windows.add(at(3 * 60 + 30, 1, "late"));
+        // late DataSet older than the history
+        windows.add(at(30, 1, "too late"));
+
+        // then
+        List<TimeWindows.Window<SomeDataSet>> history = windows.history();
+        assertEquals(2, history.size());
+        assertEquals(START.plus(Duration.ofHours(2)), history.get(0).start());
+        assertEquals(3, history.get(0).groups().get(List.of(true)).size());
+        assertEquals(5, history.get(1).groups().get(List.of(true)).size());
+        assertEquals(5, windows.current().groups().get(List.of(true)).size());
+        assertEquals(1, windows.dropped());
+    }
+
+    @Test
+    void print() {
+        // given
+        TimeWindows<SomeDataSet> windows = TimeWindows.tumbling(QUESTION, Duration.ofDays(1));
+        windows.add(at(5, 1, "a"));
+        windows.add(at(6, 2, "a"));
+        MemorySink sink = new MemorySink();
+
+        // when
+        Report.writeTo(sink, windows::printCurrent);
+
+        // then
+        assertEquals(List.of(
+                "Window from 2026-01-01T00:00:00Z to 2026-01-02T00:00:00Z",
+                "2 grouped Datasets with:",
+                "positive",
+                "true",
+                "a: [34.24% - 100%] (2/2)"
+        ), sink.lines());
+    }
+
+    @Test
+    void invalid() {
+        Question<SomeDataSet> withoutAggregate = Question.ask("Value", SomeDataSet.class)
+                .evaluator(SomeDataSet::getSomeValue, BaseDataAnalyzer.WILSON_CONFIDENCE)
+                .build();
+
+        assertThrows(IllegalArgumentException.class, () -> TimeWindows.tumbling(withoutAggregate, Duration.ofHours(1)));
+        assertThrows(IllegalArgumentException.class,
+                () -> TimeWindows.sliding(QUESTION, Duration.ofHours(1), Duration.ofMinutes(7)));
+        assertThrows(NoSuchElementException.class, () -> TimeWindows.tumbling(QUESTION, Duration.ofHours(1)).current());
+    }
+
+}
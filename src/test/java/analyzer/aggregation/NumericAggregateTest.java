@@ -0,0 +1,156 @@
+package analyzer.aggregation;
+
+import org.junit.jupiter.api.Test;
+import testutils.TestWithOutputs;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericAggregateTest extends TestWithOutputs {
+
+    @Test
+    void summary() throws IOException {
+        // given
+        NumericSummary summary = new NumericSummary();
+
+        // when
+        for (int i : new int[]{50, 20, 42, -17, 22, -33, 24, -1, 0, 46, 90, -12, 0}) {
+            summary.add(i);
+        }
+        summary.add((Number) null);
+        summary.print();
+
+        // then
+        validateOutputs(new String[]{
+                "Count: 13",
+                "Mean: 17.77",
+                "Standard deviation: 33.36",
+                "Min: -33",
+                "Max: 90"
+        });
+    }
+
+    @Test
+    void summaryMerge() {
+        // given
+        SplittableRandom random = new SplittableRandom(1);
+        NumericSummary all = new NumericSummary();
+        NumericSummary[] parts = {new NumericSummary(), new NumericSummary(), new NumericSummary()};
+
+        // when
+        for (int i = 0; i < 30_000; i++) {
+            double value = 1e6 + random.nextGaussian() * 5;
+            all.add(value);
+            parts[i % 3].add(value);
+        }
+        parts[0].merge(parts[1]);
+        parts[0].merge(parts[2]);
+        parts[0].merge(new NumericSummary());
+
+        // then
+        assertEquals(all.count(), parts[0].count());
+        assertEquals(all.mean(), parts[0].mean(), 1e-6);
+        assertEquals(all.variance(), parts[0].variance(), 1e-6);
+        assertEquals(25, all.variance(), 1);
+        assertEquals(all.min(), parts[0].min());
+        assertEquals(all.max(), parts[0].max());
+    }
+
+    @Test
+    void histogram() throws IOException {
+        // given
+        Histogram histogram = new Histogram(0, 10, 2);
+
+        // when
+        for (int i = -1; i <= 11; i++) {
+            histogram.add(i);
+        }
+        histogram.print();
+
+        // then
+        assertArrayEquals(new long[]{5, 6}, histogram.bins());
+        validateOutputs(new String[]{
+                "< 0: 1/13 7.69%",
+                "[0, 5): 5/13 38.46%",
+                "[5, 10]: 6/13 46.15%",
+                "> 10: 1/13 7.69%"
+        });
+    }
+
+    @Test
+    void tDigest() {
+        // given
+        SplittableRandom random = new SplittableRandom(2);
+        double[] values = new double[100_000];
+        TDigest digest = new TDigest();
+
+        // when
+        for (int i = 0; i < values.length; i++) {
+            values[i] = random.nextDouble() * random.nextDouble() * 1_000;
+            digest.add(values[i]);
+        }
+        Arrays.sort(values);
+
+        // then
+        assertEquals(100_000, digest.count());
+        for (double q : new double[]{0.01, 0.1, 0.5, 0.9, 0.99, 0.999}) {
+            double expected = values[(int) (q * values.length)];
+            assertEquals(expected, digest.quantile(q), 0.01 * 1_000, "quantile " + q);
+        }
+        assertEquals(values[0], digest.quantile(0));
+        assertEquals(values[values.length - 1], digest.quantile(1));
+    }
+
+    @Test
+    void tDigestMerge() {
+        // given
+        SplittableRandom random = new SplittableRandom(3);
+        TDigest all = new TDigest();
+        TDigest[] parts = {new TDigest(), new TDigest(), new TDigest(), new TDigest()};
+
+        // when
+        for (int i = 0; i < 100_000; i++) {
+            double value = random.nextGaussian();
+            all.add(value);
+            parts[i % 4].add(value);
+        }
+        for (int i = 1; i < parts.length; i++) {
+            parts[0].merge(parts[i]);
+        }
+
+        // then
+        assertEquals(all.count(), parts[0].count());
+        for (double q : new double[]{0.01, 0.5, 0.9, 0.99}) {
+            assertEquals(all.quantile(q), parts[0].quantile(q), 0.02, "quantile " + q);
+        }
+        assertEquals(0, parts[0].quantile(0.5), 0.02);
+        assertEquals(2.326, parts[0].quantile(0.99), 0.05);
+        assertThrows(IllegalArgumentException.class, () -> all.merge(new NumericSummary()));
+    }
+
+    @Test
+    void tDigestMergeLeavesOtherUnchanged() {
+        // given
+        TDigest digest = new TDigest();
+        TDigest other = new TDigest();
+        for (int i = 0; i < 1_000; i++) other.add(i);
+        double median = other.quantile(0.5);
+        // values only in the buffer of the other digest
+        for (int i = 1_000; i < 1_010; i++) other.add(i);
+
+        // when
+        digest.merge(other);
+        digest.merge(other);
+        other.merge(other);
+
+        // then
+        assertEquals(2_020, digest.count());
+        assertEquals(2_020, other.count());
+        assertEquals(1_009, digest.quantile(1));
+        assertEquals(median, digest.quantile(0.5), 10);
+    }
+
+}
@@ -0,0 +1,143 @@
+package analyzer.aggregation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NumericKernelsTest {
+
+    @Test
+    void sameResultsAsScalarKernels() {
+        SplittableRandom random = new SplittableRandom(3);
+        // lengths around multiples of all vector sizes, to cover the tails
+        for (int length : new int[]{0, 1, 3, 7, 8, 15, 16, 17, 33, 1000}) {
+            // given
+            double[] doubles = random.doubles(length, -1000, 1000).toArray();
+            int[] ints = random.ints(length, Integer.MIN_VALUE, Integer.MAX_VALUE).toArray();
+            double mean = doubles.length == 0 ? 0 : ScalarKernels.sum(doubles) / doubles.length;
+
+            // then
+            assertEquals(ScalarKernels.sum(doubles), NumericKernels.sum(doubles), 1e-9);
+            assertEquals(ScalarKernels.sum(ints), NumericKernels.sum(ints));
+            assertEquals(ScalarKernels.min(doubles), NumericKernels.min(doubles));
+            assertEquals(ScalarKernels.min(ints), NumericKernels.min(ints));
+            assertEquals(ScalarKernels.max(doubles), NumericKernels.max(doubles));
+            assertEquals(ScalarKernels.max(ints), NumericKernels.max(ints));
+            assertEquals(ScalarKernels.squaredDeviations(doubles, mean), NumericKernels.squaredDeviations(doubles, mean), 1e-3);
+            assertEquals(ScalarKernels.squaredDeviations(ints, 5.5), NumericKernels.squaredDeviations(ints, 5.5),
+                    Math.ulp(ScalarKernels.squaredDeviations(ints, 5.5)) * length);
+        }
+    }
+
+    @Test
+    void count() {
+        // given
+        int[] values = new SplittableRandom(4).ints(1001, -2, 3).toArray();
+        long[] expected = new long[5];
+        for (int value : values) expected[value + 2]++;
+        long[] counts = new long[5];
+        long[] wide = new long[100];
+
+        // when
+        NumericKernels.count(values, -2, counts);
+        NumericKernels.count(values, -50, wide);
+
+        // then
+        assertArrayEquals(expected, counts);
+        assertEquals(expected[0], wide[48]);
+        assertEquals(1001, Arrays.stream(wide).sum());
+        assertThrows(IllegalArgumentException.class, () -> NumericKernels.count(values, -1, new long[5]));
+        assertThrows(IllegalArgumentException.class, () -> NumericKernels.count(values, -2, new long[4]));
+    }
+
+    @Test
+    void histogramLikeSingleValues() {
+        // given
+        SplittableRandom random = new SplittableRandom(5);
+        double[] values = new double[999];
+        for (int i = 0; i < values.length; i++) {
+            // many values exactly on the boundaries of bins
+            values[i] = random.nextBoolean() ? random.nextInt(-2, 13) : random.nextDouble(-2, 12);
+        }
+        Histogram single = new Histogram(0, 10, 10);
+        Histogram bulk = new Histogram(0, 10, 10);
+
+        // when
+        for (double value : values) single.add(value);
+        bulk.addAll(values);
+
+        // then
+        assertArrayEquals(single.bins(), bulk.bins());
+        assertEquals(Arrays.stream(values).filter(v -> v >= 0 && v <= 10).count(), Arrays.stream(bulk.bins()).sum());
+    }
+
+    @Test
+    void nanIsIgnored() {
+        // given
+        double[] values = new SplittableRandom(7).doubles(101, 0, 10).toArray();
+        double[] withNaN = Arrays.copyOf(values, values.length + 3);
+        withNaN[values.length] = Double.NaN;
+        withNaN[values.length + 1] = Double.NaN;
+        withNaN[values.length + 2] = Double.NaN;
+        // NaN in front of values inside the range, so it shares a vector with them
+        double[] nanFirst = withNaN.clone();
+        nanFirst[0] = Double.NaN;
+        nanFirst[values.length] = values[0];
+        Histogram expected = new Histogram(0, 10, 10);
+        expected.addAll(values);
+        NumericSummary expectedSummary = new NumericSummary();
+        expectedSummary.addAll(values);
+
+        for (double[] input : List.of(withNaN, nanFirst)) {
+            // when
+            Histogram bulk = new Histogram(0, 10, 10);
+            Histogram single = new Histogram(0, 10, 10);
+            NumericSummary bulkSummary = new NumericSummary();
+            NumericSummary singleSummary = new NumericSummary();
+            TDigest digest = new TDigest();
+            bulk.addAll(input);
+            bulkSummary.addAll(input);
+            for (double value : input) {
+                single.add(value);
+                singleSummary.add(value);
+                digest.add(value);
+            }
+
+            // then
+            assertArrayEquals(expected.bins(), bulk.bins());
+            assertArrayEquals(expected.bins(), single.bins());
+            for (NumericSummary summary : List.of(bulkSummary, singleSummary)) {
+                assertEquals(values.length, summary.count());
+                assertEquals(expectedSummary.mean(), summary.mean(), 1e-9);
+                assertEquals(expectedSummary.variance(), summary.variance(), 1e-9);
+            }
+            assertEquals(values.length, digest.count());
+        }
+    }
+
+    @Test
+    void summaryLikeSingleValues() {
+        // given
+        int[] values = new SplittableRandom(6).ints(1003, -500, 500).toArray();
+        NumericSummary single = new NumericSummary();
+        NumericSummary bulk = new NumericSummary();
+        bulk.add(42);
+
+        // when
+        single.add(42);
+        for (int value : values) single.add(value);
+        bulk.addAll(values);
+
+        // then
+        assertEquals(single.count(), bulk.count());
+        assertEquals(single.mean(), bulk.mean(), 1e-9);
+        assertEquals(single.variance(), bulk.variance(), 1e-6);
+        assertEquals(single.min(), bulk.min());
+        assertEquals(single.max(), bulk.max());
+    }
+
+}
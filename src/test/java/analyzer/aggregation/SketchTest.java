@@ -0,0 +1,101 @@
+package analyzer.aggregation;
+
+import Utils.Counter;
+import dataset.DataSetGenerator;
+import dataset.MapDataSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SketchTest {
+
+    private static final DataSetGenerator<MapDataSet> GENERATOR = DataSetGenerator.mapDataSets()
+            .seed(3)
+            .size(200_000)
+            .field("text", 100_000, 1.1, 0)
+            .build();
+
+    @Test
+    void hyperLogLog() {
+        // given
+        HyperLogLog hll = HyperLogLog.withError(0.01);
+        Counter<Object> exact = new Counter<>();
+
+        // when
+        GENERATOR.forEach(d -> {
+            hll.add(d.getMap().get("text"));
+            exact.add(d.getMap().get("text"));
+        });
+
+        // then
+        assertEquals(14, Math.round(Math.log(1 / Math.pow(hll.relativeError() / 1.04, 2)) / Math.log(2)));
+        assertEquals(exact.size(), hll.estimate(), 3 * hll.relativeError() * exact.size());
+    }
+
+    @Test
+    void hyperLogLogMerge() {
+        // given
+        HyperLogLog all = new HyperLogLog();
+        HyperLogLog even = new HyperLogLog();
+        HyperLogLog odd = new HyperLogLog();
+
+        // when
+        for (int i = 0; i < 10_000; i++) {
+            all.add("value " + i);
+            (i % 2 == 0 ? even : odd).add("value " + i);
+        }
+        even.merge(odd);
+
+        // then
+        assertEquals(all.estimate(), even.estimate());
+        assertThrows(IllegalArgumentException.class, () -> all.merge(new HyperLogLog(10)));
+    }
+
+    @Test
+    void countMinSketch() {
+        // given
+        CountMinSketch sketch = new CountMinSketch(0.001, 0.01, 0.005);
+        Counter<Object> exact = new Counter<>();
+
+        // when
+        GENERATOR.forEach(d -> {
+            sketch.add(d.getMap().get("text"));
+            exact.add(d.getMap().get("text"));
+        });
+        Map<Object, Integer> frequent = sketch.frequentValues();
+
+        // then
+        assertEquals(200_000, sketch.total());
+        exact.forEach((value, amount) -> {
+            int estimate = sketch.estimate(value);
+            assertTrue(estimate >= amount);
+            if (amount >= 0.005 * 200_000) assertTrue(frequent.containsKey(value), value + " is missing");
+        });
+        assertEquals("text 1", frequent.keySet().iterator().next());
+        assertTrue(sketch.estimate("text 1") - exact.get("text 1") <= 0.001 * 200_000);
+    }
+
+    @Test
+    void countMinSketchMerge() {
+        // given
+        CountMinSketch all = new CountMinSketch();
+        CountMinSketch first = new CountMinSketch();
+        CountMinSketch second = new CountMinSketch();
+
+        // when
+        int i = 0;
+        for (MapDataSet d : GENERATOR) {
+            all.add(d.getMap().get("text"));
+            (i++ < 50_000 ? first : second).add(d.getMap().get("text"));
+        }
+        first.merge(second);
+
+        // then
+        assertEquals(all.frequentValues(), first.frequentValues());
+        assertThrows(IllegalArgumentException.class, () -> all.merge(new CountMinSketch(0.1, 0.1, 0.1)));
+        assertThrows(IllegalArgumentException.class, () -> all.merge(new HyperLogLog()));
+    }
+
+}
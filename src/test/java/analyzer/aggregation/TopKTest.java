@@ -0,0 +1,93 @@
+package analyzer.aggregation;
+
+import Utils.Counter;
+import dataset.DataSetGenerator;
+import dataset.MapDataSet;
+import org.junit.jupiter.api.Test;
+import testutils.TestWithOutputs;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TopKTest extends TestWithOutputs {
+
+    private static final DataSetGenerator<MapDataSet> GENERATOR = DataSetGenerator.mapDataSets()
+            .seed(5)
+            .size(100_000)
+            .field("text", 50_000, 1.2, 0)
+            .build();
+
+    @Test
+    void exact() throws IOException {
+        // given
+        TopK topK = new TopK(3);
+
+        // when
+        List.of("a", "b", "a", "c", "a", "b").forEach(topK::add);
+        topK.print();
+
+        // then
+        assertEquals(List.of("a", "b", "c"), List.copyOf(topK.values().keySet()));
+        validateOutputs(new String[]{
+                "a: 50% [18.76% - 81.24%] (3/6)",
+                "b: 33.33% [9.68% - 70%] (2/6)",
+                "c: 16.67% [3.01% - 56.35%] (1/6)"
+        });
+    }
+
+    @Test
+    void heavyHitters() {
+        // given
+        TopK topK = new TopK(20);
+        Counter<Object> exact = new Counter<>();
+
+        // when
+        GENERATOR.forEach(d -> {
+            topK.add(d.getMap().get("text"));
+            exact.add(d.getMap().get("text"));
+        });
+        Map<Object, Integer> values = topK.values();
+
+        // then
+        assertEquals(20, values.size());
+        assertEquals("text 1", values.keySet().iterator().next());
+        exact.forEach((value, amount) -> {
+            if (amount > 100_000 / 20) assertTrue(values.containsKey(value), value + " is missing");
+        });
+        values.forEach((value, amount) -> {
+            assertTrue(amount >= exact.get(value));
+            assertTrue(amount - topK.error(value) <= exact.get(value));
+        });
+    }
+
+    @Test
+    void merge() {
+        // given
+        TopK first = new TopK(20);
+        TopK second = new TopK(20);
+        Counter<Object> exact = new Counter<>();
+
+        // when
+        int i = 0;
+        for (MapDataSet d : GENERATOR) {
+            (i++ % 3 == 0 ? first : second).add(d.getMap().get("text"));
+            exact.add(d.getMap().get("text"));
+        }
+        first.merge(second);
+        Map<Object, Integer> values = first.values();
+
+        // then
+        assertEquals(100_000, first.total());
+        assertEquals(20, values.size());
+        assertEquals("text 1", values.keySet().iterator().next());
+        values.forEach((value, amount) -> {
+            assertTrue(amount >= exact.get(value));
+            assertTrue(amount - first.error(value) <= exact.get(value));
+        });
+        assertThrows(IllegalArgumentException.class, () -> first.merge(new TopK(5)));
+    }
+
+}
@@ -10,7 +10,7 @@ import java.io.IOException;
 
 class ActionTest extends TestWithOutputs {
 
-    private static final String OPTIONS = "Options: PrintData (p); FixChoices (fc); Exit (e); test1; test2 (t2|tt2); TEst3 (t3); mmm (m); sss (ssss)";
+    private static final String OPTIONS = "Options: PrintData (p); FixChoices (fc); Memory (mem); Exit (e); test1; test2 (t2|tt2); TEst3 (t3); mmm (m); sss (ssss)";
     private static final String WHAT_DO = "What would you like to do?";
 
     private ActionTestDataCollector collector;
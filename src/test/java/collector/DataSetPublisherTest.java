@@ -0,0 +1,93 @@
+package collector;
+
+import example.example_one.SomeDataCollector;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import report.MemorySink;
+import report.Report;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSetPublisherTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void publishAcceptedDataSets() throws Exception {
+        // given
+        SomeDataCollector collector = new SomeDataCollector(directory.resolve("data.txt").toString());
+        collector.enablePublishing(1, DataSetPublisher.OverflowPolicy.BLOCK);
+        DataSetPublisher<SomeDataSet> publisher = collector.publisher();
+        CollectingSubscriber subscriber = new CollectingSubscriber(Long.MAX_VALUE);
+        publisher.subscribe(subscriber);
+
+        // when
+        Report.writeTo(new MemorySink(), () -> collector.collect(List.of("a", "test", "7", "a", "test2", "15", "value", "e")));
+
+        // then
+        assertEquals(List.of("test", "test2"), subscriber.done.get(10, TimeUnit.SECONDS).stream()
+                .map(t -> ((SomeDataSet) t).getName()).toList());
+        assertTrue(publisher.isClosed());
+        assertNotSame(publisher, collector.publisher());
+        assertFalse(collector.publisher().isClosed());
+    }
+
+    @Test
+    void dropWhenBufferIsFull() throws Exception {
+        // given
+        DataSetPublisher<String> publisher = new DataSetPublisher<>(1, DataSetPublisher.OverflowPolicy.DROP);
+        CollectingSubscriber subscriber = new CollectingSubscriber(0);
+        publisher.subscribe(subscriber);
+        subscriber.subscribed.get(10, TimeUnit.SECONDS);
+
+        // when
+        for (int i = 0; i < 3; i++) publisher.publish("value " + i);
+
+        // then
+        assertEquals(2, publisher.dropped());
+        subscriber.subscription.request(Long.MAX_VALUE);
+        publisher.close();
+        assertEquals(List.of("value 0"), subscriber.done.get(10, TimeUnit.SECONDS));
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<Object> {
+        final CompletableFuture<Void> subscribed = new CompletableFuture<>();
+        final CompletableFuture<List<Object>> done = new CompletableFuture<>();
+        final List<Object> items = new CopyOnWriteArrayList<>();
+        final long initialDemand;
+        Flow.Subscription subscription;
+
+        CollectingSubscriber(long initialDemand) {
+            this.initialDemand = initialDemand;
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            if (initialDemand > 0) subscription.request(initialDemand);
+            subscribed.complete(null);
+        }
+
+        @Override
+        public void onNext(Object item) {
+            items.add(item);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            done.complete(List.copyOf(items));
+        }
+    }
+
+}
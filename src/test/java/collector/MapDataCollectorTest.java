@@ -0,0 +1,102 @@
+package collector;
+
+import analyzer.GroupingDefinition;
+import analyzer.Survey;
+import dataset.MapDataSet;
+import dataset.StringDictionary;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import report.MemorySink;
+import report.Report;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MapDataCollectorTest {
+
+    @TempDir
+    private Path directory;
+
+    private static class AnswerCollector extends MapDataCollector {
+        private final List<MapDataSet> saved = new ArrayList<>();
+
+        @Override
+        protected List<Question> getQuestions() {
+            return List.of(Question.ask("answer", "Answer").dictionary(dictionary("answer", "Yes", "No")).build());
+        }
+
+        @Override
+        protected void saveData() {
+            saved.addAll(data);
+            clearData();
+        }
+    }
+
+    @Test
+    void storesCodes() {
+        // given
+        AnswerCollector collector = new AnswerCollector();
+
+        // when
+        Report.writeTo(new MemorySink(), () -> collector.collect(List.of("a", "maybe", "a", "no ", "a", "YES", "a", " maybe", "e")));
+
+        // then
+        StringDictionary dictionary = collector.dictionary("answer", "Yes", "No");
+        assertEquals(List.of(2, 1, 0, 2), collector.saved.stream().map(d -> d.code("answer", dictionary)).toList());
+        assertEquals("No", collector.saved.get(1).getMap().get("answer"));
+        MemorySink sink = new MemorySink();
+        GroupingDefinition<MapDataSet> byAnswer = GroupingDefinition.ofDictionary("answer", dictionary);
+        analyzer.Question<MapDataSet> question = analyzer.Question.ask("Count", MapDataSet.class)
+                .evaluator(l -> Report.println(l.size()))
+                .build();
+        Report.writeTo(sink, () -> Survey.run(question, List.of(byAnswer), collector.saved, null));
+        // the groups are ordered by the codes
+        assertEquals(List.of(
+                "1 grouped Datasets with:", "answer", "Yes", "1",
+                "1 grouped Datasets with:", "answer", "No", "1",
+                "2 grouped Datasets with:", "answer", "maybe", "2"
+        ), sink.lines());
+        // the stored codes are used instead of looking up the values
+        MapDataSet coded = new MapDataSet(null, Map.of("answer", "unknown"), Map.of("answer", 1));
+        assertEquals(1, byAnswer.domain().index().applyAsInt(coded) - 1);
+        assertThrows(IllegalArgumentException.class,
+                () -> byAnswer.domain().index().applyAsInt(new MapDataSet(Map.of("answer", "unknown"))));
+    }
+
+    @Test
+    void persistDictionaries() {
+        // given
+        AnswerCollector first = new AnswerCollector();
+        first.persistDictionaries(directory);
+        AnswerCollector second = new AnswerCollector();
+        second.persistDictionaries(directory);
+
+        // when
+        Report.writeTo(new MemorySink(), () -> {
+            first.collect(List.of("a", "maybe", "e"));
+            second.collect(List.of("a", "other", "a", "maybe", "s", "e"));
+        });
+
+        // then
+        assertTrue(Files.exists(directory.resolve("answer.dict")));
+        StringDictionary dictionary = second.dictionary("answer", "Yes", "No");
+        assertEquals(List.of("Yes", "No", "maybe", "other"), dictionary.values());
+        assertEquals(List.of(3, 2), second.saved.stream().map(d -> d.code("answer", dictionary)).toList());
+    }
+
+    @Test
+    void dictionaryWithOtherOptions() {
+        AnswerCollector collector = new AnswerCollector();
+
+        assertSame(collector.dictionary("answer"), collector.dictionary("answer", "Yes", "No"));
+        assertThrows(IllegalArgumentException.class, () -> collector.dictionary("answer", "No", "Yes"));
+        collector.dictionary("other");
+        assertThrows(IllegalArgumentException.class, () -> collector.dictionary("other", "Yes"));
+    }
+
+}
@@ -21,7 +21,7 @@ class OtherDataCollectorTest extends TestWithOutputs {
     private static final String ADD = "a";
     private static final String FIX = "fc";
     private static final String END = "e";
-    private static final String OPTIONS = "Options: AddData (a); AddDataMultiple (am); ClearData (c); Delete (d); Save (s); PrintData (p); PickMetadata (m); FixChoices (f|fc); ClearFixedChoices (cc); Exit (e)";
+    private static final String OPTIONS = "Options: AddData (a); AddDataMultiple (am); ClearData (c); Delete (d); Save (s); PrintData (p); PickMetadata (m); FixChoices (f|fc); ClearFixedChoices (cc); Memory (mem); Exit (e)";
     private static final String WHAT_DO = "What would you like to do?";
     private static final MetadataExample METADATA_EXAMPLE = new MetadataExample("Test");
 
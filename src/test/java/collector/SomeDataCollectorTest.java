@@ -1,20 +1,26 @@
 package collector;
 
+import Utils.Script;
 import example.MetadataExample;
 import example.example_one.SomeDataCollector;
 import example.example_one.SomeDataSet;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import report.MemorySink;
+import report.Report;
 import testutils.InputBuilder;
 import testutils.TestWithOutputs;
 
 import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 
 import static example.JsonUtils.toJson;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class SomeDataCollectorTest extends TestWithOutputs {
 
@@ -23,7 +29,7 @@ class SomeDataCollectorTest extends TestWithOutputs {
     private static final String ADD_MULTIPLE = "am";
     private static final String DELETE = "d";
     private static final String END = "e";
-    private static final String OPTIONS = "Options: AddData (a); AddDataMultiple (am); ClearData (c); Delete (d); Save (s); PrintData (p); PickMetadata (m); FixChoices (f|fc); ClearFixedChoices (cc); Exit (e)";
+    private static final String OPTIONS = "Options: AddData (a); AddDataMultiple (am); ClearData (c); Delete (d); Save (s); PrintData (p); PickMetadata (m); FixChoices (f|fc); ClearFixedChoices (cc); Memory (mem); Exit (e)";
     private static final String WHAT_DO = "What would you like to do?";
     private static final String FIX_MSG = "Set the fixed answers. Leave empty to skip. Enter \\ for empty String.";
     private static final MetadataExample METADATA_EXAMPLE = new MetadataExample("Test");
@@ -326,4 +332,72 @@ class SomeDataCollectorTest extends TestWithOutputs {
         });
     }
 
+    @Test
+    void script() throws IOException {
+        // given
+        List<String> script = List.of(ADD, "test", 7, ADD, "test2", "NaN", 15, "value", END).stream()
+                .map(String::valueOf).toList();
+        SomeDataSet expected1 = new SomeDataSet(METADATA_EXAMPLE, "test", 7, null);
+        SomeDataSet expected2 = new SomeDataSet(METADATA_EXAMPLE, "test2", 15, "Value is: value");
+
+        // when
+        List<Script.Timing> timings = collector.collect(script);
+
+        // then
+        assertEquals(List.of(toJson(expected1), toJson(expected2)), getContent());
+        assertEquals(List.of(ADD, ADD, END), timings.stream().map(Script.Timing::action).toList());
+        // only invalid answers are reported, no prompts
+        validateOutputs(new String[]{
+                "Invalid input: Input needs to match pattern ^0$|^[1-9]\\d*$",
+                "Script timings:"
+        });
+    }
+
+    @Test
+    void printDataToReport() {
+        // given
+        MemorySink sink = new MemorySink();
+        List<String> script = List.of("p", ADD, "test", "7", "p", END);
+
+        // when
+        Report.writeTo(sink, () -> collector.collect(script));
+
+        // then
+        assertEquals(List.of("No datasets", "test:7", "Script timings:"), sink.lines().subList(0, 3));
+    }
+
+    @Test
+    void timestampEachDataSet() {
+        // given
+        List<SomeDataSet> accepted = new ArrayList<>();
+        SomeDataCollector timed = new SomeDataCollector(tempfile.toString()) {
+            @Override
+            protected boolean validateDataSet(SomeDataSet dataSet) {
+                accepted.add(dataSet);
+                try {
+                    // the next DataSet is added later
+                    Thread.sleep(5);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+        };
+        Instant start = Instant.now();
+
+        // when
+        timed.collect(List.of(ADD, "test", "7", ADD, "test2", "8", ADD, "test3", "9", END));
+
+        // then
+        assertEquals(3, accepted.size());
+        Instant previous = start;
+        for (SomeDataSet dataSet : accepted) {
+            MetadataExample metadata = (MetadataExample) dataSet.getMetadata();
+            assertEquals("Test", metadata.getDescription());
+            assertTrue(metadata.getTimestamp().isAfter(previous), metadata.getTimestamp() + " after " + previous);
+            previous = metadata.getTimestamp();
+        }
+        assertTrue(previous.isBefore(Instant.now()));
+    }
+
 }
@@ -0,0 +1,108 @@
+package dataset;
+
+import Utils.Counter;
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DataSetGeneratorTest {
+
+    private static final MetadataExample M = new MetadataExample("Generated");
+
+    @Test
+    void deterministic() {
+        // given
+        DataSetGenerator<MapDataSet> generator1 = DataSetGenerator.mapDataSets()
+                .seed(42)
+                .size(1_000)
+                .field("name", 50, 1.2, 0.1)
+                .intField("number", -10, 10)
+                .build();
+        DataSetGenerator<MapDataSet> generator2 = DataSetGenerator.mapDataSets()
+                .seed(42)
+                .size(1_000)
+                .field("name", 50, 1.2, 0.1)
+                .intField("number", -10, 10)
+                .build();
+
+        // when
+        List<?> first = generator1.stream().map(MapDataSet::getMap).toList();
+        List<?> again = generator1.stream().map(MapDataSet::getMap).toList();
+        List<?> other = generator2.stream().map(MapDataSet::getMap).toList();
+
+        // then
+        assertEquals(1_000, first.size());
+        assertEquals(first, again);
+        assertEquals(first, other);
+    }
+
+    @Test
+    void distribution() {
+        // given
+        DataSetGenerator<MapDataSet> generator = DataSetGenerator.mapDataSets()
+                .size(100_000)
+                .field("skewed", 100, 1.5, 0.2)
+                .field("uniform", 4)
+                .build();
+        Counter<Object> skewed = new Counter<>();
+        Counter<Object> uniform = new Counter<>();
+
+        // when
+        generator.forEach(d -> {
+            skewed.add(d.getMap().get("skewed"));
+            uniform.add(d.getMap().get("uniform"));
+        });
+
+        // then
+        assertEquals(0.2, skewed.get(null) / 100_000d, 0.01);
+        assertTrue(skewed.get("skewed 1") > skewed.get("skewed 2"));
+        assertTrue(skewed.get("skewed 2") > skewed.get("skewed 10"));
+        assertTrue(skewed.size() <= 101);
+        assertEquals(4, uniform.size());
+        uniform.forEach((_, amount) -> assertEquals(0.25, amount / 100_000d, 0.01));
+    }
+
+    @Test
+    void customDataSets() {
+        // given
+        DataSetGenerator<SomeDataSet> generator = DataSetGenerator.dataSets((m, map) -> new SomeDataSet(
+                        (MetadataExample) m,
+                        (String) map.get("name"),
+                        (Integer) map.get("number"),
+                        (String) map.get("someValue")
+                ))
+                .seed(7)
+                .size(10_000_000)
+                .metadata(M)
+                .field("name", 1_000, 1, 0.05)
+                .intField("number", -50, 100)
+                .field("someValue", 3, 0, 0.5, i -> "Value " + i)
+                .build();
+
+        // when
+        long positive = generator.stream()
+                .limit(10_000)
+                .peek(d -> assertSame(M, d.getMetadata()))
+                .filter(d -> d.getNumber() > 0)
+                .count();
+
+        // then
+        assertEquals(10_000_000, generator.size());
+        assertEquals(100 / 151d, positive / 10_000d, 0.02);
+    }
+
+    @Test
+    void invalidFields() {
+        DataSetGenerator.Builder<MapDataSet> builder = DataSetGenerator.mapDataSets().field("name", 5);
+
+        assertThrows(IllegalArgumentException.class, () -> builder.field("name", 5));
+        assertThrows(IllegalArgumentException.class, () -> builder.field("other", 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.field("other", 5, -1, 0));
+        assertThrows(IllegalArgumentException.class, () -> builder.field("other", 5, 0, 2));
+    }
+
+}
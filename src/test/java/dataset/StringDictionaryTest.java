@@ -0,0 +1,136 @@
+package dataset;
+
+import analyzer.GroupingDefinition;
+import analyzer.Question;
+import analyzer.Survey;
+import collector.functions.NormalizerBiConsumer;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import report.MemorySink;
+import report.Report;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void codes() {
+        // given
+        StringDictionary dictionary = new StringDictionary();
+
+        // when
+        int first = dictionary.code("Name 1");
+        int second = dictionary.code(" Name 2 ");
+        int again = dictionary.code("Name 1 ");
+
+        // then
+        assertEquals(0, first);
+        assertEquals(1, second);
+        assertEquals(0, again);
+        assertEquals(List.of("Name 1", "Name 2"), dictionary.values());
+        assertEquals(1, dictionary.codeOf("Name 2"));
+        assertEquals(-1, dictionary.codeOf("Name 3"));
+        assertEquals(-1, dictionary.codeOf(null));
+        assertNull(dictionary.intern(null));
+        assertSame(dictionary.value(0), dictionary.intern(new String("Name 1")));
+    }
+
+    @Test
+    void options() {
+        // given
+        StringDictionary dictionary = StringDictionary.ofOptions("Yes", "No");
+
+        // when
+        String yes = dictionary.intern("yES ");
+
+        // then
+        assertSame(dictionary.value(0), yes);
+        assertEquals(1, dictionary.codeOf("no"));
+        assertEquals(2, dictionary.code("maybe"));
+    }
+
+    @Test
+    void saveAndLoad() {
+        // given
+        StringDictionary dictionary = StringDictionary.ofOptions("Yes", "No");
+        dictionary.code("multiple\nlines \\n");
+        dictionary.code("");
+        Path file = directory.resolve("answer.dict");
+
+        // when
+        dictionary.save(file);
+        StringDictionary loaded = StringDictionary.ofOptions("Yes", "No");
+        loaded.load(file);
+
+        // then
+        assertEquals(dictionary.values(), loaded.values());
+        assertEquals(2, loaded.codeOf("multiple\nlines \\n"));
+        assertThrows(IllegalArgumentException.class, () -> StringDictionary.ofOptions("No", "Yes").load(file));
+    }
+
+    @Test
+    void collectorQuestion() throws Exception {
+        // given
+        StringDictionary dictionary = StringDictionary.ofOptions("Yes", "No");
+        NormalizerBiConsumer normalizer = collector.Question.ask("answer", "Answer")
+                .options(new String[]{"Yes", "No"})
+                .dictionary(dictionary)
+                .build()
+                .normalizer();
+        Map<String, Object> first = new HashMap<>();
+        Map<String, Object> second = new HashMap<>();
+
+        // when
+        normalizer.accept("yes", first);
+        normalizer.accept("YES", second);
+
+        // then
+        assertEquals("Yes", first.get("answer"));
+        assertSame(first.get("answer"), second.get("answer"));
+    }
+
+    @Test
+    void grouping() {
+        // given
+        StringDictionary dictionary = new StringDictionary();
+        List<SomeDataSet> data = List.of(
+                new SomeDataSet(null, "Name 2", 1, "Value 1"),
+                new SomeDataSet(null, "Name 1", 2, "Value 1"),
+                new SomeDataSet(null, null, 3, "Value 1"),
+                new SomeDataSet(null, "Name 2", 4, "Value 1")
+        );
+        data.forEach(d -> dictionary.intern(d.getName()));
+        GroupingDefinition<SomeDataSet> byName = GroupingDefinition.ofDictionary("name", SomeDataSet::getName, dictionary);
+        Question<SomeDataSet> question = Question.ask("Numbers", SomeDataSet.class)
+                .intEvaluator(SomeDataSet::getNumber, (int[] numbers) -> Report.println(Arrays.toString(numbers)))
+                .groupings(byName)
+                .build();
+        MemorySink sink = new MemorySink();
+
+        // when
+        Report.writeTo(sink, () -> Survey.run(question, List.of(byName), data, null));
+
+        // then
+        // groups are in the order of the dictionary with null first
+        assertEquals(List.of(
+                "1 grouped Datasets with:", "name", "null", "[3]",
+                "2 grouped Datasets with:", "name", "Name 2", "[1, 4]",
+                "1 grouped Datasets with:", "name", "Name 1", "[2]"
+        ), sink.lines());
+        assertEquals(3, byName.domain().size());
+        assertThrows(IllegalArgumentException.class, () -> byName.domain().index().applyAsInt(
+                new SomeDataSet(null, "Name 3", 5, null)
+        ));
+    }
+
+}
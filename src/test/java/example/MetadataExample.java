@@ -1,8 +1,10 @@
 package example;
 
-import dataset.Metadata;
+import dataset.TimestampedMetadata;
 
-public class MetadataExample extends Metadata {
+import java.time.Instant;
+
+public class MetadataExample extends TimestampedMetadata {
 
     private final String description;
 
@@ -14,7 +16,17 @@ public class MetadataExample extends Metadata {
         this.description = description;
     }
 
+    public MetadataExample(String description, Instant timestamp) {
+        super(timestamp);
+        this.description = description;
+    }
+
     public String getDescription() {
         return description;
     }
+
+    @Override
+    public MetadataExample withTimestamp(Instant timestamp) {
+        return new MetadataExample(description, timestamp);
+    }
 }
@@ -7,7 +7,7 @@ import example.example_one.SomeDataSet;
 import java.util.List;
 import java.util.Map;
 
-import static java.lang.IO.println;
+import static report.Report.println;
 
 public class ActionTestDataCollector extends AbstractDataCollector<SomeDataSet> {
 
@@ -0,0 +1,47 @@
+package example.other_examples;
+
+import analyzer.BaseDataAnalyzer;
+import analyzer.GroupingDefinition;
+import analyzer.Question;
+import analyzer.aggregation.Frequencies;
+import analyzer.aggregation.HyperLogLog;
+import analyzer.aggregation.NumericSummary;
+import example.example_one.SomeDataSet;
+
+import java.util.List;
+
+public class AggregateDataAnalyzer extends BaseDataAnalyzer<SomeDataSet> {
+
+    public AggregateDataAnalyzer(List<SomeDataSet> data) {
+        super(data);
+    }
+
+    @Override
+    protected List<Question<SomeDataSet>> getQuestions() {
+        return List.of(
+                Question.ask("Name", SomeDataSet.class)
+                        .aggregate(SomeDataSet::getName, Frequencies::wilsonConfidence)
+                        .conditionAll(t -> t.getName() != null)
+                        .groupings(GroupingDefinition.ofPredicate("number_positive", t -> t.getNumber() > 0))
+                        .build(),
+                Question.ask("Distinct_Names", SomeDataSet.class)
+                        .aggregate(SomeDataSet::getName, HyperLogLog::new)
+                        .groupings(GroupingDefinition.ofPredicate("number_positive", t -> t.getNumber() > 0))
+                        .build(),
+                Question.ask("Frequent_Values", SomeDataSet.class)
+                        .evaluator(SomeDataSet::getSomeValue, frequencyEstimates(0.01, 0.01, 0.3))
+                        .build(),
+                Question.ask("Number", SomeDataSet.class)
+                        .numericAggregate(SomeDataSet::getNumber, NumericSummary::new)
+                        .groupings(GroupingDefinition.<SomeDataSet>ofInt("tens", t -> t.getNumber() / 10, -5, 9).asForced())
+                        .build(),
+                Question.ask("Positive", SomeDataSet.class)
+                        .predicateEvaluator(t -> t.getNumber() > 0, PROPORTION)
+                        .groupings(GroupingDefinition.ofPredicate("has_name", t -> t.getName() != null))
+                        .build(),
+                Question.ask("Number_Array", SomeDataSet.class)
+                        .doubleEvaluator(SomeDataSet::getNumber, numeric(NumericSummary::new))
+                        .build()
+        );
+    }
+}
@@ -0,0 +1,159 @@
+package memory;
+
+import Utils.Counter;
+import analyzer.GroupingDefinition;
+import analyzer.Question;
+import analyzer.Survey;
+import dataset.MapDataSet;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+import report.MemorySink;
+import report.Report;
+
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MemoryAccountingTest {
+
+    @Test
+    void estimates() {
+        // compressed references of 4 bytes, since the tests don't run with a heap of 32 GiB
+        assertEquals(16, MemoryEstimator.estimate(1));
+        assertEquals(24, MemoryEstimator.estimate(1L));
+        assertEquals(24 + 24, MemoryEstimator.estimate("12345678"));
+        assertEquals(24 + 24, MemoryEstimator.estimate("ä234"));
+        assertEquals(16 + 40, MemoryEstimator.estimate(new long[5]));
+        assertEquals(0, MemoryEstimator.estimate(null));
+        // shared objects are counted once
+        String value = "value";
+        assertEquals(
+                MemoryEstimator.estimate(new ArrayList<>(List.of(value))) + 8,
+                MemoryEstimator.estimate(new ArrayList<>(List.of(value, value, value)))
+        );
+        assertEquals("1.5 KiB", MemoryEstimator.format(1536));
+        assertEquals("10 B", MemoryEstimator.format(10));
+    }
+
+    @Test
+    void collections() {
+        // given
+        Counter<Object> counter = new Counter<>();
+        Map<String, Object> map = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            counter.add("Value " + i % 100);
+            map.put("key " + i, i);
+        }
+
+        // when
+        long counterBytes = MemoryEstimator.estimate(counter);
+        long mapBytes = MemoryEstimator.estimate(new MapDataSet(map));
+
+        // then
+        // 100 entries with String keys and cached Integers
+        assertTrue(counterBytes > 100 * (32 + 24 + 24) && counterBytes < 100 * 150, "" + counterBytes);
+        assertTrue(mapBytes > 1000 * (32 + 24 + 24 + 16) && mapBytes < 1000 * 150, "" + mapBytes);
+    }
+
+    @Test
+    void thresholds() {
+        // given
+        List<SomeDataSet> data = new ArrayList<>();
+        for (int i = 0; i < 100; i++) data.add(new SomeDataSet(null, "Name " + i, i, null));
+        MemoryAccounting memory = new MemoryAccounting();
+        memory.track("data", () -> data);
+        MemorySink sink = new MemorySink();
+
+        // when
+        memory.setThreshold("data", 1_000);
+        memory.setTotalThreshold(1_000_000);
+        List<String> warnings = memory.getWarnings();
+        Report.writeTo(sink, memory::print);
+
+        // then
+        assertEquals(1, warnings.size());
+        assertTrue(warnings.getFirst().startsWith("Warning: data uses about "), warnings.getFirst());
+        List<String> lines = sink.lines();
+        assertEquals("Estimated memory:", lines.get(0));
+        assertTrue(lines.get(1).matches("data: [\\d.]+ KiB \\(\\d+ B per DataSet\\)"), lines.get(1));
+        assertTrue(lines.get(2).startsWith("Total: "));
+        assertEquals(warnings.getFirst(), lines.get(3));
+    }
+
+    @Test
+    void checkAfterActions() {
+        // given
+        List<SomeDataSet> data = new ArrayList<>();
+        for (int i = 0; i < 100; i++) data.add(new SomeDataSet(null, "Name " + i, i, null));
+        MemoryAccounting memory = new MemoryAccounting();
+        int[] walks = {0};
+        memory.track("data", () -> {
+            walks[0]++;
+            return data;
+        });
+        MemorySink sink = new MemorySink();
+
+        // when
+        Report.writeTo(sink, () -> {
+            // nothing is walked without thresholds
+            for (int i = 0; i < 5; i++) memory.checkAfterAction();
+            memory.setThreshold("data", 1_000);
+            memory.setCheckInterval(3);
+            for (int i = 0; i < 7; i++) memory.checkAfterAction();
+        });
+
+        // then
+        // after the first, fourth and seventh action
+        assertEquals(3, walks[0]);
+        assertEquals(3, sink.lines().size());
+        assertThrows(IllegalArgumentException.class, () -> memory.setCheckInterval(0));
+    }
+
+    @Test
+    void groups() {
+        // given
+        List<SomeDataSet> data = new ArrayList<>();
+        for (int i = 0; i < 10_000; i++) data.add(new SomeDataSet(null, "Name " + i, i, null));
+        GroupingDefinition<SomeDataSet> byName = new GroupingDefinition<>("name", SomeDataSet::getName);
+        Question<SomeDataSet> question = Question.ask("Numbers", SomeDataSet.class)
+                .intEvaluator(SomeDataSet::getNumber, (int[] _) -> {
+                })
+                .groupings(byName)
+                .build();
+        MemoryAccounting memory = new MemoryAccounting();
+        memory.setThreshold(MemoryAccounting.GROUPS, 100_000);
+        MemorySink sink = new MemorySink();
+
+        // when
+        Report.writeTo(sink, () -> memory.watch(() -> Survey.run(question, List.of(byName), data, null)));
+        Survey.run(question, List.of(byName), data.subList(0, 10), null);
+
+        // then
+        // the warning is printed once while grouping, the run outside watch isn't recorded
+        assertEquals(1, sink.lines().stream().filter(l -> l.startsWith("Warning: groups: Numbers uses about")).count());
+        long bytes = memory.getEstimates().get("groups: Numbers");
+        assertTrue(bytes > 10_000 * 32 && bytes < 10_000 * 200, "" + bytes);
+    }
+
+    @Test
+    void jmx() throws Exception {
+        // given
+        MemoryAccounting memory = new MemoryAccounting();
+        memory.track("data", () -> List.of(1, 2, 3));
+
+        // when
+        ObjectName name = memory.registerMBean("Test");
+
+        // then
+        try {
+            Object total = ManagementFactory.getPlatformMBeanServer().getAttribute(name, "TotalBytes");
+            assertEquals(memory.getTotalBytes(), total);
+        } finally {
+            memory.unregisterMBean();
+        }
+        assertFalse(ManagementFactory.getPlatformMBeanServer().isRegistered(name));
+    }
+
+}
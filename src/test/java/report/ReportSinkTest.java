@@ -0,0 +1,71 @@
+package report;
+
+import org.junit.jupiter.api.Test;
+import testutils.TestWithOutputs;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportSinkTest extends TestWithOutputs {
+
+    @Test
+    void writeTo() {
+        // given
+        MemorySink outer = new MemorySink();
+        MemorySink inner = new MemorySink();
+
+        // when
+        Report.writeTo(outer, () -> {
+            Report.println("outer");
+            Report.writeTo(inner, () -> Report.print("inner"));
+            Report.print(1);
+            Report.println();
+        });
+
+        // then
+        assertEquals(List.of("outer", "1"), outer.lines());
+        assertEquals("inner", inner.getOutput());
+        assertNotSame(outer, Report.sink());
+    }
+
+    @Test
+    void console() throws IOException {
+        // given
+        ConsoleSink sink = new ConsoleSink(10);
+
+        // when
+        sink.println("line 1");
+        sink.println("line 2");
+        sink.println("buffered");
+
+        // then
+        // the first two lines exceed the buffer size, the third is only written when flushing
+        validateOutputs(new String[]{"line 1", "line 2"});
+        assertThrows(IndexOutOfBoundsException.class, () -> validateOutputs(new String[]{null, null, "buffered"}));
+        sink.flush();
+        validateOutputs(new String[]{"line 1", "line 2", "buffered"});
+    }
+
+    @Test
+    void file() throws IOException {
+        // given
+        Path file = Files.createTempFile("report", ".txt");
+        file.toFile().deleteOnExit();
+
+        // when
+        try (FileSink sink = new FileSink(file)) {
+            Report.writeTo(sink, () -> {
+                Report.println("Name 1: 50%");
+                Report.println("Größe: 1");
+            });
+        }
+
+        // then
+        assertEquals(List.of("Name 1: 50%", "Größe: 1"), Files.readAllLines(file));
+    }
+
+}
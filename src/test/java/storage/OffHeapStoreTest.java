@@ -0,0 +1,162 @@
+package storage;
+
+import analyzer.GroupingDefinition;
+import analyzer.Question;
+import analyzer.Survey;
+import analyzer.aggregation.Frequencies;
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.Test;
+import report.MemorySink;
+import report.Report;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OffHeapStoreTest {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    private final OffHeapStore.Schema<SomeDataSet> schema = new OffHeapStore.Schema<>();
+    private final OffHeapStore.StringColumn<SomeDataSet> name = schema.stringColumn("name", SomeDataSet::getName);
+    private final OffHeapStore.IntColumn<SomeDataSet> number = schema.intColumn("number", SomeDataSet::getNumber);
+    private final OffHeapStore.BooleanColumn<SomeDataSet> positive = schema.booleanColumn("positive", t -> t.getNumber() > 0);
+    private final OffHeapStore.StringColumn<SomeDataSet> value = schema.stringColumn("value", SomeDataSet::getSomeValue);
+
+    @Test
+    void readsFields() {
+        // given
+        try (OffHeapStore<SomeDataSet> store = new OffHeapStore<>(schema, M)) {
+
+            // when
+            store.add(new SomeDataSet(M, "Name 1", 50, "Value ä"));
+            store.add(new SomeDataSet(M, null, -7, ""));
+            OffHeapStore.Row first = store.row(0);
+            OffHeapStore.Row second = store.row(1);
+
+            // then
+            assertEquals("Name 1", first.get(name));
+            assertEquals(50, first.get(number));
+            assertTrue(first.get(positive));
+            assertEquals("Value ä", first.get(value));
+            assertNull(second.get(name));
+            assertEquals(-7, second.get(number));
+            assertFalse(second.get(positive));
+            assertEquals("", second.get(value));
+            assertSame(M, first.getMetadata());
+            assertEquals("Row{name=null, number=-7, positive=false, value=}", second.toString());
+        }
+    }
+
+    @Test
+    void emptyStringFirst() {
+        // given
+        try (OffHeapStore<SomeDataSet> store = new OffHeapStore<>(schema, M)) {
+
+            // when
+            store.add(new SomeDataSet(M, "", 1, null));
+            store.add(new SomeDataSet(M, "Name 2", 2, ""));
+
+            // then
+            assertEquals("", store.row(0).get(name));
+            assertNull(store.row(0).get(value));
+            assertEquals("Name 2", store.row(1).get(name));
+            assertEquals("", store.row(1).get(value));
+        }
+    }
+
+    @Test
+    void layout() {
+        // given
+        OffHeapStore.Schema<SomeDataSet> schema = new OffHeapStore.Schema<>();
+        schema.booleanColumn("b", _ -> true);
+        schema.longColumn("l", SomeDataSet::getNumber);
+        schema.intColumn("i", SomeDataSet::getNumber);
+
+        // when
+        try (OffHeapStore<SomeDataSet> _ = new OffHeapStore<>(schema, null)) {
+
+            // then
+            // fields are ordered by alignment, the struct is padded to the alignment of its largest field
+            assertEquals(16, schema.layout().byteSize());
+            assertThrows(IllegalStateException.class, () -> schema.intColumn("other", SomeDataSet::getNumber));
+        }
+        assertThrows(IllegalArgumentException.class, () -> this.schema.intColumn("name", SomeDataSet::getNumber));
+    }
+
+    @Test
+    void manyRows() {
+        // given
+        List<SomeDataSet> data = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            data.add(new SomeDataSet(M, "Name " + i % 100, i, "x".repeat(i % 5_000)));
+        }
+        data.add(new SomeDataSet(M, "large", 0, "y".repeat(3_000_000)));
+
+        try (OffHeapStore<SomeDataSet> store = new OffHeapStore<>(schema, M)) {
+
+            // when
+            store.addAll(data);
+            List<OffHeapStore.Row> rows = store.rows();
+
+            // then
+            assertEquals(data.size(), rows.size());
+            for (int i = 0; i < data.size(); i++) {
+                assertEquals(data.get(i).getName(), rows.get(i).get(name));
+                assertEquals(data.get(i).getNumber(), rows.get(i).get(number));
+                assertEquals(data.get(i).getSomeValue(), rows.get(i).get(value));
+            }
+            assertTrue(store.byteSize() > 3_000_000);
+            assertThrows(IndexOutOfBoundsException.class, () -> store.row(data.size()));
+        }
+    }
+
+    @Test
+    void question() {
+        // given
+        List<SomeDataSet> data = List.of(
+                new SomeDataSet(M, "Name 1", 50, "Value 1"),
+                new SomeDataSet(M, "Name 2", 20, "Value 2"),
+                new SomeDataSet(M, "Name 1", -1, "Value 2"),
+                new SomeDataSet(M, "Name 3", 0, "Value 1")
+        );
+        Question<SomeDataSet> onHeap = Question.ask("Value", SomeDataSet.class)
+                .aggregate(SomeDataSet::getSomeValue, Frequencies::percentages)
+                .groupings(new GroupingDefinition<>("name", SomeDataSet::getName))
+                .build();
+        Question<OffHeapStore.Row> offHeap = Question.ask("Value", OffHeapStore.Row.class)
+                .aggregate(r -> r.get(value), Frequencies::percentages)
+                .groupings(new GroupingDefinition<>("name", r -> r.get(name)))
+                .build();
+
+        try (OffHeapStore<SomeDataSet> store = new OffHeapStore<>(schema, M)) {
+            store.addAll(data);
+            MemorySink expected = new MemorySink();
+            MemorySink actual = new MemorySink();
+
+            // when
+            Report.writeTo(expected, () -> Survey.run(onHeap, onHeap.groupings(), data, null));
+            Report.writeTo(actual, () -> Survey.run(offHeap, offHeap.groupings(), store.rows(), null));
+
+            // then
+            assertEquals(expected.getOutput(), actual.getOutput());
+        }
+    }
+
+    @Test
+    void closed() {
+        // given
+        OffHeapStore<SomeDataSet> store = new OffHeapStore<>(schema, M);
+        store.add(new SomeDataSet(M, "Name 1", 50, "Value 1"));
+        OffHeapStore.Row row = store.row(0);
+
+        // when
+        store.close();
+
+        // then
+        assertThrows(IllegalStateException.class, () -> row.get(number));
+    }
+
+}
@@ -0,0 +1,166 @@
+package storage;
+
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import testutils.SomeDataSets;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PartitionedStoreTest {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    @TempDir
+    Path directory;
+
+    private final SomeDataSets.Codec codec = new SomeDataSets.Codec();
+    private PartitionedStore<SomeDataSet> store;
+
+    @BeforeEach
+    void setup() {
+        store = new PartitionedStore<>(directory, SomeDataSet::getName, codec);
+        store.save(List.of(
+                new SomeDataSet(M, "Name 1", 50, "Value 1"),
+                new SomeDataSet(M, "Name 2", 20, "Value 2"),
+                new SomeDataSet(M, "Name/3", 42, "Value 2"),
+                new SomeDataSet(M, null, 22, "Value 2")
+        ));
+        store.save(List.of(
+                new SomeDataSet(M, "Name 1", -1, "Value 1"),
+                new SomeDataSet(M, "Name 2", 0, "Value 1")
+        ));
+    }
+
+    @Test
+    void partitions() {
+        assertEquals(new HashSet<>(Arrays.asList(null, "Name 1", "Name 2", "Name/3")), store.partitions());
+        assertEquals(6, store.load().size());
+    }
+
+    @Test
+    void pruning() {
+        // given
+        PartitionedStore.KeyCondition<SomeDataSet> condition = store.keyCondition(k -> "Name 1".equals(k))
+                .and(t -> t.getNumber() > 0);
+        codec.resetDecoded();
+
+        // when
+        List<SomeDataSet> data = store.load(condition);
+
+        // then
+        // only the 2 DataSets of the partition Name 1 were decoded
+        assertEquals(2, codec.decoded());
+        assertEquals(1, data.size());
+        assertEquals(50, data.getFirst().getNumber());
+        assertTrue(condition.test(data.getFirst()));
+    }
+
+    @Test
+    void otherConditions() {
+        // given
+        codec.resetDecoded();
+
+        // when
+        List<SomeDataSet> data = store.load(t -> t.getNumber() > 20);
+
+        // then
+        assertEquals(6, codec.decoded());
+        assertEquals(3, data.size());
+    }
+
+    @Test
+    void projectionPushdown() {
+        // given
+        List<SomeDataSet> created = new ArrayList<>();
+        DelimitedCodec<SomeDataSet> delimited = DelimitedCodec.<SomeDataSet>builder(v -> {
+                    SomeDataSet t = new SomeDataSet(M, (String) v.get("name"),
+                            v.get("number") instanceof Integer i ? i : 0, (String) v.get("someValue"));
+                    created.add(t);
+                    return t;
+                })
+                .stringColumn("name", SomeDataSet::getName)
+                .intColumn("number", SomeDataSet::getNumber)
+                .stringColumn("someValue", SomeDataSet::getSomeValue)
+                .build();
+        PartitionedStore<SomeDataSet> wide = new PartitionedStore<>(directory.resolve("wide"), _ -> "all", delimited);
+        wide.save(List.of(
+                new SomeDataSet(M, "Name 1", 50, "Value\t1"),
+                new SomeDataSet(M, null, 20, "Value\t2"),
+                new SomeDataSet(M, "Name\t3", -4, null)
+        ));
+        Projection projection = Projection.of("number", "name").where(v -> (Integer) v.get("number") > 0);
+        created.clear();
+
+        // when
+        List<SomeDataSet> data = wide.load(projection, t -> t.getName() != null);
+        List<SomeDataSet> all = wide.load();
+
+        // then
+        // the DataSet with a negative number was skipped before creating it
+        assertEquals(2 + 3, created.size());
+        assertEquals(1, data.size());
+        assertEquals("Name 1", data.getFirst().getName());
+        assertEquals(50, data.getFirst().getNumber());
+        assertNull(data.getFirst().getSomeValue());
+        assertEquals(List.of("Name 1:50Value\t1", "null:20Value\t2", "Name\t3:-4"), all.stream().map(SomeDataSet::toString).toList());
+    }
+
+    @Test
+    void keyConditionWithoutProjectedKey() {
+        // given
+        DelimitedCodec<SomeDataSet> delimited = DelimitedCodec.<SomeDataSet>builder(v -> new SomeDataSet(M,
+                        (String) v.get("name"), v.get("number") instanceof Integer i ? i : 0, (String) v.get("someValue")))
+                .stringColumn("name", SomeDataSet::getName)
+                .intColumn("number", SomeDataSet::getNumber)
+                .stringColumn("someValue", SomeDataSet::getSomeValue)
+                .build();
+        PartitionedStore<SomeDataSet> byName = new PartitionedStore<>(directory.resolve("byName"), SomeDataSet::getName, delimited);
+        byName.save(store.load());
+        PartitionedStore.KeyCondition<SomeDataSet> condition = byName.keyCondition(k -> k != null && k.startsWith("Name "))
+                .and(t -> t.getNumber() >= 0);
+
+        // when
+        List<SomeDataSet> data = byName.load(Projection.of("number", "someValue"), condition);
+
+        // then
+        assertEquals(List.of(0, 20, 50), data.stream().map(SomeDataSet::getNumber).sorted().toList());
+        assertTrue(data.stream().allMatch(t -> t.getName() == null));
+    }
+
+    @Test
+    void keysDifferingInCase() throws IOException {
+        // given
+        store.save(List.of(
+                new SomeDataSet(M, "name 1", 7, "Value 1"),
+                new SomeDataSet(M, "NAME_1", 8, "Value 1")
+        ));
+
+        // when
+        List<SomeDataSet> data = store.load(store.keyCondition(k -> "name 1".equals(k)));
+
+        // then
+        // the file names differ even on file systems ignoring case
+        try (Stream<Path> files = Files.list(directory)) {
+            assertEquals(6, files.map(f -> f.getFileName().toString().toLowerCase(Locale.ROOT)).distinct().count());
+        }
+        assertEquals(new HashSet<>(Arrays.asList(null, "Name 1", "name 1", "NAME_1", "Name 2", "Name/3")), store.partitions());
+        assertEquals(List.of(7), data.stream().map(SomeDataSet::getNumber).toList());
+    }
+
+    @Test
+    void lineBreaks() {
+        SomeDataSet invalid = new SomeDataSet(M, "Name\n4", 1, "Value 1");
+
+        assertThrows(IllegalArgumentException.class, () -> store.save(List.of(invalid)));
+    }
+
+}
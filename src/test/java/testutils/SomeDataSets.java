@@ -0,0 +1,89 @@
+package testutils;
+
+import analyzer.GroupingCube;
+import analyzer.GroupingDefinition;
+import analyzer.aggregation.Aggregate;
+import example.MetadataExample;
+import example.example_one.SomeDataSet;
+import report.MemorySink;
+import report.Report;
+import storage.DataSetCodec;
+
+import java.util.*;
+
+/**
+ * Test data of {@link SomeDataSet}s shared by the tests of storing and aggregating them.
+ */
+public class SomeDataSets {
+
+    private static final MetadataExample M = new MetadataExample();
+
+    private SomeDataSets() {
+    }
+
+    /**
+     * The DataSets with the indices from (inclusive) to (exclusive), with 3 names, 7 numbers and 2 values.
+     */
+    public static List<SomeDataSet> data(int from, int to) {
+        List<SomeDataSet> data = new ArrayList<>();
+        for (int i = from; i < to; i++) data.add(new SomeDataSet(M, "Name " + i % 3, i % 7, "Value " + i % 2));
+        return data;
+    }
+
+    /**
+     * Renders the size and the sorted lines of the Aggregate of each group of the groupings, since Aggregates like
+     * TopK print ties in the order they were added. The groups are rolled up from the state of the cube.
+     */
+    public static Map<List<?>, String> render(GroupingCube<SomeDataSet> cube, List<GroupingDefinition<SomeDataSet>> groupings) {
+        List<GroupingDefinition<SomeDataSet>> all = cube.question().groupings();
+        Map<List<?>, Aggregate<SomeDataSet>> aggregates = new HashMap<>();
+        Map<List<?>, Integer> sizes = new HashMap<>();
+        for (GroupingCube.State.Group group : cube.state().groups()) {
+            List<Object> keys = new ArrayList<>();
+            for (GroupingDefinition<SomeDataSet> gd : groupings) keys.add(group.keys().get(all.indexOf(gd)));
+            @SuppressWarnings("unchecked")
+            Aggregate<SomeDataSet> aggregate = (Aggregate<SomeDataSet>) group.aggregate();
+            aggregates.computeIfAbsent(keys, _ -> cube.question().aggregate().get()).merge(aggregate);
+            sizes.merge(keys, group.size(), Integer::sum);
+        }
+        Map<List<?>, String> rendered = new HashMap<>();
+        aggregates.forEach((keys, aggregate) -> {
+            MemorySink sink = new MemorySink();
+            Report.writeTo(sink, aggregate::print);
+            rendered.put(keys, sizes.get(keys) + "\n" + sink.lines().stream().sorted().toList());
+        });
+        return rendered;
+    }
+
+    /**
+     * Codec encoding the name, number and value as tab-separated columns, counting the decoded DataSets.
+     */
+    public static class Codec implements DataSetCodec<SomeDataSet> {
+
+        private int decoded;
+
+        @Override
+        public String encode(SomeDataSet t) {
+            return t.getName() + "\t" + t.getNumber() + "\t" + t.getSomeValue();
+        }
+
+        @Override
+        public SomeDataSet decode(String line) {
+            decoded++;
+            String[] parts = line.split("\t");
+            return new SomeDataSet(M, parts[0].equals("null") ? null : parts[0], Integer.parseInt(parts[1]), parts[2]);
+        }
+
+        /**
+         * The number of DataSets decoded since creating the codec or the last {@link #resetDecoded()}.
+         */
+        public int decoded() {
+            return decoded;
+        }
+
+        public void resetDecoded() {
+            decoded = 0;
+        }
+    }
+
+}
@@ -2,6 +2,7 @@ package testutils;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
+import report.Report;
 
 import java.io.IOException;
 import java.io.PrintStream;
@@ -19,6 +20,7 @@ public class TestWithOutputs {
 
     @BeforeEach
     void setup_Output() throws IOException {
+        Report.flush();
         oldStream = System.out;
         outputFile = Files.createTempFile("output", ".txt");
         outputFile.toFile().deleteOnExit();
@@ -27,10 +29,12 @@ public class TestWithOutputs {
 
     @AfterEach
     void cleanup_Output() {
+        Report.flush();
         System.setOut(oldStream);
     }
 
     protected void validateOutputs(String[] expectedOutputs) throws IOException {
+        Report.flush();
         List<String> output = Files.readAllLines(outputFile);
         int pos = 0;
         for (String expected : expectedOutputs) {